@@ -10,8 +10,10 @@
 package com.crawljax.plugins.benchmark;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
 
 import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.core.CrawlSession;
@@ -25,7 +27,6 @@ import com.crawljax.core.state.StateVertix;
 import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration;
 import com.crawljax.plugins.benchmark.dataset.BenchmarkRecord;
 import com.crawljax.plugins.benchmark.dataset.BenchmarkStorage;
-import com.crawljax.plugins.benchmark.dataset.FixedBenchmarkData;
 
 /**
  * This class collects the data used while benchmarking.
@@ -67,7 +68,9 @@ public class BenchmarkCollectorPlugin
 	}
 
 	/**
-	 * Append the last total record to a master file after averaging the record.
+	 * Append the last total record to a master file after averaging the record. The mean,
+	 * confidence interval and percentiles of every metric over all the runs since the last
+	 * {@link #resetStatistics()} are appended to the same file name with a ".statistics" suffix.
 	 * 
 	 * @param file
 	 *            the file to write to
@@ -92,9 +95,38 @@ public class BenchmarkCollectorPlugin
 		fileWriter.flush();
 		fileWriter.close();
 
+		// Write the statistics of all the runs
+		PrintStream statistics =
+		        new PrintStream(new FileOutputStream(new File(file + ".statistics"), true));
+		statistics.println("#" + totalRecord.toString());
+		storage.getRuns().writeSummary(statistics);
+		statistics.flush();
+		statistics.close();
+
 		// Destroy the Datastorage
-		BenchmarkStorage.destroy();
+		BenchmarkStorage.destroy(config);
+
+		removeRunData();
+	}
+
+	/**
+	 * Remove the statistics of the runs, so the next run starts new statistics. Call this before
+	 * the first run of a series, the runs of the series are added to the statistics and every
+	 * summary written by {@link #appendToMaster(String)} covers all the runs so far.
+	 */
+	public void resetStatistics() {
+		File f7 = new File(config.getStatisticsFile());
+		if (f7.exists()) {
+			f7.delete();
+		}
+	}
 
+	/**
+	 * Remove the records and the binary logs of the last run so the next run starts from scratch.
+	 * The statistics of the runs are kept, so a following run is added to them. The storage of the
+	 * run must be destroyed before calling this method.
+	 */
+	public void removeRunData() {
 		// Remove the records File created by instance
 		File f3 = new File(config.getRecordsFile());
 		if (f3.exists()) {
@@ -106,16 +138,27 @@ public class BenchmarkCollectorPlugin
 		if (f4.exists()) {
 			f4.delete();
 		}
+
+		// Remove the binary logs created by instance
+		File f5 = new File(config.getRecordsLogFile());
+		if (f5.exists()) {
+			f5.delete();
+		}
+		File f6 = new File(config.getSumRecordsLogFile());
+		if (f6.exists()) {
+			f6.delete();
+		}
 	}
 
 	/* Crawljax Extension points */
 
 	@Override
 	public void onUrlLoad(EmbeddedBrowser browser) {
+		BenchmarkStorage storage = BenchmarkStorage.instance(config);
+		storage.startCrawlerThread();
 		if (session != null) {
-			BenchmarkStorage.instance(config).stateVisited(session.getStateFlowGraph(),
-			        session.getInitialState(), session.getInitialState(),
-			        FixedBenchmarkData.buildFixedBenchmarkDataFromSession(session));
+			storage.stateVisited(session.getStateFlowGraph(), session.getInitialState(), session
+			        .getInitialState(), storage.getFixedData(session));
 		}
 	}
 
@@ -139,9 +182,9 @@ public class BenchmarkCollectorPlugin
 	 */
 	@Override
 	public void onRevisitState(CrawlSession session, StateVertix currentState) {
-		BenchmarkStorage.instance(config).stateVisited(session.getStateFlowGraph(), currentState,
-		        session.getInitialState(),
-		        FixedBenchmarkData.buildFixedBenchmarkDataFromSession(session));
+		BenchmarkStorage storage = BenchmarkStorage.instance(config);
+		storage.stateVisited(session.getStateFlowGraph(), currentState, session.getInitialState(),
+		        storage.getFixedData(session));
 	}
 
 	/**
@@ -151,6 +194,6 @@ public class BenchmarkCollectorPlugin
 	public void postCrawling(CrawlSession session) {
 		BenchmarkStorage store = BenchmarkStorage.instance(config);
 		store.finishedCrawling(session);
-		BenchmarkStorage.destroy();
+		BenchmarkStorage.destroy(config);
 	}
 }
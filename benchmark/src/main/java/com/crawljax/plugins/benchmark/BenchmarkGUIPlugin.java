@@ -9,22 +9,23 @@
  */
 package com.crawljax.plugins.benchmark;
 
+import com.crawljax.browser.EmbeddedBrowser;
 import com.crawljax.core.CrawlSession;
-import com.crawljax.core.plugin.OnNewStatePlugin;
-import com.crawljax.core.plugin.OnRevisitStatePlugin;
 import com.crawljax.core.plugin.PostCrawlingPlugin;
-import com.crawljax.core.state.StateVertix;
+import com.crawljax.core.plugin.PreCrawlingPlugin;
 import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkStorage;
 import com.crawljax.plugins.benchmark.gui.BenchmarkGUI;
 
 /**
- * Displays the main GUI to generate the figures / graphs and updates the graphs.
+ * Displays the main GUI to generate the figures / graphs and updates the graphs. The GUI is a
+ * consumer of the metrics snapshots of the BenchmarkStorage, so it is updated at most once per
+ * metrics interval and never from a crawler thread.
  * 
  * @version $Id: BenchmarkGUIPlugin.java 5979 2009-12-07 10:40:02Z stefan $
  * @author Stefan Lenselink <S.R.Lenselink@student.tudelft.nl>
  */
-public class BenchmarkGUIPlugin
-        implements OnNewStatePlugin, OnRevisitStatePlugin, PostCrawlingPlugin {
+public class BenchmarkGUIPlugin implements PreCrawlingPlugin, PostCrawlingPlugin {
 
 	/**
 	 * This is bad, no way about it...
@@ -42,19 +43,11 @@ public class BenchmarkGUIPlugin
 	}
 
 	/**
-	 * Start and / or update the GUI on new State. {@inheritDoc}
+	 * Start the GUI and subscribe it to the metrics snapshots. {@inheritDoc}
 	 */
 	@Override
-	public void onNewState(CrawlSession session) {
-		BenchmarkGUI.instance(config).repaint();
-	}
-
-	/**
-	 * Start and / or update the GUI on revisitedState. {@inheritDoc}
-	 */
-	@Override
-	public void onRevisitState(CrawlSession session, StateVertix currentState) {
-		BenchmarkGUI.instance(config).repaint();
+	public void preCrawling(EmbeddedBrowser browser) {
+		BenchmarkStorage.instance(config).addMetricsListener(BenchmarkGUI.instance(config));
 	}
 
 	/**
@@ -62,6 +55,6 @@ public class BenchmarkGUIPlugin
 	 */
 	@Override
 	public void postCrawling(CrawlSession session) {
-		BenchmarkGUI.instance(config).repaint();
+		BenchmarkGUI.instance(config).requestRepaint();
 	}
 }
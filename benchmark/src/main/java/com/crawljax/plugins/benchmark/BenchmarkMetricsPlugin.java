@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark;
+
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.CrawlSession;
+import com.crawljax.core.plugin.PostCrawlingPlugin;
+import com.crawljax.core.plugin.PreCrawlingPlugin;
+import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkStorage;
+import com.crawljax.plugins.benchmark.live.LiveMetricsServer;
+
+/**
+ * Serves the live metrics of the benchmark on a local http port while crawling, the headless
+ * alternative for the BenchmarkGUIPlugin.
+ * 
+ * @version $Id$
+ */
+public class BenchmarkMetricsPlugin implements PreCrawlingPlugin, PostCrawlingPlugin {
+
+	private static final Logger LOGGER = Logger.getLogger(BenchmarkMetricsPlugin.class);
+
+	private final BenchmarkConfiguration config;
+
+	private final LiveMetricsServer server;
+
+	/**
+	 * The default constructor for the BenchmarkMetricsPlugin.
+	 * 
+	 * @param config
+	 *            the config object to use to read the config from
+	 */
+	public BenchmarkMetricsPlugin(BenchmarkConfiguration config) {
+		this.config = config;
+		this.server = new LiveMetricsServer(config.getMetricsPort());
+	}
+
+	/**
+	 * Start the server and subscribe it to the snapshots of the storage. {@inheritDoc}
+	 */
+	@Override
+	public void preCrawling(EmbeddedBrowser browser) {
+		try {
+			server.start();
+		} catch (IOException e) {
+			LOGGER.error("Could not serve the live metrics on port " + config.getMetricsPort(), e);
+			return;
+		}
+		BenchmarkStorage.instance(config).addMetricsListener(server);
+	}
+
+	/**
+	 * Stop the server. {@inheritDoc}
+	 */
+	@Override
+	public void postCrawling(CrawlSession session) {
+		server.stop();
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.core.CandidateElement;
+import com.crawljax.core.CrawlSession;
+import com.crawljax.core.plugin.OnFireEventFailedPlugin;
+import com.crawljax.core.plugin.OnNewStatePlugin;
+import com.crawljax.core.plugin.OnRevisitStatePlugin;
+import com.crawljax.core.plugin.OnUrlLoadPlugin;
+import com.crawljax.core.plugin.PostCrawlingPlugin;
+import com.crawljax.core.plugin.PreStateCrawlingPlugin;
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.StateVertix;
+import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration;
+import com.crawljax.plugins.benchmark.dataset.PhaseProfile;
+import com.crawljax.plugins.benchmark.dataset.PhaseProfile.Phase;
+
+/**
+ * Profiles the phases of the crawl. Every plugin point called on a crawler thread ends a phase,
+ * the time since the previous plugin point on the same thread is recorded as the duration of
+ * that phase. So a NEW_STATE duration covers firing the event, the waitTimeAfterEvent, retrieving
+ * the DOM, comparing the states and the plugins run in between. Loading the url starts a new
+ * series of phases, the crawler threads are pooled and the time between two crawl tasks on the
+ * same thread is not a phase of the crawl. The durations are exported to the phases file after
+ * crawling.
+ * 
+ * @version $Id$
+ */
+public class BenchmarkProfilerPlugin
+        implements OnUrlLoadPlugin, PreStateCrawlingPlugin, OnFireEventFailedPlugin,
+        OnNewStatePlugin, OnRevisitStatePlugin, PostCrawlingPlugin {
+
+	private static final Logger LOGGER = Logger.getLogger(BenchmarkProfilerPlugin.class);
+
+	private final BenchmarkConfiguration config;
+
+	private final PhaseProfile profile = new PhaseProfile();
+
+	/**
+	 * The nanoTime of the last plugin point called on the current thread, 0 if none yet.
+	 */
+	private final ThreadLocal<long[]> lastCall = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	/**
+	 * The default constructor for the BenchmarkProfilerPlugin.
+	 * 
+	 * @param config
+	 *            the config object to use to read the config from
+	 */
+	public BenchmarkProfilerPlugin(BenchmarkConfiguration config) {
+		this.config = config;
+	}
+
+	/**
+	 * @return the durations recorded until now
+	 */
+	public PhaseProfile getProfile() {
+		return profile;
+	}
+
+	private void endPhase(Phase phase) {
+		long now = System.nanoTime();
+		long[] last = lastCall.get();
+		if (last[0] != 0) {
+			profile.record(phase, now - last[0]);
+		}
+		last[0] = now;
+	}
+
+	@Override
+	public void onUrlLoad(EmbeddedBrowser browser) {
+		// Start the phases of this crawl task, the thread may have run an earlier task
+		lastCall.get()[0] = System.nanoTime();
+	}
+
+	@Override
+	public void preStateCrawling(CrawlSession session, List<CandidateElement> candidateElements) {
+		endPhase(Phase.CANDIDATE_EXTRACTION);
+	}
+
+	@Override
+	public void onFireEventFailed(Eventable eventable, List<Eventable> pathToFailure) {
+		endPhase(Phase.EVENT_FAILED);
+	}
+
+	@Override
+	public void onNewState(CrawlSession session) {
+		endPhase(Phase.NEW_STATE);
+	}
+
+	@Override
+	public void onRevisitState(CrawlSession session, StateVertix currentState) {
+		endPhase(Phase.REVISIT_STATE);
+	}
+
+	/**
+	 * Export the durations of the phases. {@inheritDoc}
+	 */
+	@Override
+	public void postCrawling(CrawlSession session) {
+		lastCall.remove();
+		File file = new File(config.getPhasesFile());
+		File parentDir = file.getAbsoluteFile().getParentFile();
+		if (parentDir != null && !parentDir.exists()) {
+			parentDir.mkdirs();
+		}
+		try {
+			PrintStream output = new PrintStream(file);
+			profile.save(output);
+			output.flush();
+			output.close();
+		} catch (FileNotFoundException e) {
+			LOGGER.error("Could not write the phases file " + file, e);
+		}
+	}
+}
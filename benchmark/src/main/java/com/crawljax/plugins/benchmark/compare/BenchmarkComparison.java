@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.compare;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkRecord;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkRecordLog;
+
+/**
+ * Compares the sum records of one or more candidate builds with the sum records of a baseline
+ * build. The datasets are aligned by state count: the cumulative runtime, memory and cpu time at
+ * the first visit that reached a state count are paired, and the steps between the common state
+ * counts are tested with a signed-rank test. A metric regresses when the candidate is slower than
+ * the threshold at the highest common state count and the steps are significantly larger.
+ * <p>
+ * Usage: BenchmarkComparison [-threshold 0.10] [-alpha 0.05] baseline candidate..., where every
+ * dataset is a sum records text file, a binary sum records log or an output folder holding one.
+ * The exit code is 0 when no metric regressed, 1 when a metric regressed and 2 when the datasets
+ * could not be compared because they have no state count in common. A metric that is equal in
+ * every step or constant in both datasets, like a metric that is not measured, is reported as
+ * unchanged; a metric with fewer than {@link SignedRankTest#MINIMUM_PAIRS} differing steps is
+ * reported as insufficient data with a warning, neither fails the comparison.
+ * </p>
+ * 
+ * @version $Id$
+ */
+public class BenchmarkComparison {
+
+	/**
+	 * The exit code when no metric regressed.
+	 */
+	public static final int EXIT_OK = 0;
+
+	/**
+	 * The exit code when a metric regressed.
+	 */
+	public static final int EXIT_REGRESSION = 1;
+
+	/**
+	 * The exit code when the datasets could not be compared.
+	 */
+	public static final int EXIT_ERROR = 2;
+
+	private static final PlotType[] METRICS =
+	        { PlotType.RUNTIME, PlotType.MEMORY, PlotType.CPU_TIME };
+
+	private static final double DEFAULT_THRESHOLD = 0.10;
+	private static final double DEFAULT_ALPHA = 0.05;
+
+	private static final String SUM_RECORDS_LOG = "benchmark.sumrecords.bin";
+	private static final String SUM_RECORDS = "benchmark.sumrecords";
+
+	private final double threshold;
+	private final double alpha;
+
+	/**
+	 * @param threshold
+	 *            the allowed relative slowdown, 0.1 allows 10%
+	 * @param alpha
+	 *            the significance level of the test
+	 */
+	public BenchmarkComparison(double threshold, double alpha) {
+		this.threshold = threshold;
+		this.alpha = alpha;
+	}
+
+	/**
+	 * Load a dataset of sum records.
+	 * 
+	 * @param file
+	 *            a sum records text file, a binary sum records log or an output folder
+	 * @return the dataset
+	 * @throws IOException
+	 *             when the dataset can not be read
+	 */
+	public static BenchmarkDataset load(File file) throws IOException {
+		if (file.isDirectory()) {
+			File log = new File(file, SUM_RECORDS_LOG);
+			file = log.exists() ? log : new File(file, SUM_RECORDS);
+		}
+		BenchmarkDataset dataset = new BenchmarkDataset();
+		if (file.getName().endsWith(".bin")) {
+			BenchmarkRecordLog.read(file, dataset);
+		} else {
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+			try {
+				dataset.load(reader);
+			} finally {
+				reader.close();
+			}
+		}
+		return dataset;
+	}
+
+	/**
+	 * Index the records by state count, keeping the first visit that reached a state count.
+	 */
+	private static TreeMap<Integer, BenchmarkRecord> alignByStates(BenchmarkDataset dataset) {
+		TreeMap<Integer, BenchmarkRecord> visits = new TreeMap<Integer, BenchmarkRecord>();
+		synchronized (dataset) {
+			for (BenchmarkRecord record : dataset.values()) {
+				visits.put(record.getCountNr(), record);
+			}
+		}
+		TreeMap<Integer, BenchmarkRecord> byStates = new TreeMap<Integer, BenchmarkRecord>();
+		for (BenchmarkRecord record : visits.values()) {
+			int states = (int) record.getValueForPlotType(PlotType.STATES);
+			if (!byStates.containsKey(states)) {
+				byStates.put(states, record);
+			}
+		}
+		return byStates;
+	}
+
+	/**
+	 * Compare the metrics of a candidate with the baseline.
+	 * 
+	 * @param baseline
+	 *            the sum records of the baseline
+	 * @param candidate
+	 *            the sum records of the candidate
+	 * @return one comparison per metric
+	 */
+	public List<MetricComparison> compare(BenchmarkDataset baseline, BenchmarkDataset candidate) {
+		TreeMap<Integer, BenchmarkRecord> baselineStates = alignByStates(baseline);
+		TreeMap<Integer, BenchmarkRecord> candidateStates = alignByStates(candidate);
+		baselineStates.keySet().retainAll(candidateStates.keySet());
+		candidateStates.keySet().retainAll(baselineStates.keySet());
+
+		List<MetricComparison> result = new ArrayList<MetricComparison>();
+		for (PlotType metric : METRICS) {
+			result.add(compare(metric, baselineStates, candidateStates));
+		}
+		return result;
+	}
+
+	private MetricComparison compare(PlotType metric,
+	        TreeMap<Integer, BenchmarkRecord> baselineStates,
+	        TreeMap<Integer, BenchmarkRecord> candidateStates) {
+		int pairs = baselineStates.size();
+		double[] baselineSteps = new double[pairs];
+		double[] candidateSteps = new double[pairs];
+		long baselineValue = 0;
+		long candidateValue = 0;
+		int states = 0;
+		boolean tied = true;
+		boolean constant = true;
+		int i = 0;
+		Iterator<BenchmarkRecord> candidateRecords = candidateStates.values().iterator();
+		for (Map.Entry<Integer, BenchmarkRecord> entry : baselineStates.entrySet()) {
+			long baselineNext = entry.getValue().getValueForPlotType(metric);
+			long candidateNext = candidateRecords.next().getValueForPlotType(metric);
+			baselineSteps[i] = baselineNext - baselineValue;
+			candidateSteps[i] = candidateNext - candidateValue;
+			tied &= baselineSteps[i] == candidateSteps[i];
+			if (i > 0) {
+				constant &= baselineSteps[i] == 0 && candidateSteps[i] == 0;
+			}
+			baselineValue = baselineNext;
+			candidateValue = candidateNext;
+			states = entry.getKey();
+			i++;
+		}
+
+		double pValue = SignedRankTest.greaterPValue(baselineSteps, candidateSteps);
+		boolean regression =
+		        baselineValue > 0 && (double) candidateValue / baselineValue - 1 > threshold
+		                && pValue < alpha;
+		return new MetricComparison(metric, pairs, states, baselineValue, candidateValue,
+		        pValue, tied || constant, regression);
+	}
+
+	/**
+	 * Write the comparisons of one candidate.
+	 * 
+	 * @param output
+	 *            the stream to write to
+	 * @param name
+	 *            the name of the candidate
+	 * @param comparisons
+	 *            the comparisons of the candidate
+	 */
+	public static void writeComparisons(PrintStream output, String name,
+	        List<MetricComparison> comparisons) {
+		output.println("#" + name);
+		output.println("#metric\tstates\tpairs\tbaseline\tcandidate\tslowdown\tp\tresult");
+		for (MetricComparison comparison : comparisons) {
+			output.println(comparison);
+		}
+	}
+
+	/**
+	 * Compare the candidates with the baseline and exit with {@link #EXIT_REGRESSION} when a
+	 * metric of a candidate regressed.
+	 * 
+	 * @param args
+	 *            the options, the baseline and the candidates
+	 */
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Run the comparison of the command line.
+	 * 
+	 * @param args
+	 *            the options, the baseline and the candidates
+	 * @param output
+	 *            the stream to write the comparisons to
+	 * @param error
+	 *            the stream to write the errors to
+	 * @return the exit code
+	 */
+	public static int run(String[] args, PrintStream output, PrintStream error) {
+		double threshold = DEFAULT_THRESHOLD;
+		double alpha = DEFAULT_ALPHA;
+		List<File> files = new ArrayList<File>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if ("-threshold".equals(args[i])) {
+					threshold = Double.parseDouble(args[++i]);
+				} else if ("-alpha".equals(args[i])) {
+					alpha = Double.parseDouble(args[++i]);
+				} else {
+					files.add(new File(args[i]));
+				}
+			}
+		} catch (RuntimeException e) {
+			error.println("Invalid option: " + e.getMessage());
+			files.clear();
+		}
+		if (files.size() < 2) {
+			error.println("Usage: BenchmarkComparison [-threshold 0.10] [-alpha 0.05] "
+			        + "baseline candidate...");
+			return EXIT_ERROR;
+		}
+
+		BenchmarkComparison comparison = new BenchmarkComparison(threshold, alpha);
+		int exitCode = EXIT_OK;
+		try {
+			BenchmarkDataset baseline = load(files.get(0));
+			for (File file : files.subList(1, files.size())) {
+				List<MetricComparison> comparisons = comparison.compare(baseline, load(file));
+				writeComparisons(output, file.getPath(), comparisons);
+				for (MetricComparison metric : comparisons) {
+					if (metric.getPairs() == 0) {
+						error.println(file + " has no state count in common with the baseline");
+						return EXIT_ERROR;
+					}
+					if (metric.isRegression()) {
+						exitCode = EXIT_REGRESSION;
+					} else if (metric.isInsufficientData()) {
+						error.println("Warning: " + file + " has insufficient data to test "
+						        + metric.getMetric() + ", fewer than "
+						        + SignedRankTest.MINIMUM_PAIRS + " steps differ from the baseline");
+					}
+				}
+			}
+		} catch (IOException e) {
+			error.println("Could not read a dataset: " + e.getMessage());
+			return EXIT_ERROR;
+		}
+		return exitCode;
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.compare;
+
+import java.util.Locale;
+
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
+
+/**
+ * The comparison of one metric of a candidate dataset with the baseline dataset.
+ * 
+ * @version $Id$
+ */
+public class MetricComparison {
+
+	private final PlotType metric;
+	private final int pairs;
+	private final int states;
+	private final long baselineValue;
+	private final long candidateValue;
+	private final double pValue;
+	private final boolean unchanged;
+	private final boolean regression;
+
+	/**
+	 * @param metric
+	 *            the compared metric
+	 * @param pairs
+	 *            the number of paired steps between the aligned state counts
+	 * @param states
+	 *            the highest state count both datasets reached
+	 * @param baselineValue
+	 *            the cumulative value of the baseline at that state count
+	 * @param candidateValue
+	 *            the cumulative value of the candidate at that state count
+	 * @param pValue
+	 *            the p-value of the candidate steps being larger, NaN when there was
+	 *            insufficient data to test
+	 * @param unchanged
+	 *            true if every step is equal to the baseline or neither dataset changed after its
+	 *            first step
+	 * @param regression
+	 *            true if the candidate is significantly slower than the threshold allows
+	 */
+	MetricComparison(PlotType metric, int pairs, int states, long baselineValue,
+	        long candidateValue, double pValue, boolean unchanged, boolean regression) {
+		this.metric = metric;
+		this.pairs = pairs;
+		this.states = states;
+		this.baselineValue = baselineValue;
+		this.candidateValue = candidateValue;
+		this.pValue = pValue;
+		this.unchanged = unchanged;
+		this.regression = regression;
+	}
+
+	/**
+	 * @return the compared metric
+	 */
+	public PlotType getMetric() {
+		return metric;
+	}
+
+	/**
+	 * @return the number of paired steps between the aligned state counts
+	 */
+	public int getPairs() {
+		return pairs;
+	}
+
+	/**
+	 * @return the highest state count both datasets reached
+	 */
+	public int getStates() {
+		return states;
+	}
+
+	/**
+	 * @return the cumulative value of the baseline at the highest common state count
+	 */
+	public long getBaselineValue() {
+		return baselineValue;
+	}
+
+	/**
+	 * @return the cumulative value of the candidate at the highest common state count
+	 */
+	public long getCandidateValue() {
+		return candidateValue;
+	}
+
+	/**
+	 * @return the relative slowdown of the candidate, 0.1 is 10% slower, 0 without a baseline
+	 *         value
+	 */
+	public double getSlowdown() {
+		if (baselineValue <= 0) {
+			return 0;
+		}
+		return (double) candidateValue / baselineValue - 1;
+	}
+
+	/**
+	 * @return the one sided p-value of the candidate steps being larger than the baseline steps,
+	 *         NaN when there was insufficient data to test
+	 */
+	public double getPValue() {
+		return pValue;
+	}
+
+	/**
+	 * @return true if every step is equal to the baseline or neither dataset changed after its
+	 *         first step, like a metric that is not measured; nothing is left to test
+	 */
+	public boolean isUnchanged() {
+		return unchanged;
+	}
+
+	/**
+	 * @return true if the metric changed but fewer than {@link SignedRankTest#MINIMUM_PAIRS}
+	 *         steps differed, so the candidate could not be tested for a regression
+	 */
+	public boolean isInsufficientData() {
+		return !unchanged && Double.isNaN(pValue);
+	}
+
+	/**
+	 * @return true if the candidate is significantly slower than the threshold allows
+	 */
+	public boolean isRegression() {
+		return regression;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.US, "%s\t%d\t%d\t%d\t%d\t%+.1f%%\t%.4f\t%s", metric.name(),
+		        states, pairs, baselineValue, candidateValue, getSlowdown() * 100, pValue,
+		        regression ? "REGRESSION" : unchanged ? "unchanged"
+		                : isInsufficientData() ? "INSUFFICIENT DATA" : "ok");
+	}
+}
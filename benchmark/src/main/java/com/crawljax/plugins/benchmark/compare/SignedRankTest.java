@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.compare;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The one sided Wilcoxon signed-rank test on paired samples with the normal approximation. It
+ * tests if the candidate values tend to be larger than the baseline values without assuming the
+ * differences are normally distributed, which the step times of a crawl are not.
+ * 
+ * @version $Id$
+ */
+public final class SignedRankTest {
+
+	/**
+	 * The minimal number of differing pairs to test, with fewer pairs the smallest possible
+	 * one sided p-value is above 0.05 and the normal approximation does not hold.
+	 */
+	public static final int MINIMUM_PAIRS = 5;
+
+	private SignedRankTest() {
+	}
+
+	/**
+	 * Return the p-value of the hypothesis that the candidate values are larger than the baseline
+	 * values. Pairs with an equal value are dropped, when fewer than {@link #MINIMUM_PAIRS} pairs
+	 * remain there is insufficient data to test and NaN is returned.
+	 * 
+	 * @param baseline
+	 *            the baseline values
+	 * @param candidate
+	 *            the candidate values, paired with the baseline values by index
+	 * @return the one sided p-value, NaN when there are too few differing pairs to test
+	 */
+	public static double greaterPValue(double[] baseline, double[] candidate) {
+		if (baseline.length != candidate.length) {
+			throw new IllegalArgumentException("The samples are not paired, " + baseline.length
+			        + " baseline and " + candidate.length + " candidate values");
+		}
+		int n = 0;
+		final double[] differences = new double[baseline.length];
+		for (int i = 0; i < baseline.length; i++) {
+			double difference = candidate[i] - baseline[i];
+			if (difference != 0) {
+				differences[n++] = difference;
+			}
+		}
+		if (n < MINIMUM_PAIRS) {
+			return Double.NaN;
+		}
+
+		// Rank the absolute differences, ties get the average of their ranks
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(Math.abs(differences[o1]), Math.abs(differences[o2]));
+			}
+		});
+		double positiveRanks = 0;
+		double tieCorrection = 0;
+		int i = 0;
+		while (i < n) {
+			int j = i;
+			while (j + 1 < n
+			        && Math.abs(differences[order[j + 1]]) == Math.abs(differences[order[i]])) {
+				j++;
+			}
+			double rank = (i + j) / 2.0 + 1;
+			for (int k = i; k <= j; k++) {
+				if (differences[order[k]] > 0) {
+					positiveRanks += rank;
+				}
+			}
+			double ties = j - i + 1;
+			tieCorrection += ties * ties * ties - ties;
+			i = j + 1;
+		}
+
+		double mean = n * (n + 1) / 4.0;
+		double variance = n * (n + 1) * (2.0 * n + 1) / 24.0 - tieCorrection / 48.0;
+		if (variance <= 0) {
+			return 1;
+		}
+		// Continuity correction towards the mean
+		double z = (positiveRanks - mean - 0.5) / Math.sqrt(variance);
+		return 1 - normalCdf(z);
+	}
+
+	/**
+	 * The standard normal cumulative distribution, with the approximation of the error function
+	 * of Abramowitz and Stegun 7.1.26 (absolute error below 1.5e-7).
+	 * 
+	 * @param z
+	 *            the value
+	 * @return the probability of a value below z
+	 */
+	static double normalCdf(double z) {
+		double x = Math.abs(z) / Math.sqrt(2);
+		double t = 1 / (1 + 0.3275911 * x);
+		double polynomial =
+		        t * (0.254829592 + t
+		                * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+		double erf = 1 - polynomial * Math.exp(-x * x);
+		if (z < 0) {
+			return (1 - erf) / 2;
+		}
+		return (1 + erf) / 2;
+	}
+}
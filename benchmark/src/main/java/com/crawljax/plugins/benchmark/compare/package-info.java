@@ -0,0 +1,17 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Compares the datasets of benchmark runs of different builds and fails when a build is
+ * significantly slower than the baseline, so the output of the BenchmarkCollectorPlugin can be
+ * used as a performance gate.
+ * 
+ * @version $Id$
+ */
+package com.crawljax.plugins.benchmark.compare;
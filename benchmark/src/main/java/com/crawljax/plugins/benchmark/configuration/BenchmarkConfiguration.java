@@ -19,6 +19,42 @@ import com.crawljax.core.plugin.GeneratesOutput;
  */
 public interface BenchmarkConfiguration extends GeneratesOutput {
 
+	/**
+	 * This enum enumerates the different ways the memory usage of the state flow graph can be
+	 * measured. Default EXACT is selected.
+	 */
+	public enum MemoryMode {
+		/**
+		 * Walk the whole state flow graph for every visited state, on the thread building the
+		 * records.
+		 */
+		EXACT,
+		/**
+		 * Walk the state flow graph on a background thread every N states or T milliseconds and
+		 * estimate the values in between.
+		 */
+		SAMPLED,
+		/**
+		 * Only measure the states and edges which are new since the previous visit and add them
+		 * to a running total.
+		 */
+		INCREMENTAL
+	}
+
+	/**
+	 * This enum enumerates the ways the plots can be drawn. Default GNUPLOT is selected.
+	 */
+	public enum PlotRenderer {
+		/**
+		 * Plot with the external gnuplot executable through JavaPlot.
+		 */
+		GNUPLOT,
+		/**
+		 * Draw the plots in-process with Java2D, no gnuplot needed.
+		 */
+		JAVA
+	}
+
 	/**
 	 * Return the location of the gnuplot executable, note; not return the directory but the
 	 * executable it self. For example: /home/stefan/bin/gnplt
@@ -41,6 +77,42 @@ public interface BenchmarkConfiguration extends GeneratesOutput {
 	 */
 	String getSumRecordsFile();
 
+	/**
+	 * Return the binary log file where the Records are appended to while crawling.
+	 * 
+	 * @return the records log file
+	 */
+	String getRecordsLogFile();
+
+	/**
+	 * Return the binary log file where the Sum Records are appended to while crawling.
+	 * 
+	 * @return the sum records log file
+	 */
+	String getSumRecordsLogFile();
+
+	/**
+	 * Return the binary file holding the statistics of all the runs aggregated until now.
+	 * 
+	 * @return the statistics file
+	 */
+	String getStatisticsFile();
+
+	/**
+	 * Return the file where the durations of the crawl phases are exported to.
+	 * 
+	 * @return the phases file
+	 */
+	String getPhasesFile();
+
+	/**
+	 * Must the records also be exported in the text format (records and sum records file) when
+	 * the benchmark is finished?
+	 * 
+	 * @return true if the text files must be written.
+	 */
+	boolean exportTextFiles();
+
 	/**
 	 * Return the file where to store the total of all the Crawling.
 	 * 
@@ -54,4 +126,70 @@ public interface BenchmarkConfiguration extends GeneratesOutput {
 	 * @return true if the datafiles are in use.
 	 */
 	boolean useDataFiles();
+
+	/**
+	 * Return the way the memory usage of the state flow graph must be measured.
+	 * 
+	 * @return the memory measurement mode
+	 */
+	MemoryMode getMemoryMode();
+
+	/**
+	 * Return after how many visited states a new memory sample must be taken when the memory mode
+	 * is SAMPLED.
+	 * 
+	 * @return the number of states between two samples
+	 */
+	int getMemorySampleStates();
+
+	/**
+	 * Return the maximum time in ms between two memory samples when the memory mode is SAMPLED.
+	 * 
+	 * @return the number of ms between two samples
+	 */
+	long getMemorySampleInterval();
+
+	/**
+	 * Return the minimal time in ms between two published metrics snapshots.
+	 * 
+	 * @return the number of ms between two snapshots
+	 */
+	long getMetricsInterval();
+
+	/**
+	 * Return the length in ms of the rolling window over which the rates in a metrics snapshot
+	 * are calculated.
+	 * 
+	 * @return the length of the window in ms
+	 */
+	long getMetricsWindow();
+
+	/**
+	 * Return the local port the live metrics are served on.
+	 * 
+	 * @return the port number
+	 */
+	int getMetricsPort();
+
+	/**
+	 * Return the minimal time in ms between two redraws of the GUI plots.
+	 * 
+	 * @return the number of ms between two redraws
+	 */
+	long getRepaintInterval();
+
+	/**
+	 * Return how the plots are drawn.
+	 * 
+	 * @return the plot renderer
+	 */
+	PlotRenderer getPlotRenderer();
+
+	/**
+	 * Return the id of the run, every run id has its own BenchmarkStorage. Runs crawling at the
+	 * same time in one JVM must have different run ids and different output files.
+	 * 
+	 * @return the run id
+	 */
+	String getRunId();
 }
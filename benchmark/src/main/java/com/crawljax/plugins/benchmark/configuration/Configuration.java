@@ -23,10 +23,35 @@ public class Configuration implements BenchmarkConfiguration {
 	private static final String DEFAULT_RECORDS_FILE = "benchmark.records";
 	private static final String DEFAULT_SUMRECORDS_FILE = "benchmark.sumrecords";
 	private static final String DEFAULT_TOTAL_FILE = "benchmark.total";
+	private static final String DEFAULT_RECORDS_LOG_FILE = "benchmark.records.bin";
+	private static final String DEFAULT_SUMRECORDS_LOG_FILE = "benchmark.sumrecords.bin";
+	private static final String DEFAULT_STATISTICS_FILE = "benchmark.statistics.bin";
+	private static final String DEFAULT_PHASES_FILE = "benchmark.phases";
 	private String totalFile;
 	private String recordsFile;
 	private String sumRecordsFile;
+	private String recordsLogFile;
+	private String sumRecordsLogFile;
+	private String statisticsFile;
+	private String phasesFile;
+	private boolean exportTextFiles = true;
 	private boolean useDataFiles = false;
+	private static final int DEFAULT_MEMORY_SAMPLE_STATES = 25;
+	private static final long DEFAULT_MEMORY_SAMPLE_INTERVAL = 1000;
+	private MemoryMode memoryMode = MemoryMode.EXACT;
+	private int memorySampleStates = DEFAULT_MEMORY_SAMPLE_STATES;
+	private long memorySampleInterval = DEFAULT_MEMORY_SAMPLE_INTERVAL;
+	private static final long DEFAULT_METRICS_INTERVAL = 1000;
+	private static final long DEFAULT_METRICS_WINDOW = 60000;
+	private static final int DEFAULT_METRICS_PORT = 9404;
+	private long metricsInterval = DEFAULT_METRICS_INTERVAL;
+	private long metricsWindow = DEFAULT_METRICS_WINDOW;
+	private int metricsPort = DEFAULT_METRICS_PORT;
+	private static final long DEFAULT_REPAINT_INTERVAL = 1000;
+	private long repaintInterval = DEFAULT_REPAINT_INTERVAL;
+	private PlotRenderer plotRenderer = PlotRenderer.GNUPLOT;
+	private static final String DEFAULT_RUN_ID = "default";
+	private String runId = DEFAULT_RUN_ID;
 
 	/**
 	 * Return the location of gnuplot or specified by the config or by the General "look in path"
@@ -104,6 +129,93 @@ public class Configuration implements BenchmarkConfiguration {
 		this.sumRecordsFile = sumRecordsFile;
 	}
 
+	@Override
+	public String getRecordsLogFile() {
+		if (recordsLogFile == null) {
+			return this.getOutputFolder() + "/" + Configuration.DEFAULT_RECORDS_LOG_FILE;
+		}
+		return recordsLogFile;
+	}
+
+	/**
+	 * Set the location of the binary records log.
+	 * 
+	 * @param recordsLogFile
+	 *            the recordsLogFile to set
+	 */
+	public final void setRecordsLogFile(String recordsLogFile) {
+		this.recordsLogFile = recordsLogFile;
+	}
+
+	@Override
+	public String getSumRecordsLogFile() {
+		if (sumRecordsLogFile == null) {
+			return this.getOutputFolder() + "/" + Configuration.DEFAULT_SUMRECORDS_LOG_FILE;
+		}
+		return sumRecordsLogFile;
+	}
+
+	/**
+	 * Set the location of the binary sum records log.
+	 * 
+	 * @param sumRecordsLogFile
+	 *            the sumRecordsLogFile to set
+	 */
+	public final void setSumRecordsLogFile(String sumRecordsLogFile) {
+		this.sumRecordsLogFile = sumRecordsLogFile;
+	}
+
+	@Override
+	public String getStatisticsFile() {
+		if (statisticsFile == null) {
+			return this.getOutputFolder() + "/" + Configuration.DEFAULT_STATISTICS_FILE;
+		}
+		return statisticsFile;
+	}
+
+	/**
+	 * Set the location of the binary statistics file.
+	 * 
+	 * @param statisticsFile
+	 *            the statisticsFile to set
+	 */
+	public final void setStatisticsFile(String statisticsFile) {
+		this.statisticsFile = statisticsFile;
+	}
+
+	@Override
+	public String getPhasesFile() {
+		if (phasesFile == null) {
+			return this.getOutputFolder() + "/" + Configuration.DEFAULT_PHASES_FILE;
+		}
+		return phasesFile;
+	}
+
+	/**
+	 * Set the location of the phases file.
+	 * 
+	 * @param phasesFile
+	 *            the phasesFile to set
+	 */
+	public final void setPhasesFile(String phasesFile) {
+		this.phasesFile = phasesFile;
+	}
+
+	@Override
+	public final boolean exportTextFiles() {
+		return exportTextFiles;
+	}
+
+	/**
+	 * Must the text records files be written at the end of the benchmark?
+	 * 
+	 * @param exportTextFiles
+	 *            true if the text files must be written
+	 */
+	public final void setExportTextFiles(boolean exportTextFiles) {
+		this.exportTextFiles = exportTextFiles;
+	}
+
 	@Override
 	public String getTotalFile() {
 		if (totalFile == null) {
@@ -139,4 +251,139 @@ public class Configuration implements BenchmarkConfiguration {
 		this.useDataFiles = useDataFiles;
 	}
 
+	@Override
+	public final MemoryMode getMemoryMode() {
+		return memoryMode;
+	}
+
+	/**
+	 * Set the way the memory usage of the state flow graph is measured.
+	 * 
+	 * @param memoryMode
+	 *            the memoryMode to set
+	 */
+	public final void setMemoryMode(MemoryMode memoryMode) {
+		this.memoryMode = memoryMode;
+	}
+
+	@Override
+	public final int getMemorySampleStates() {
+		return memorySampleStates;
+	}
+
+	/**
+	 * Set after how many visited states a new memory sample is taken in the SAMPLED mode.
+	 * 
+	 * @param memorySampleStates
+	 *            the memorySampleStates to set
+	 */
+	public final void setMemorySampleStates(int memorySampleStates) {
+		this.memorySampleStates = memorySampleStates;
+	}
+
+	@Override
+	public final long getMemorySampleInterval() {
+		return memorySampleInterval;
+	}
+
+	/**
+	 * Set the maximum time in ms between two memory samples in the SAMPLED mode.
+	 * 
+	 * @param memorySampleInterval
+	 *            the memorySampleInterval to set
+	 */
+	public final void setMemorySampleInterval(long memorySampleInterval) {
+		this.memorySampleInterval = memorySampleInterval;
+	}
+
+	@Override
+	public final long getMetricsInterval() {
+		return metricsInterval;
+	}
+
+	/**
+	 * Set the minimal time in ms between two published metrics snapshots.
+	 * 
+	 * @param metricsInterval
+	 *            the metricsInterval to set
+	 */
+	public final void setMetricsInterval(long metricsInterval) {
+		this.metricsInterval = metricsInterval;
+	}
+
+	@Override
+	public final long getMetricsWindow() {
+		return metricsWindow;
+	}
+
+	/**
+	 * Set the length in ms of the rolling window of the metrics snapshots.
+	 * 
+	 * @param metricsWindow
+	 *            the metricsWindow to set
+	 */
+	public final void setMetricsWindow(long metricsWindow) {
+		this.metricsWindow = metricsWindow;
+	}
+
+	@Override
+	public final int getMetricsPort() {
+		return metricsPort;
+	}
+
+	/**
+	 * Set the local port the live metrics are served on.
+	 * 
+	 * @param metricsPort
+	 *            the metricsPort to set
+	 */
+	public final void setMetricsPort(int metricsPort) {
+		this.metricsPort = metricsPort;
+	}
+
+	@Override
+	public final long getRepaintInterval() {
+		return repaintInterval;
+	}
+
+	/**
+	 * Set the minimal time in ms between two redraws of the GUI plots.
+	 * 
+	 * @param repaintInterval
+	 *            the repaintInterval to set
+	 */
+	public final void setRepaintInterval(long repaintInterval) {
+		this.repaintInterval = repaintInterval;
+	}
+
+	@Override
+	public final PlotRenderer getPlotRenderer() {
+		return plotRenderer;
+	}
+
+	/**
+	 * Set how the plots are drawn.
+	 * 
+	 * @param plotRenderer
+	 *            the plotRenderer to set
+	 */
+	public final void setPlotRenderer(PlotRenderer plotRenderer) {
+		this.plotRenderer = plotRenderer;
+	}
+
+	@Override
+	public final String getRunId() {
+		return runId;
+	}
+
+	/**
+	 * Set the id of the run, every run id has its own BenchmarkStorage.
+	 * 
+	 * @param runId
+	 *            the runId to set
+	 */
+	public final void setRunId(String runId) {
+		this.runId = runId;
+	}
+
 }
@@ -12,8 +12,7 @@ package com.crawljax.plugins.benchmark.dataset;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Hashtable;
@@ -24,11 +23,15 @@ import com.crawljax.plugins.benchmark.gui.BenchmarkPlot;
 import com.panayotis.gnuplot.dataset.DataSet;
 
 /**
+ * Holds the BenchmarkRecords by countNr. Next to the Hashtable the values of every PlotType are
+ * kept in a column of primitives in countNr order, these columns are used for plotting. The order
+ * of the rows for an axis and the max value of every column are calculated once and cached until
+ * a record is added or changed.
+ * 
  * @author Stefan Lenselink <S.R.Lenselink@student.tudelft.nl>
  * @version $Id: BenchmarkDataset.java 5953 2009-12-03 14:21:31Z stefan $
  */
-public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
-        implements DataSet, Comparator<BenchmarkRecord> {
+public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord> implements DataSet {
 
 	private static final Logger LOGGER = Logger.getLogger(BenchmarkDataset.class);
 
@@ -37,14 +40,25 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 	 */
 	private static final long serialVersionUID = 5916138674598289841L;
 
-	private BenchmarkRecord lastLoaded;
+	private static final int INITIAL_ROWS = 64;
 
-	private ArrayList<BenchmarkRecord> recordList = new ArrayList<BenchmarkRecord>();
+	private BenchmarkRecord lastLoaded;
 
 	private final Object datasetLock = new Object();
 
 	private BenchmarkPlot currentPlot;
 
+	/* The columns, row i of every column belongs to the record with countNrs[i] */
+	private int rows = 0;
+	private int[] countNrs = new int[INITIAL_ROWS];
+	private long[][] columns = new long[PlotType.values().length][INITIAL_ROWS];
+
+	/* Caches per column, invalidated when records are added or changed */
+	private final boolean[] extremesValid = new boolean[PlotType.values().length];
+	private final long[] max = new long[PlotType.values().length];
+	private final int[][] sortedRows = new int[PlotType.values().length][];
+	private final boolean[] ascending = new boolean[PlotType.values().length];
+
 	/**
 	 * @return the datasetLock
 	 */
@@ -58,7 +72,8 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 	public enum PlotType {
 		RUNTIME("Runtime (ms)"), MEMORY("Memory (b)"), STATES("States (#)"), EDGES("Edges (#)"),
 		REVISITED_STATES("Revisited states (#)"), REVISITED_EDGES("Revisited edges(#)"), DEPTH(
-		        "Depth (#)"), CPU_USAGE("CPU usage (%)");
+		        "Depth (#)"), CPU_USAGE("CPU usage (%)"), CPU_TIME("CPU time (us)"), ALLOCATED_BYTES(
+		        "Allocated (b)"), GC_COUNT("GC collections (#)"), GC_TIME("GC time (ms)");
 		private final String label;
 
 		/**
@@ -105,27 +120,19 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 		return 1;
 	}
 
-	private ArrayList<BenchmarkRecord> sortedList() {
-		Enumeration<BenchmarkRecord> set = this.elements();
-		recordList = new ArrayList<BenchmarkRecord>();
-
-		while (set.hasMoreElements()) {
-			recordList.add(set.nextElement());
-		}
-		Collections.sort(recordList, this);
-		return recordList;
-	}
-
 	@Override
 	public synchronized int size() {
-		ArrayList<BenchmarkRecord> lst = sortedList();
-		return (int) lst.get(lst.size() - 1).getValueForPlotType(currentPlot.getXAxis());
+		if (rows == 0 || currentPlot == null) {
+			return 0;
+		}
+		return (int) maxOf(currentPlot.getXAxis());
 	}
 
 	/**
 	 * Retrieve data information from a point. To retrieve information for each point, a continious
 	 * call to this method will be executed, keeping the item number constant and increasing the
-	 * dimension.
+	 * dimension. The value is interpolated between the two rows around the point, found with a
+	 * binary search on the x-axis column.
 	 * 
 	 * @param point
 	 *            The point number
@@ -134,52 +141,53 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 	 * @return the point data for this dimension
 	 */
 	@Override
-	public final String getPointValue(final int point, final int dimension) {
-		if (point == 0) {
+	public final synchronized String getPointValue(final int point, final int dimension) {
+		if (point == 0 || rows == 0) {
 			return "";
 		}
 
 		if (currentPlot == null) {
 			LOGGER.warn("Holy smokes; how is this possible there is no currentPlot!");
+			return "";
 		}
 
-		String cache = currentPlot.getCachedPoint(point);
-		if (cache == null) {
-			// Not known
-			BenchmarkRecord last = null;
-			ArrayList<BenchmarkRecord> rs = this.sortedList();
-			for (BenchmarkRecord record : rs) {
-				if (record.getValueForPlotType(currentPlot.getXAxis()) < point) {
-					last = record;
-				} else {
-					long prevPoint = 0;
-					long prevValue = 0;
-					if (last != null) {
-						prevPoint = last.getValueForPlotType(currentPlot.getXAxis());
-						prevValue = last.getValueForPlotType(currentPlot.getYAxis());
-					}
-					long nextValue = record.getValueForPlotType(currentPlot.getYAxis());
-					long nextPoint = record.getValueForPlotType(currentPlot.getXAxis());
-
-					cache =
-					        ""
-					                + ((((nextValue - prevValue) / (nextPoint - prevPoint)) * (point - prevPoint)) + prevValue);
-					if (last != null
-					        && point >= record.getValueForPlotType(currentPlot.getXAxis())) {
-						System.out.println("BriBraBreak");
-						break;
-					}
-				}
-			}
-			if (cache == null) {
-				return "";
+		long[] x = columns[currentPlot.getXAxis().ordinal()];
+		long[] y = columns[currentPlot.getYAxis().ordinal()];
+		int[] order = orderOf(currentPlot.getXAxis());
+
+		// Binary search the first row with x >= point
+		int low = 0;
+		int high = rows;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (x[row(order, mid)] < point) {
+				low = mid + 1;
 			} else {
-				currentPlot.storeCachedPoint(point, cache);
-				return cache;
+				high = mid;
 			}
-		} else {
-			return cache;
 		}
+		if (low == rows) {
+			// point is beyond the last record
+			return "";
+		}
+
+		int next = row(order, low);
+		long nextPoint = x[next];
+		long nextValue = y[next];
+		if (nextPoint == point) {
+			return String.valueOf(nextValue);
+		}
+		long prevPoint = 0;
+		long prevValue = 0;
+		if (low > 0) {
+			int prev = row(order, low - 1);
+			prevPoint = x[prev];
+			prevValue = y[prev];
+		}
+		long interpolated =
+		        ((nextValue - prevValue) * (point - prevPoint)) / (nextPoint - prevPoint)
+		                + prevValue;
+		return String.valueOf(interpolated);
 	}
 
 	/**
@@ -191,14 +199,175 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 		// is the old record already known
 		if (old == null) {
 			// This is easy store it
+			storeRow(key, value);
 			return super.put(key, value);
 		}
 
 		old.sumRecord(value);
+		storeRow(key, old);
 
 		return super.put(key, old);
 	}
 
+	/**
+	 * Store the values of a record in the columns. Records arrive in countNr order during the crawl
+	 * so normally the row is appended; a known countNr updates its row and an older countNr (when
+	 * loading a file) is inserted at its place.
+	 * 
+	 * @param countNr
+	 *            the countNr of the record
+	 * @param record
+	 *            the record holding the values
+	 */
+	private void storeRow(int countNr, BenchmarkRecord record) {
+		int index = Arrays.binarySearch(countNrs, 0, rows, countNr);
+		boolean append = index < 0 && -(index + 1) == rows;
+		if (index < 0) {
+			index = -(index + 1);
+			if (rows == countNrs.length) {
+				countNrs = Arrays.copyOf(countNrs, rows * 2);
+				for (int c = 0; c < columns.length; c++) {
+					columns[c] = Arrays.copyOf(columns[c], rows * 2);
+				}
+			}
+			if (index < rows) {
+				System.arraycopy(countNrs, index, countNrs, index + 1, rows - index);
+				for (int c = 0; c < columns.length; c++) {
+					System.arraycopy(columns[c], index, columns[c], index + 1, rows - index);
+				}
+			}
+			countNrs[index] = countNr;
+			rows++;
+		}
+		for (PlotType type : PlotType.values()) {
+			int c = type.ordinal();
+			long value = record.getValueForPlotType(type);
+			columns[c][index] = value;
+			extremesValid[c] = false;
+			boolean stillAscending =
+			        append && ascending[c] && (index == 0 || columns[c][index - 1] <= value);
+			if (!stillAscending) {
+				// The cached order is no longer valid
+				sortedRows[c] = null;
+			}
+		}
+	}
+
+	/**
+	 * Return the rows sorted on a given column or null when the column is already ascending in
+	 * countNr order.
+	 * 
+	 * @param type
+	 *            the column to sort on
+	 * @return the sorted row numbers or null for the natural order
+	 */
+	private int[] orderOf(PlotType type) {
+		final int c = type.ordinal();
+		if (sortedRows[c] == null) {
+			final long[] column = columns[c];
+			ascending[c] = true;
+			for (int i = 1; i < rows && ascending[c]; i++) {
+				ascending[c] = column[i - 1] <= column[i];
+			}
+			if (ascending[c]) {
+				sortedRows[c] = new int[0];
+			} else {
+				Integer[] order = new Integer[rows];
+				for (int i = 0; i < rows; i++) {
+					order[i] = i;
+				}
+				Arrays.sort(order, new Comparator<Integer>() {
+					@Override
+					public int compare(Integer o1, Integer o2) {
+						long a = column[o1];
+						long b = column[o2];
+						return a < b ? -1 : (a == b ? 0 : 1);
+					}
+				});
+				sortedRows[c] = new int[rows];
+				for (int i = 0; i < rows; i++) {
+					sortedRows[c][i] = order[i];
+				}
+			}
+		}
+		if (ascending[c]) {
+			return null;
+		}
+		return sortedRows[c];
+	}
+
+	/**
+	 * Copy the values of two columns ordered on the x-axis column, used by renderers drawing the
+	 * rows directly instead of the interpolated points.
+	 * 
+	 * @param xAxis
+	 *            the column of the x values
+	 * @param yAxis
+	 *            the column of the y values
+	 * @return the x values in [0] and the y values in [1], both of the same length
+	 */
+	public synchronized long[][] getSeries(PlotType xAxis, PlotType yAxis) {
+		long[] x = columns[xAxis.ordinal()];
+		long[] y = columns[yAxis.ordinal()];
+		int[] order = orderOf(xAxis);
+		long[][] series = new long[2][rows];
+		for (int i = 0; i < rows; i++) {
+			int r = row(order, i);
+			series[0][i] = x[r];
+			series[1][i] = y[r];
+		}
+		return series;
+	}
+
+	private static int row(int[] order, int position) {
+		if (order == null) {
+			return position;
+		}
+		return order[position];
+	}
+
+	/**
+	 * Calculate the max value of a column if not cached.
+	 * 
+	 * @param c
+	 *            the column number
+	 */
+	private void updateExtremes(int c) {
+		if (extremesValid[c]) {
+			return;
+		}
+		long[] column = columns[c];
+		long maxValue = rows > 0 ? column[0] : 0;
+		for (int i = 1; i < rows; i++) {
+			if (column[i] > maxValue) {
+				maxValue = column[i];
+			}
+		}
+		max[c] = maxValue;
+		extremesValid[c] = true;
+	}
+
+	private long maxOf(PlotType type) {
+		updateExtremes(type.ordinal());
+		return max[type.ordinal()];
+	}
+
+	/**
+	 * Find the first row in x-axis order with a positive y value, where the plot starts.
+	 * 
+	 * @return the row, or the last row in x-axis order when no y value is positive
+	 */
+	private int firstPositiveRow() {
+		int[] order = orderOf(currentPlot.getXAxis());
+		long[] y = columns[currentPlot.getYAxis().ordinal()];
+		for (int i = 0; i < rows; i++) {
+			if (y[row(order, i)] > 0) {
+				return row(order, i);
+			}
+		}
+		return row(order, rows - 1);
+	}
+
 	/**
 	 * Tries to load the data set from a given reader.
 	 * 
@@ -220,14 +389,24 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 			BenchmarkRecord r = new BenchmarkRecord();
 			r.setSumTimes(avg);
 			if (r.load(line)) { // load line
-				this.put(r.getCountNr(), r); // add to our
-				if (lastLoaded == null || lastLoaded.getCountNr() < r.getCountNr()) {
-					lastLoaded = r;
-				}
+				loadRecord(r);
 			}
 		}
 	}
 
+	/**
+	 * Add a loaded record and remember the (merged) record with the highest countNr.
+	 * 
+	 * @param r
+	 *            the loaded record
+	 */
+	final synchronized void loadRecord(BenchmarkRecord r) {
+		this.put(r.getCountNr(), r); // add to our
+		if (lastLoaded == null || lastLoaded.getCountNr() <= r.getCountNr()) {
+			lastLoaded = this.get(r.getCountNr());
+		}
+	}
+
 	/**
 	 * Write this collection to stream.
 	 * 
@@ -255,55 +434,42 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 		return lastLoaded;
 	}
 
-	@Override
-	public int compare(BenchmarkRecord o1, BenchmarkRecord o2) {
-		return (int) (o1.getValueForPlotType(currentPlot.getXAxis()) - o2
-		        .getValueForPlotType(currentPlot.getXAxis()));
-	}
-
 	/**
-	 * Retrieve the lower bound value for the y-axis.
+	 * Retrieve the lower bound value for the y-axis, the first positive y value in x-axis order.
 	 * 
 	 * @return the min Y value
 	 */
-	public double getMinY() {
-		ArrayList<BenchmarkRecord> list = sortedList();
-		long value = 0;
-		for (BenchmarkRecord benchmarkRecord : list) {
-			value = benchmarkRecord.getValueForPlotType(currentPlot.getYAxis());
-			if (value > 0) {
-				break;
-			}
+	public synchronized double getMinY() {
+		if (rows == 0) {
+			return 0;
 		}
-		return value;
+		return columns[currentPlot.getYAxis().ordinal()][firstPositiveRow()];
 	}
 
 	/**
-	 * Retrieve the upper-bound y-value for the plot.
+	 * Retrieve the upper-bound y-value for the plot, the y value at the highest x value.
 	 * 
 	 * @return the upper y value
 	 */
-	public double getMaxY() {
-		return sortedList().get(sortedList().size() - 1).getValueForPlotType(
-		        currentPlot.getYAxis());
+	public synchronized double getMaxY() {
+		if (rows == 0) {
+			return 0;
+		}
+		return columns[currentPlot.getYAxis().ordinal()][row(orderOf(currentPlot.getXAxis()),
+		        rows - 1)];
 	}
 
 	/**
-	 * Retrieve the lower bound X value.
+	 * Retrieve the lower bound X value, the x value of the first positive y value in x-axis
+	 * order.
 	 * 
 	 * @return the lower bound x value
 	 */
-	public double getMinX() {
-		ArrayList<BenchmarkRecord> list = sortedList();
-		long value = 0;
-		for (BenchmarkRecord benchmarkRecord : list) {
-			value = benchmarkRecord.getValueForPlotType(currentPlot.getYAxis());
-			if (value > 0) {
-				value = benchmarkRecord.getValueForPlotType(currentPlot.getXAxis());
-				break;
-			}
+	public synchronized double getMinX() {
+		if (rows == 0) {
+			return 0;
 		}
-		return value;
+		return columns[currentPlot.getXAxis().ordinal()][firstPositiveRow()];
 	}
 
 	/**
@@ -313,7 +479,6 @@ public class BenchmarkDataset extends Hashtable<Integer, BenchmarkRecord>
 	 * @return the size basically.
 	 */
 	public double getMaxX() {
-		System.out.println("MAX X " + size());
 		return size();
 	}
 
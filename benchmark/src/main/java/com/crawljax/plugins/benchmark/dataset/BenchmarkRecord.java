@@ -40,6 +40,10 @@ public class BenchmarkRecord implements Cloneable {
 	private int processors;
 	private double load;
 	private double cpuPctsUsage;
+	private long cpuTime = 0;
+	private long allocatedBytes = 0;
+	private long gcCount = 0;
+	private long gcTime = 0;
 
 	private int sumTimes = 1;
 
@@ -52,7 +56,15 @@ public class BenchmarkRecord implements Cloneable {
 	/**
 	 * The total number of data fields this record holds. used in tryReadLine
 	 */
-	private static final int FIELDS = 13;
+	private static final int FIELDS = 20;
+
+	/**
+	 * The number of data fields of a record written before the cpu time, allocated bytes and GC
+	 * fields were added.
+	 */
+	private static final int FIELDS_WITHOUT_RESOURCES = 16;
+
+	private static final long NANOS_PER_MICRO = 1000;
 
 	private static final int FIELD_COUNT = 0;
 	private static final int FIELD_STATEID = 1;
@@ -71,6 +83,10 @@ public class BenchmarkRecord implements Cloneable {
 	private static final int FIELD_PROCESSORS = 13;
 	private static final int FIELD_LOAD = 14;
 	private static final int FIELD_CPUPCTSUSAGE = 15;
+	private static final int FIELD_CPUTIME = 16;
+	private static final int FIELD_ALLOCATEDBYTES = 17;
+	private static final int FIELD_GCCOUNT = 18;
+	private static final int FIELD_GCTIME = 19;
 
 	/**
 	 * Create a new BenchmarkRecord based on the given fixed dataset.
@@ -125,6 +141,8 @@ public class BenchmarkRecord implements Cloneable {
 	}
 
 	/**
+	 * The memory size is measured or estimated depending on the configured MemoryMode.
+	 * 
 	 * @return the memorySize
 	 */
 	public final long getMemorySize() {
@@ -269,7 +287,7 @@ public class BenchmarkRecord implements Cloneable {
 		if (record == this || record.equals(this)) {
 			LOGGER.warn("Summing two records which are the same");
 		}
-		sumTimes++;
+		sumTimes += record.sumTimes;
 		if (countNr < record.countNr) {
 			countNr = record.countNr;
 			stateId = record.stateId;
@@ -289,6 +307,10 @@ public class BenchmarkRecord implements Cloneable {
 		processors = record.processors;
 		load = record.load;
 		cpuPctsUsage = record.cpuPctsUsage;
+		cpuTime += record.cpuTime;
+		allocatedBytes += record.allocatedBytes;
+		gcCount += record.gcCount;
+		gcTime += record.gcTime;
 	}
 
 	/**
@@ -320,7 +342,8 @@ public class BenchmarkRecord implements Cloneable {
 	 * Return the string representation of a record. The output will be:
 	 * 
 	 * @return "countNr stateId states edges runtime memorySize revisitedStates revisitedEdges depth
-	 *         browsers threads"
+	 *         browsers threads waitTimeAfterEvent waitTimeAfterReloadUrl processors load
+	 *         cpuPctsUsage cpuTime allocatedBytes gcCount gcTime"
 	 */
 	@Override
 	public String toString() {
@@ -329,11 +352,13 @@ public class BenchmarkRecord implements Cloneable {
 		        + this.revisitedEdges + "\t" + this.depth + "\t" + this.browsers + "\t"
 		        + this.threads + "\t" + this.waitTimeAfterEvent + "\t"
 		        + this.waitTimeAfterReloadUrl + "\t" + this.processors + "\t" + this.load + "\t"
-		        + this.cpuPctsUsage;
+		        + this.cpuPctsUsage + "\t" + this.cpuTime + "\t" + this.allocatedBytes + "\t"
+		        + this.gcCount + "\t" + this.gcTime;
 	}
 
 	/**
-	 * Try to read a Record from a given line.
+	 * Try to read a Record from a given line. Lines without the resource fields are read with
+	 * those fields set to 0.
 	 * 
 	 * @param line
 	 *            the line holding a possible record
@@ -345,7 +370,8 @@ public class BenchmarkRecord implements Cloneable {
 			return false;
 		}
 		String[] fields = line.split("\t");
-		if (fields.length != BenchmarkRecord.FIELDS) {
+		if (fields.length != BenchmarkRecord.FIELDS
+		        && fields.length != BenchmarkRecord.FIELDS_WITHOUT_RESOURCES) {
 			// The line does not contain the required number of fields
 			return false;
 		}
@@ -367,6 +393,12 @@ public class BenchmarkRecord implements Cloneable {
 		this.setProcessors(Integer.valueOf(fields[BenchmarkRecord.FIELD_PROCESSORS]));
 		this.setLoad(Double.valueOf(fields[BenchmarkRecord.FIELD_LOAD]));
 		this.setCpuPctsUsage(Double.valueOf(fields[BenchmarkRecord.FIELD_CPUPCTSUSAGE]));
+		if (fields.length == BenchmarkRecord.FIELDS) {
+			this.setCpuTime(Long.valueOf(fields[BenchmarkRecord.FIELD_CPUTIME]));
+			this.setAllocatedBytes(Long.valueOf(fields[BenchmarkRecord.FIELD_ALLOCATEDBYTES]));
+			this.setGcCount(Long.valueOf(fields[BenchmarkRecord.FIELD_GCCOUNT]));
+			this.setGcTime(Long.valueOf(fields[BenchmarkRecord.FIELD_GCTIME]));
+		}
 
 		return true;
 	}
@@ -401,6 +433,10 @@ public class BenchmarkRecord implements Cloneable {
 		depth = depth / sumTimes;
 		waitTimeAfterEvent = waitTimeAfterEvent / sumTimes;
 		waitTimeAfterReloadUrl = waitTimeAfterReloadUrl / sumTimes;
+		cpuTime = cpuTime / sumTimes;
+		allocatedBytes = allocatedBytes / sumTimes;
+		gcCount = gcCount / sumTimes;
+		gcTime = gcTime / sumTimes;
 		sumTimes = 1;
 	}
 
@@ -429,6 +465,14 @@ public class BenchmarkRecord implements Cloneable {
 				return this.getDepth() / this.getSumTimes();
 			case CPU_USAGE:
 				return (long) (this.getCpuPctsUsage() / this.getSumTimes());
+			case CPU_TIME:
+				return this.getCpuTime() / NANOS_PER_MICRO / this.getSumTimes();
+			case ALLOCATED_BYTES:
+				return this.getAllocatedBytes() / this.getSumTimes();
+			case GC_COUNT:
+				return this.getGcCount() / this.getSumTimes();
+			case GC_TIME:
+				return this.getGcTime() / this.getSumTimes();
 			default:
 				LOGGER.warn("PlotType " + type + " not defined in the getValueForPlotType!");
 				break;
@@ -511,4 +555,72 @@ public class BenchmarkRecord implements Cloneable {
 		this.cpuPctsUsage = cpuPctsUsage;
 	}
 
+	/**
+	 * The cpu time used by the crawler threads, measured per thread with the ThreadMXBean.
+	 * 
+	 * @return the cpuTime in ns
+	 */
+	public final long getCpuTime() {
+		return cpuTime;
+	}
+
+	/**
+	 * @param cpuTime
+	 *            the cpuTime in ns to set
+	 */
+	public final void setCpuTime(long cpuTime) {
+		this.cpuTime = cpuTime;
+	}
+
+	/**
+	 * The bytes allocated by the crawler threads.
+	 * 
+	 * @return the allocatedBytes
+	 */
+	public final long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @param allocatedBytes
+	 *            the allocatedBytes to set
+	 */
+	public final void setAllocatedBytes(long allocatedBytes) {
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * The number of garbage collections of the whole process.
+	 * 
+	 * @return the gcCount
+	 */
+	public final long getGcCount() {
+		return gcCount;
+	}
+
+	/**
+	 * @param gcCount
+	 *            the gcCount to set
+	 */
+	public final void setGcCount(long gcCount) {
+		this.gcCount = gcCount;
+	}
+
+	/**
+	 * The time spent in garbage collection by the whole process.
+	 * 
+	 * @return the gcTime in ms
+	 */
+	public final long getGcTime() {
+		return gcTime;
+	}
+
+	/**
+	 * @param gcTime
+	 *            the gcTime in ms to set
+	 */
+	public final void setGcTime(long gcTime) {
+		this.gcTime = gcTime;
+	}
+
 }
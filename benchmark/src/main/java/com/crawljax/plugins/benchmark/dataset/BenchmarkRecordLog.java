@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import org.apache.log4j.Logger;
+
+/**
+ * An append-only binary log of BenchmarkRecords. Every record has the same (fixed) width so the
+ * log can be read back from a memory mapped file without parsing text. Every record is written to
+ * the file channel when it is appended, so a crashed JVM loses no record the operating system
+ * received; only close forces the file to the disk. Records of which the write failed stay in a
+ * buffer of PENDING_RECORDS records and are written again with the next record. A partially
+ * written last record is ignored when reading.
+ * 
+ * @version $Id$
+ */
+public class BenchmarkRecordLog {
+
+	private static final Logger LOGGER = Logger.getLogger(BenchmarkRecordLog.class);
+
+	private static final int MAGIC = 0x434a4252; // "CJBR"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 12;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * The maximal number of bytes stored of a state id.
+	 */
+	private static final int STATEID_SIZE = 64;
+
+	private static final int INT = 4;
+	private static final int LONG = 8;
+	private static final int SHORT = 2;
+
+	/**
+	 * countNr, sumTimes, stateId, states, edges, runtime, memorySize, revisitedStates,
+	 * revisitedEdges, depth, browsers, threads, waitTimeAfterEvent, waitTimeAfterReloadUrl,
+	 * processors, load, cpuPctsUsage, cpuTime, allocatedBytes, gcCount, gcTime.
+	 */
+	static final int RECORD_SIZE =
+	        INT + INT + SHORT + STATEID_SIZE + INT + INT + LONG + LONG + INT + INT + INT + INT
+	                + INT + INT + INT + INT + LONG + LONG + LONG + LONG + LONG + LONG;
+
+	/**
+	 * The size of a record in a version 1 log, which has no resource fields.
+	 */
+	private static final int V1_RECORD_SIZE = RECORD_SIZE - LONG - LONG - LONG - LONG;
+
+	/**
+	 * The maximal number of records kept while writing them to the file fails.
+	 */
+	private static final int PENDING_RECORDS = 64;
+
+	private final File file;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * PENDING_RECORDS);
+
+	/**
+	 * Open a log for appending, a new log is created with a header when the file does not exist.
+	 * 
+	 * @param file
+	 *            the file to append to
+	 * @throws IOException
+	 *             when the file can not be opened or is not a record log
+	 */
+	public BenchmarkRecordLog(File file) throws IOException {
+		this.file = file;
+		File parentDir = file.getAbsoluteFile().getParentFile();
+		if (!parentDir.exists()) {
+			parentDir.mkdirs();
+		}
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		if (channel.size() < HEADER_SIZE) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).flip();
+			channel.truncate(0);
+			channel.write(header, 0);
+		} else {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			channel.read(header, 0);
+			header.flip();
+			try {
+				if (checkHeader(header, file) != RECORD_SIZE) {
+					throw new IOException("Can not append to an older record log: " + file);
+				}
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+		// Drop a partially written record of a crashed run
+		long records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+		channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+		channel.position(channel.size());
+	}
+
+	/**
+	 * Append a record to the log and write it to the file, together with the records of which
+	 * the write failed before.
+	 * 
+	 * @param record
+	 *            the record to append
+	 * @throws IOException
+	 *             when the records can not be written, the record is kept to be written with the
+	 *             next one unless PENDING_RECORDS records are kept already
+	 */
+	public synchronized void append(BenchmarkRecord record) throws IOException {
+		if (buffer.remaining() < RECORD_SIZE) {
+			flush();
+		}
+		write(record, buffer);
+		flush();
+	}
+
+	/**
+	 * Write the records that are not written yet to the file. The bytes that could not be
+	 * written are kept.
+	 * 
+	 * @throws IOException
+	 *             when the records can not be written
+	 */
+	public synchronized void flush() throws IOException {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			buffer.compact();
+		}
+	}
+
+	/**
+	 * Write the remaining records, force them to the disk and close the log.
+	 * 
+	 * @throws IOException
+	 *             when the log can not be closed
+	 */
+	public synchronized void close() throws IOException {
+		try {
+			flush();
+			channel.force(false);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * @return the file of this log
+	 */
+	public final File getFile() {
+		return file;
+	}
+
+	/**
+	 * Check if a log is written in the current version and can be appended to.
+	 * 
+	 * @param file
+	 *            the log to check
+	 * @return true if the log has the header of the current version
+	 * @throws IOException
+	 *             when the file can not be read
+	 */
+	public static boolean isCurrentVersion(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			raf.getChannel().read(header, 0);
+			header.flip();
+			return header.remaining() == HEADER_SIZE && header.getInt() == MAGIC
+			        && header.getInt() == VERSION && header.getInt() == RECORD_SIZE;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Read all the records of a log into a dataset. The file is memory mapped and every record is
+	 * read directly from the mapped buffer. Logs of version 1 are read with the resource fields
+	 * set to 0.
+	 * 
+	 * @param file
+	 *            the log to read
+	 * @param dataset
+	 *            the dataset to add the records to
+	 * @return the number of records read
+	 * @throws IOException
+	 *             when the file can not be read or is not a record log
+	 */
+	public static int read(File file, BenchmarkDataset dataset) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel readChannel = raf.getChannel();
+			long size = readChannel.size();
+			if (size < HEADER_SIZE) {
+				return 0;
+			}
+			MappedByteBuffer mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			int recordSize = checkHeader(mapped, file);
+			int count = (int) ((size - HEADER_SIZE) / recordSize);
+			for (int i = 0; i < count; i++) {
+				mapped.position(HEADER_SIZE + i * recordSize);
+				dataset.loadRecord(read(mapped, recordSize == RECORD_SIZE));
+			}
+			return count;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Check the header and return the record size of the log.
+	 */
+	private static int checkHeader(ByteBuffer header, File file) throws IOException {
+		int magic = header.getInt();
+		int version = header.getInt();
+		int recordSize = header.getInt();
+		if (magic == MAGIC && version == VERSION && recordSize == RECORD_SIZE) {
+			return RECORD_SIZE;
+		}
+		if (magic == MAGIC && version == 1 && recordSize == V1_RECORD_SIZE) {
+			return V1_RECORD_SIZE;
+		}
+		LOGGER.warn("Not a benchmark record log (version " + VERSION + "): " + file);
+		throw new IOException("Not a benchmark record log: " + file);
+	}
+
+	private static void write(BenchmarkRecord record, ByteBuffer out) {
+		out.putInt(record.getCountNr());
+		out.putInt(record.getSumTimes());
+		byte[] id = record.getStateId().getBytes(UTF8);
+		int length = Math.min(id.length, STATEID_SIZE);
+		out.putShort((short) length);
+		out.put(id, 0, length);
+		out.position(out.position() + STATEID_SIZE - length);
+		out.putInt(record.getStates());
+		out.putInt(record.getEdges());
+		out.putLong(record.getRuntime());
+		out.putLong(record.getMemorySize());
+		out.putInt(record.getRevisitedStates());
+		out.putInt(record.getRevisitedEdges());
+		out.putInt(record.getDepth());
+		out.putInt(record.getBrowsers());
+		out.putInt(record.getThreads());
+		out.putInt(record.getWaitTimeAfterEvent());
+		out.putInt(record.getWaitTimeAfterReloadUrl());
+		out.putInt(record.getProcessors());
+		out.putDouble(record.getLoad());
+		out.putDouble(record.getCpuPctsUsage());
+		out.putLong(record.getCpuTime());
+		out.putLong(record.getAllocatedBytes());
+		out.putLong(record.getGcCount());
+		out.putLong(record.getGcTime());
+	}
+
+	private static BenchmarkRecord read(ByteBuffer in, boolean withResources) {
+		BenchmarkRecord record = new BenchmarkRecord();
+		record.setCountNr(in.getInt());
+		record.setSumTimes(in.getInt());
+		int length = in.getShort();
+		byte[] id = new byte[length];
+		in.get(id);
+		in.position(in.position() + STATEID_SIZE - length);
+		record.setStateId(new String(id, UTF8));
+		record.setStates(in.getInt());
+		record.setEdges(in.getInt());
+		record.setRuntime(in.getLong());
+		record.setMemorySize(in.getLong());
+		record.setRevisitedStates(in.getInt());
+		record.setRevisitedEdges(in.getInt());
+		record.setDepth(in.getInt());
+		record.setBrowsers(in.getInt());
+		record.setThreads(in.getInt());
+		record.setWaitTimeAfterEvent(in.getInt());
+		record.setWaitTimeAfterReloadUrl(in.getInt());
+		record.setProcessors(in.getInt());
+		record.setLoad(in.getDouble());
+		record.setCpuPctsUsage(in.getDouble());
+		if (withResources) {
+			record.setCpuTime(in.getLong());
+			record.setAllocatedBytes(in.getLong());
+			record.setGcCount(in.getLong());
+			record.setGcTime(in.getLong());
+		}
+		return record;
+	}
+}
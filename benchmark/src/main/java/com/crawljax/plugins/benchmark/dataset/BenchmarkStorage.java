@@ -15,11 +15,15 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.lang.management.ManagementFactory;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.log4j.Logger;
 
@@ -29,11 +33,11 @@ import com.crawljax.core.state.Eventable;
 import com.crawljax.core.state.StateFlowGraph;
 import com.crawljax.core.state.StateVertix;
 import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration;
-import com.javamex.classmexer.MemoryUtil;
-import com.javamex.classmexer.MemoryUtil.VisibilityFilter;
 
 /**
- * This class is used to store all the recored / measured values during benchmarking.
+ * This class is used to store all the recored / measured values during benchmarking. Every run
+ * (run id of the configuration) has its own storage, so several runs can crawl at the same time in
+ * one JVM.
  * 
  * @author Stefan Lenselink <S.R.Lenselink@student.tudelft.nl>
  * @version $Id: BenchmarkStorage.java 5953 2009-12-03 14:21:31Z stefan $
@@ -43,25 +47,43 @@ public final class BenchmarkStorage {
 	private static final Logger LOGGER = Logger.getLogger(BenchmarkStorage.class.getName());
 
 	/**
-	 * The main instance used inside this class, init with null to determine the current state.
+	 * The storages of the runs in progress by run id.
 	 */
-	private static BenchmarkStorage localInstance = null;
+	private static final ConcurrentHashMap<String, BenchmarkStorage> STORAGES =
+	        new ConcurrentHashMap<String, BenchmarkStorage>();
+
+	/**
+	 * The maximal number of not yet processed visits.
+	 */
+	private static final int VISIT_BUFFER_SIZE = 4096;
+
+	/**
+	 * Time in ns the consumer sleeps when there are no visits to process.
+	 */
+	private static final long CONSUMER_IDLE_NANOS = 1000000;
+
+	private static final String[] NO_NAMES = new String[0];
+	private static final long[] NO_IDS = new long[0];
 
 	/* Internal */
 	private int counter = 0;
 
 	private int lastEdges = 0;
 	private long lastMemory = 0;
+	private long cpuTime = 0;
+	private long allocatedBytes = 0;
+	private long lastGcCount = 0;
+	private long lastGcTime = 0;
 	private int lastStates = 0;
-	private long lastTime = 0;
+	private volatile long lastTime = 0;
 
 	private int maxDepth = 0;
 
-	private long startTime;
+	private volatile long startTime;
 	/**
 	 * Store the absolute total.
 	 */
-	private BenchmarkRecord total;
+	private volatile BenchmarkRecord total;
 
 	/**
 	 * This ArrayList stores a single record which applies to the denoted state.
@@ -74,56 +96,175 @@ public final class BenchmarkStorage {
 	 */
 	private final BenchmarkDataset sumRecords;
 
-	private final Hashtable<String, Integer> statesSeen;
-	private final Hashtable<String, Integer> edgesSeen;
+	private final RevisitCounter statesSeen;
+	private final RevisitCounter edgesSeen;
+
+	/**
+	 * The depth of every state, updated by the consumer with the edges coming in to the visited
+	 * states.
+	 */
+	private final DepthIndex depthIndex = new DepthIndex();
+
+	/**
+	 * The ids of the edges already handed to the consumer for the depthIndex. Filled by the
+	 * crawler threads, so every edge is captured once.
+	 */
+	private final Set<Long> indexedEdges =
+	        Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+	/**
+	 * The state the current crawler thread visited last.
+	 */
+	private final ThreadLocal<StateVertix> lastState = new ThreadLocal<StateVertix>();
 
 	private final BenchmarkConfiguration config;
 
-	private StateVertix lastState;
+	private final MemoryMeter memoryMeter;
+
+	private final ResourceMeter resourceMeter = new ResourceMeter();
+
+	/**
+	 * The visits captured by the crawler threads waiting to be processed by the consumer.
+	 */
+	private final VisitRingBuffer<VisitSnapshot> visits =
+	        new VisitRingBuffer<VisitSnapshot>(VISIT_BUFFER_SIZE);
+
+	/**
+	 * The number of visits processed by the consumer.
+	 */
+	private volatile long processed = 0;
+
+	private volatile boolean consuming = true;
+
+	/**
+	 * The visits that could not be captured or processed, their records are missing.
+	 */
+	private final AtomicLong failedVisits = new AtomicLong();
+
+	private final Thread consumer;
+
+	/**
+	 * The binary logs the records are appended to while crawling, null if not used.
+	 */
+	private BenchmarkRecordLog recordsLog;
+	private BenchmarkRecordLog sumRecordsLog;
+
+	/**
+	 * The statistics of all the runs, including the runs of earlier sessions saved to disk.
+	 */
+	private final RunAggregator runs = new RunAggregator();
 
 	/**
-	 * Retrieve the global unique storage used in benchmarking.
+	 * The consumers of the metrics snapshots.
+	 */
+	private final CopyOnWriteArrayList<MetricsListener> metricsListeners =
+	        new CopyOnWriteArrayList<MetricsListener>();
+
+	private final MetricsWindow metricsWindow;
+
+	private volatile MetricsSnapshot metricsSnapshot;
+
+	private long lastPublished = 0;
+
+	/**
+	 * The fixed data of this run, built from the first session seen.
+	 */
+	private volatile FixedBenchmarkData fixedData;
+
+	/**
+	 * Retrieve the storage of a run, it is created when the run has no storage yet.
 	 * 
 	 * @param config
-	 *            the object where to retrieve the output config from
-	 * @return the instance of the globally used BenchmarkStorage
+	 *            the object where to retrieve the run id and the output config from
+	 * @return the instance of the BenchmarkStorage of the run
 	 */
-	public static synchronized BenchmarkStorage instance(BenchmarkConfiguration config) {
-		if (localInstance == null) {
-			localInstance = new BenchmarkStorage(config);
-			try {
+	public static BenchmarkStorage instance(BenchmarkConfiguration config) {
+		BenchmarkStorage storage = STORAGES.get(config.getRunId());
+		if (storage != null) {
+			// Fast path, taken by the crawler threads on every visit
+			return storage;
+		}
+		synchronized (STORAGES) {
+			storage = STORAGES.get(config.getRunId());
+			if (storage == null) {
+				storage = new BenchmarkStorage(config);
+				try {
+					if (config.useDataFiles()) {
+						storage.doLoad();
+					}
+				} catch (FileNotFoundException e) {
+					// This is normal when the plugin is run for the first-time
+					LOGGER.warn("Datafile(s) not found creating a new-one");
+				} catch (IOException e) {
+					LOGGER.error("Recieved IOException when opening Datafiles(s)", e);
+				} catch (CrawljaxException e) {
+					LOGGER.error("CrawljaxException Recieved....", e);
+				}
 				if (config.useDataFiles()) {
-					localInstance.doLoad();
+					storage.loadStatistics();
+					storage.openLogs();
 				}
-			} catch (FileNotFoundException e) {
-				// This is normal when the plugin is run for the first-time
-				LOGGER.warn("Datafile(s) not found creating a new-one");
-			} catch (IOException e) {
-				LOGGER.error("Recieved IOException when opening Datafiles(s)", e);
-			} catch (CrawljaxException e) {
-				LOGGER.error("CrawljaxException Recieved....", e);
+				STORAGES.put(config.getRunId(), storage);
 			}
+			return storage;
 		}
-		return localInstance;
 	}
 
 	/**
-	 * Destroy the BenchmarkStorge instance. A new call to instace will create a new instance and in
-	 * doing so calling the constructor again and "restarting" from scratch.
+	 * Destroy the BenchmarkStorage of a run. A new call to instance for the run will create a new
+	 * instance and in doing so calling the constructor again and "restarting" from scratch. The
+	 * storages of other runs are not touched.
+	 * 
+	 * @param config
+	 *            the object where to retrieve the run id from
 	 */
-	public static synchronized void destroy() {
-		if (localInstance != null) {
-			try {
-				if (localInstance.config.useDataFiles()) {
-					localInstance.doSave();
-				}
-			} catch (IOException e) {
-				LOGGER.error("Recieved IOException during saving...", e);
-			} catch (CrawljaxException e) {
-				LOGGER.error("Recieved Crawljax exception during saving...", e);
-			} finally {
-				localInstance = null;
+	public static void destroy(BenchmarkConfiguration config) {
+		BenchmarkStorage storage;
+		synchronized (STORAGES) {
+			storage = STORAGES.remove(config.getRunId());
+		}
+		if (storage != null) {
+			storage.shutdown();
+		}
+	}
+
+	/**
+	 * Destroy the BenchmarkStorages of all the runs.
+	 */
+	public static void destroy() {
+		List<BenchmarkStorage> storages;
+		synchronized (STORAGES) {
+			storages = new ArrayList<BenchmarkStorage>(STORAGES.values());
+			STORAGES.clear();
+		}
+		for (BenchmarkStorage storage : storages) {
+			storage.shutdown();
+		}
+	}
+
+	/**
+	 * Process the remaining visits, save the datasets and stop the threads of this storage.
+	 */
+	private void shutdown() {
+		try {
+			stopConsumer();
+			closeLogs();
+			if (counter > 0) {
+				// Only a storage which processed visits holds the total of a run
+				runs.addTotal(total);
 			}
+			if (config.useDataFiles()) {
+				runs.save(new File(config.getStatisticsFile()));
+			}
+			if (config.useDataFiles() && config.exportTextFiles()) {
+				doSave();
+			}
+		} catch (IOException e) {
+			LOGGER.error("Recieved IOException during saving...", e);
+		} catch (CrawljaxException e) {
+			LOGGER.error("Recieved Crawljax exception during saving...", e);
+		} finally {
+			memoryMeter.stop();
 		}
 	}
 
@@ -136,8 +277,40 @@ public final class BenchmarkStorage {
 		sumRecords = new BenchmarkDataset();
 		total = new BenchmarkRecord();
 
-		statesSeen = new Hashtable<String, Integer>();
-		edgesSeen = new Hashtable<String, Integer>();
+		statesSeen = new RevisitCounter();
+		edgesSeen = new RevisitCounter();
+
+		memoryMeter = buildMemoryMeter(config);
+
+		metricsWindow = new MetricsWindow(config.getMetricsWindow(), config.getMetricsInterval());
+
+		consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				consume();
+			}
+		}, "BenchmarkStorageConsumer-" + config.getRunId());
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	/**
+	 * Build the MemoryMeter for the memory mode selected in the configuration.
+	 * 
+	 * @param config
+	 *            the configuration to read the memory mode from
+	 * @return the MemoryMeter to use
+	 */
+	private static MemoryMeter buildMemoryMeter(BenchmarkConfiguration config) {
+		switch (config.getMemoryMode()) {
+			case SAMPLED:
+				return new SampledMemoryMeter(config.getMemorySampleStates(), config
+				        .getMemorySampleInterval());
+			case INCREMENTAL:
+				return new IncrementalMemoryMeter();
+			default:
+				return new ExactMemoryMeter();
+		}
 	}
 
 	/**
@@ -155,15 +328,93 @@ public final class BenchmarkStorage {
 	}
 
 	/**
+	 * Return the statistics of all the runs after all the visits captured until now are
+	 * processed.
+	 * 
+	 * @return the aggregated statistics
+	 */
+	public RunAggregator getRuns() {
+		flush();
+		return runs;
+	}
+
+	/**
+	 * Register a consumer of the metrics snapshots. It receives the latest snapshot, if any, and
+	 * every snapshot published after that.
+	 * 
+	 * @param listener
+	 *            the listener to add
+	 */
+	public void addMetricsListener(MetricsListener listener) {
+		metricsListeners.addIfAbsent(listener);
+		MetricsSnapshot snapshot = metricsSnapshot;
+		if (snapshot != null) {
+			listener.snapshotPublished(snapshot);
+		}
+	}
+
+	/**
+	 * Unregister a consumer of the metrics snapshots.
+	 * 
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public void removeMetricsListener(MetricsListener listener) {
+		metricsListeners.remove(listener);
+	}
+
+	/**
+	 * Return the latest published metrics snapshot without waiting for the visits still to be
+	 * processed.
+	 * 
+	 * @return the latest snapshot or null if none is published yet
+	 */
+	public MetricsSnapshot getMetricsSnapshot() {
+		return metricsSnapshot;
+	}
+
+	/**
+	 * Publish a new metrics snapshot when the metrics interval passed since the previous one.
+	 * Called by the consumer thread, or by the thread finishing the crawl after a flush.
+	 * 
+	 * @param time
+	 *            the current time in ms
+	 * @param force
+	 *            publish even if the interval did not pass yet
+	 */
+	private synchronized void publishMetrics(long time, boolean force) {
+		if (!force && time - lastPublished < config.getMetricsInterval()) {
+			return;
+		}
+		lastPublished = time;
+		MetricsSnapshot snapshot = metricsWindow.add(time, total.clone());
+		metricsSnapshot = snapshot;
+		for (MetricsListener listener : metricsListeners) {
+			try {
+				listener.snapshotPublished(snapshot);
+			} catch (RuntimeException e) {
+				LOGGER.error("Metrics listener failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Return the total after all the visits captured until now are processed.
+	 * 
 	 * @return the total
 	 */
 	public BenchmarkRecord getTotal() {
+		flush();
 		return total;
 	}
 
 	/**
 	 * Notify the BenchmarkStorage of a new state which has been visited. This method is designed
-	 * for the real work and applicable to class from anyware.
+	 * for the real work and applicable to class from anyware. Only the cheap values are read from
+	 * the state flow graph here, without a lock shared by the crawler threads; the depth, the
+	 * revisits, the memory usage and the records are calculated by the consumer thread. The visits
+	 * are processed in the order they are queued, which for several crawler threads is not
+	 * exactly the order they were captured in.
 	 * 
 	 * @param sfg
 	 *            the state flow graph holding the flow of states as known now
@@ -174,43 +425,153 @@ public final class BenchmarkStorage {
 	 * @param data
 	 *            the object to read the data from
 	 */
-	public synchronized void stateVisited(final StateFlowGraph sfg,
-	        final StateVertix currentState, final StateVertix indexState, FixedBenchmarkData data) {
-		// Get The Data now as fast as possible
-		long currentTime = System.currentTimeMillis();
+	public void stateVisited(final StateFlowGraph sfg, final StateVertix currentState,
+	        final StateVertix indexState, FixedBenchmarkData data) {
+		VisitSnapshot visit;
+		try {
+			visit = captureVisit(sfg, currentState, indexState, data);
+		} catch (RuntimeException e) {
+			failedVisits.incrementAndGet();
+			LOGGER.error("Could not capture visited state", e);
+			return;
+		}
+		visits.put(visit);
+	}
 
-		double load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+	/**
+	 * Read the values of a visit on the crawler thread. The edges coming in to the current state
+	 * are read once: the edges not captured by any visit before are handed on for the depthIndex
+	 * and the edges from the state this thread visited before are handed on as revisited.
+	 */
+	private VisitSnapshot captureVisit(StateFlowGraph sfg, StateVertix currentState,
+	        StateVertix indexState, FixedBenchmarkData data) {
+		StateVertix previous = lastState.get();
+		lastState.set(currentState);
+		if (currentState == null || indexState == null) {
+			return new VisitSnapshot(sfg, currentState, null, data, resourceMeter, NO_NAMES,
+			        NO_NAMES, NO_IDS);
+		}
+		Set<Eventable> incoming = sfg.getIncomingClickable(currentState);
+		Eventable[] edges;
+		if (incoming == null) {
+			edges = new Eventable[0];
+		} else {
+			edges = incoming.toArray(new Eventable[incoming.size()]);
+		}
+		String[] sources = new String[edges.length];
+		String[] targets = new String[edges.length];
+		long[] revisited = new long[edges.length];
+		int newEdges = 0;
+		int revisits = 0;
+		for (Eventable eventable : edges) {
+			try {
+				StateVertix source = eventable.getSourceStateVertix();
+				StateVertix target = eventable.getTargetStateVertix();
+				if (indexedEdges.add(eventable.getId())) {
+					sources[newEdges] = source.getName();
+					targets[newEdges] = target.getName();
+					newEdges++;
+				}
+				if (source.equals(previous) && target.equals(currentState)) {
+					// From is the old (previous) state and destination is the current state
+					revisited[revisits++] = eventable.getId();
+				}
+			} catch (CrawljaxException e) {
+				LOGGER.error("Catched CrawljaxException...", e);
+			}
+		}
+		return new VisitSnapshot(sfg, currentState, indexState.getName(), data, resourceMeter,
+		        Arrays.copyOf(sources, newEdges), Arrays.copyOf(targets, newEdges), Arrays
+		                .copyOf(revisited, revisits));
+	}
+
+	/**
+	 * @return the number of visits that could not be captured or processed
+	 */
+	public long getFailedVisits() {
+		return failedVisits.get();
+	}
+
+	/**
+	 * Process the captured visits until the storage is destroyed. Runs on the consumer thread.
+	 */
+	private void consume() {
+		while (true) {
+			VisitSnapshot visit = visits.poll();
+			if (visit != null) {
+				try {
+					processVisit(visit);
+				} catch (RuntimeException e) {
+					failedVisits.incrementAndGet();
+					LOGGER.error("Could not process visited state", e);
+				}
+				processed++;
+			} else if (!consuming && processed >= visits.getPublished()) {
+				return;
+			} else {
+				LockSupport.parkNanos(CONSUMER_IDLE_NANOS);
+			}
+		}
+	}
 
-		long currentMemory = 0;
+	/**
+	 * Wait until all the visits captured until now are processed.
+	 */
+	private void flush() {
+		long published = visits.getPublished();
+		while (processed < published && consumer.isAlive()) {
+			LockSupport.parkNanos(CONSUMER_IDLE_NANOS);
+		}
+	}
+
+	/**
+	 * Process all the remaining visits and stop the consumer thread.
+	 */
+	private void stopConsumer() {
+		consuming = false;
 		try {
-			currentMemory = MemoryUtil.deepMemoryUsageOf(sfg, VisibilityFilter.ALL);
-		} catch (IllegalStateException e) {
-			currentMemory = 0;
-			LOGGER.warn("MemoryUtil (ClassMexer) is not added to cmd line,"
-			        + " add it by adding -javaagent:lib/classmexer-0.03.jar");
+			consumer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+	}
+
+	/**
+	 * Build the delta and cumulative records for a visit. Only called by the consumer thread.
+	 * 
+	 * @param visit
+	 *            the captured visit
+	 */
+	private void processVisit(VisitSnapshot visit) {
+		final StateVertix currentState = visit.getCurrentState();
+		final FixedBenchmarkData data = visit.getData();
+
+		// The graph only grows, a visit queued after a later capture does not shrink it
+		long currentTime = Math.max(visit.getTime(), lastTime);
+		double load = visit.getLoad();
+
+		int currentEdges = Math.max(visit.getEdges(), lastEdges);
+		int currentStates = Math.max(visit.getStates(), lastStates);
+		long currentGcCount = Math.max(visit.getGcCount(), lastGcCount);
+		long currentGcTime = Math.max(visit.getGcTime(), lastGcTime);
 
-		// Get the final part of the local variable
-		int currentEdges = sfg.getAllEdges().size();
-		int currentStates = sfg.getAllStates().size();
-		int currentDepth = 0;
+		long currentMemory = measureMemory(visit, currentStates);
+
+		int currentDepth = calculateDepth(visit);
 		int thisStateSeen = 0;
 		int thisEdgesSeen = 0;
-		String stateId = "";
-
-		if (currentState != null && indexState != null) {
-			currentDepth = this.calculateDepth(sfg, currentState, indexState);
-			thisEdgesSeen = this.calculateSeenEdges(sfg, currentState, indexState);
+		for (long edge : visit.getRevisitedEdges()) {
+			thisEdgesSeen += this.edgesSeen.increment(edge);
 		}
+		String stateId = "";
 
 		if (currentState != null) {
-			thisStateSeen =
-			        this.updateOrInitHashtabeValue(this.statesSeen, currentState.getName());
+			thisStateSeen = this.statesSeen.increment(currentState.getName());
 			stateId = currentState.getName();
 		}
 
-		int currentSeenEdges = this.getSumOfHashtableElements(this.edgesSeen);
-		int currentSeenStates = this.getSumOfHashtableElements(this.statesSeen);
+		int currentSeenEdges = this.edgesSeen.getTotal();
+		int currentSeenStates = this.statesSeen.getTotal();
 
 		this.maxDepth = Math.max(currentDepth, maxDepth);
 
@@ -227,10 +588,13 @@ public final class BenchmarkStorage {
 		r.setStates(currentStates - lastStates);
 		r.setRevisitedStates(thisStateSeen);
 		r.setRevisitedEdges(thisEdgesSeen);
-		r.setRevisitedEdges(0);
 		r.setDepth(currentDepth);
 		r.setLoad(load);
 		r.setCpuPctsUsage((load * 100) / r.getProcessors());
+		r.setCpuTime(visit.getCpuTime());
+		r.setAllocatedBytes(visit.getAllocatedBytes());
+		r.setGcCount(currentGcCount - lastGcCount);
+		r.setGcTime(currentGcTime - lastGcTime);
 		records.put(r.getCountNr(), r);
 
 		// Cumulative Record
@@ -247,10 +611,19 @@ public final class BenchmarkStorage {
 		// maxDepth??
 		r2.setLoad(load);
 		r2.setCpuPctsUsage((load * 100) / r.getProcessors());
+		this.cpuTime += visit.getCpuTime();
+		this.allocatedBytes += visit.getAllocatedBytes();
+		r2.setCpuTime(cpuTime);
+		r2.setAllocatedBytes(allocatedBytes);
+		r2.setGcCount(currentGcCount);
+		r2.setGcTime(currentGcTime);
 
 		// Take care of the total and the running total
 		sumRecords.put(r2.getCountNr(), r2);
 
+		appendToLogs(r, r2);
+		runs.add(r2);
+
 		this.total = r2.clone();
 
 		this.total.setDepth(maxDepth);
@@ -258,113 +631,58 @@ public final class BenchmarkStorage {
 		this.lastStates = currentStates;
 		this.lastEdges = currentEdges;
 
-		this.lastState = currentState;
-
 		// set the lastMemory
 		this.lastMemory = currentMemory;
-		// At final reset the lastTime to get a measurement as close as
-		// possible
-		this.lastTime = System.currentTimeMillis();
-	}
+		this.lastGcCount = currentGcCount;
+		this.lastGcTime = currentGcTime;
 
-	/**
-	 * Calculate the distance between the root state (initial state) and the current state (state
-	 * which is last added).
-	 * 
-	 * @param sfg
-	 *            the state flow graph holding the flow of states
-	 * @param current
-	 *            the current state
-	 * @param index
-	 *            the index(start) state
-	 * @return the depth of the path last added to the state machine
-	 */
-	private int calculateDepth(final StateFlowGraph sfg, final StateVertix current,
-	        final StateVertix index) {
-		List<Eventable> p = sfg.getShortestPath(index, current); // Store
-		// locally
-		if (p != null) {
-			return p.size();
-		} else {
-			return 0;
-		}
+		publishMetrics(currentTime, false);
+		// The benchmark overhead is no longer on the crawler thread so the capture time is used
+		this.lastTime = currentTime;
 	}
 
 	/**
-	 * Calculate the number of time the edges between the previous state and the current state has
-	 * already been seen.
+	 * Measure the memory usage of the state flow graph. Only called by the consumer thread, so
+	 * the crawler threads never wait for a walk of the graph; the EXACT meter walks the graph as
+	 * it is when the visit is processed. A walk that fails because a crawler changed the graph
+	 * meanwhile keeps the previous value.
 	 * 
-	 * @param sfg
-	 *            the state flow graph holding the flow of states
-	 * @param current
-	 *            the current state
-	 * @param index
-	 *            the index(start) state
-	 * @return the number of times the edges between the previous state and the current state has
-	 *         already been seen
+	 * @param visit
+	 *            the captured visit
+	 * @param currentStates
+	 *            the number of states in the state flow graph
+	 * @return the memory usage in bytes
 	 */
-	private int calculateSeenEdges(final StateFlowGraph sfg, final StateVertix current,
-	        final StateVertix index) {
-		int thisEdgesSeen = 0;
-		Set<Eventable> eList = sfg.getIncomingClickable(current);
-		if (eList != null) {
-			for (Eventable eventable : eList) {
-				try {
-					if (eventable.getSourceStateVertix().equals(this.lastState)
-					        && eventable.getTargetStateVertix().equals(current)) {
-						// From is the old (previous) state and destination is the
-						// current state
-						// So this edge is new??
-						thisEdgesSeen +=
-						        this.updateOrInitHashtabeValue(this.edgesSeen, String
-						                .valueOf(eventable.getId()));
-					}
-				} catch (CrawljaxException e) {
-					LOGGER.error("Catched CrawljaxException...", e);
-				}
-			}
+	private long measureMemory(VisitSnapshot visit, int currentStates) {
+		try {
+			return memoryMeter.measure(visit.getGraph(), visit.getCurrentState(), currentStates);
+		} catch (RuntimeException e) {
+			LOGGER.debug("Memory measurement failed, the graph changed while walking it", e);
+			return lastMemory;
 		}
-		return thisEdgesSeen;
 	}
 
 	/**
-	 * calculate and return the sum of all the values in a has table.
+	 * Calculate the distance between the root state (initial state) and the current state (state
+	 * which is last added). Only called by the consumer thread. The new edges captured with the
+	 * visit are added to the depth index first, so only the new edges are processed instead of a
+	 * shortest path search per visit.
 	 * 
-	 * @param table
-	 *            the Hashtable containing the the count of the duplicate seen states
-	 * @return the sum of all the values in the hashtable;
+	 * @param visit
+	 *            the captured visit
+	 * @return the depth of the path last added to the state machine, 0 when not known
 	 */
-	private int getSumOfHashtableElements(final Hashtable<String, Integer> table) {
-		Enumeration<Integer> intList = table.elements();
-		int returnInteger = 0;
-		while (intList.hasMoreElements()) {
-			returnInteger += intList.nextElement();
+	private int calculateDepth(VisitSnapshot visit) {
+		if (visit.getIndexName() == null) {
+			return 0;
 		}
-		return returnInteger;
-	}
-
-	/**
-	 * update the counting table for a given state or edge identifier and return the number of times
-	 * a duplicate has been found.
-	 * 
-	 * @param table
-	 *            the Hashtable containing the the count of the duplicate seen states
-	 * @param entry
-	 *            the state identifier
-	 * @return the number of times the given state has been seen duplicated
-	 */
-	private int updateOrInitHashtabeValue(final Hashtable<String, Integer> table,
-	        final String entry) {
-		Object tmp = table.get(entry);
-		int count = 0;
-		if (tmp != null) {
-			count = (Integer) tmp;
-			count++;
-			statesSeen.put(entry, count);
-		} else {
-			statesSeen.put(entry, new Integer(0));
+		depthIndex.setIndex(visit.getIndexName());
+		String[] sources = visit.getEdgeSources();
+		String[] targets = visit.getEdgeTargets();
+		for (int i = 0; i < sources.length; i++) {
+			depthIndex.addEdge(sources[i], targets[i]);
 		}
-		return count;
+		return depthIndex.getDepth(visit.getCurrentState().getName());
 	}
 
 	private PrintStream openFilePrinter(String location) throws IOException, CrawljaxException {
@@ -408,7 +726,7 @@ public final class BenchmarkStorage {
 	}
 
 	/**
-	 * Save all the datasets.
+	 * Export all the datasets in the text format.
 	 * 
 	 * @throws CrawljaxException
 	 * @throws IOException
@@ -425,16 +743,116 @@ public final class BenchmarkStorage {
 		srStream.close();
 	}
 
+	/**
+	 * Load the datasets from the binary logs or, if there are no logs yet, from the text files.
+	 * 
+	 * @throws IOException
+	 * @throws CrawljaxException
+	 */
 	private void doLoad() throws IOException, CrawljaxException {
-		BufferedReader rReader = openFileReader(config.getRecordsFile());
-		this.records.load(rReader);
-		rReader.close();
+		File recordsLogFile = new File(config.getRecordsLogFile());
+		File sumRecordsLogFile = new File(config.getSumRecordsLogFile());
+		if (recordsLogFile.exists() && sumRecordsLogFile.exists()) {
+			BenchmarkRecordLog.read(recordsLogFile, this.records);
+			BenchmarkRecordLog.read(sumRecordsLogFile, this.sumRecords);
+		} else {
+			BufferedReader rReader = openFileReader(config.getRecordsFile());
+			this.records.load(rReader);
+			rReader.close();
 
-		BufferedReader srReader = openFileReader(config.getSumRecordsFile());
-		this.sumRecords.load(srReader);
-		srReader.close();
+			BufferedReader srReader = openFileReader(config.getSumRecordsFile());
+			this.sumRecords.load(srReader);
+			srReader.close();
+		}
+
+		if (this.sumRecords.getLastLoaded() != null) {
+			this.total = this.sumRecords.getLastLoaded();
+		}
+	}
 
-		this.total = this.sumRecords.getLastLoaded();
+	/**
+	 * Load the statistics of the earlier runs, if any.
+	 */
+	private void loadStatistics() {
+		File statisticsFile = new File(config.getStatisticsFile());
+		if (!statisticsFile.exists()) {
+			return;
+		}
+		try {
+			runs.load(statisticsFile);
+		} catch (IOException e) {
+			LOGGER.error("Could not load the run statistics, starting new statistics", e);
+		}
+	}
+
+	/**
+	 * Open the binary logs for appending. When a log is new, or written by an older version, the
+	 * already loaded records are written to a new log first, so no earlier runs are lost.
+	 */
+	private void openLogs() {
+		try {
+			recordsLog = openLog(config.getRecordsLogFile(), records);
+			sumRecordsLog = openLog(config.getSumRecordsLogFile(), sumRecords);
+		} catch (IOException e) {
+			LOGGER.error("Could not open the record logs, records are only kept in memory", e);
+			closeLogs();
+		}
+	}
+
+	private static BenchmarkRecordLog openLog(String location, BenchmarkDataset loaded)
+	        throws IOException {
+		File file = new File(location);
+		if (file.exists() && !BenchmarkRecordLog.isCurrentVersion(file) && !file.delete()) {
+			throw new IOException("Can not replace the older record log " + file);
+		}
+		boolean isNew = !file.exists();
+		BenchmarkRecordLog log = new BenchmarkRecordLog(file);
+		if (isNew) {
+			for (BenchmarkRecord record : loaded.values()) {
+				log.append(record);
+			}
+		}
+		return log;
+	}
+
+	/**
+	 * Append the records of a visit to the binary logs.
+	 * 
+	 * @param record
+	 *            the delta record
+	 * @param sumRecord
+	 *            the cumulative record
+	 */
+	private void appendToLogs(BenchmarkRecord record, BenchmarkRecord sumRecord) {
+		if (recordsLog == null || sumRecordsLog == null) {
+			return;
+		}
+		try {
+			recordsLog.append(record);
+			sumRecordsLog.append(sumRecord);
+		} catch (IOException e) {
+			LOGGER.error("Could not append to the record logs, stopped logging", e);
+			closeLogs();
+		}
+	}
+
+	/**
+	 * Close the binary logs.
+	 */
+	private void closeLogs() {
+		try {
+			if (recordsLog != null) {
+				recordsLog.close();
+			}
+			if (sumRecordsLog != null) {
+				sumRecordsLog.close();
+			}
+		} catch (IOException e) {
+			LOGGER.error("Could not close the record logs", e);
+		} finally {
+			recordsLog = null;
+			sumRecordsLog = null;
+		}
 	}
 
 	/**
@@ -445,8 +863,23 @@ public final class BenchmarkStorage {
 	 */
 	public void stateVisited(CrawlSession session) {
 		stateVisited(session.getStateFlowGraph(), session.getCurrentState(), session
-		        .getInitialState(), FixedBenchmarkData
-		        .buildFixedBenchmarkDataFromSession(session));
+		        .getInitialState(), getFixedData(session));
+	}
+
+	/**
+	 * Return the fixed data of this run, it is built from the session the first time.
+	 * 
+	 * @param session
+	 *            the CrawlSession to build the data from.
+	 * @return the fixed data of this run
+	 */
+	public FixedBenchmarkData getFixedData(CrawlSession session) {
+		FixedBenchmarkData data = fixedData;
+		if (data == null) {
+			data = FixedBenchmarkData.buildFixedBenchmarkDataFromSession(session);
+			fixedData = data;
+		}
+		return data;
 	}
 
 	/**
@@ -456,15 +889,31 @@ public final class BenchmarkStorage {
 	 *            the session to get the data from.
 	 */
 	public void finishedCrawling(CrawlSession session) {
-		this.stateVisited(session.getStateFlowGraph(), null, null, FixedBenchmarkData
-		        .buildFixedBenchmarkDataFromSession(session));
+		this.stateVisited(session.getStateFlowGraph(), null, null, getFixedData(session));
+		flush();
+		publishMetrics(System.currentTimeMillis(), true);
+		long failed = failedVisits.get();
+		if (failed > 0) {
+			LOGGER.error(failed + " visited states could not be captured or processed,"
+			        + " their records are missing");
+		}
 	}
 
 	/**
 	 * Tell the Storage that the crawling has started.
 	 */
 	public void startCrawling() {
+		resourceMeter.start();
+		resourceMeter.startThread();
 		lastTime = System.currentTimeMillis();
 		startTime = lastTime;
 	}
+
+	/**
+	 * Tell the Storage that the current crawler thread starts crawling, its resource usage is
+	 * accounted from now.
+	 */
+	public void startCrawlerThread() {
+		resourceMeter.startThread();
+	}
 }
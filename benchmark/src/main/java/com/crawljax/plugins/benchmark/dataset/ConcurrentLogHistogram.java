@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of positive values which can be recorded from several threads without locking.
+ * It uses the same buckets as the LogHistogram, but allocates all of them up front so a record
+ * is a single atomic increment.
+ * 
+ * @version $Id$
+ */
+public class ConcurrentLogHistogram {
+
+	private final AtomicLongArray counts = new AtomicLongArray(LogHistogram.BUCKETS);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a value, negative values are recorded as 0.
+	 * 
+	 * @param value
+	 *            the value to record
+	 */
+	public void record(long value) {
+		long positive = Math.max(0, value);
+		counts.incrementAndGet(LogHistogram.bucketOf(positive));
+		total.incrementAndGet();
+		sum.addAndGet(positive);
+		long currentMax = max.get();
+		while (positive > currentMax && !max.compareAndSet(currentMax, positive)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * @return the number of values recorded
+	 */
+	public long getCount() {
+		return total.get();
+	}
+
+	/**
+	 * @return the sum of the values recorded
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * @return the mean of the values recorded, 0 if empty
+	 */
+	public double getMean() {
+		long count = total.get();
+		if (count == 0) {
+			return 0;
+		}
+		return (double) sum.get() / count;
+	}
+
+	/**
+	 * @return the largest value recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Estimate a quantile. Values recorded while estimating may or may not be included.
+	 * 
+	 * @param quantile
+	 *            the quantile between 0 and 1, for example 0.99
+	 * @return the estimated value or 0 if the histogram is empty
+	 */
+	public long getQuantile(double quantile) {
+		long[] snapshot = new long[LogHistogram.BUCKETS];
+		long count = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * count));
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(LogHistogram.valueOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the distance (number of edges) from the index state to every reachable state up to date
+ * while edges are added to the state flow graph. Because edges are never removed a distance can
+ * only become shorter; when a shorter path shows up only the states behind the improved state are
+ * repaired with a breadth first pass. Retrieving the depth of a state costs a single lookup
+ * instead of a shortest path search on the whole graph.
+ * 
+ * @version $Id$
+ */
+public class DepthIndex {
+
+	private final Map<String, Integer> depths = new HashMap<String, Integer>();
+	private final Map<String, List<String>> outgoing = new HashMap<String, List<String>>();
+
+	/**
+	 * Set the index (start) state, its depth is 0.
+	 * 
+	 * @param index
+	 *            the name of the index state
+	 */
+	public void setIndex(String index) {
+		if (!Integer.valueOf(0).equals(depths.get(index))) {
+			depths.put(index, 0);
+			repair(index);
+		}
+	}
+
+	/**
+	 * Add an edge between two states and repair the depths which became shorter.
+	 * 
+	 * @param source
+	 *            the name of the source state
+	 * @param target
+	 *            the name of the target state
+	 */
+	public void addEdge(String source, String target) {
+		List<String> targets = outgoing.get(source);
+		if (targets == null) {
+			targets = new ArrayList<String>();
+			outgoing.put(source, targets);
+		}
+		targets.add(target);
+
+		Integer sourceDepth = depths.get(source);
+		if (sourceDepth != null && relax(target, sourceDepth + 1)) {
+			repair(target);
+		}
+	}
+
+	/**
+	 * Return the depth of a state.
+	 * 
+	 * @param state
+	 *            the name of the state
+	 * @return the length of the shortest path from the index state or 0 if the state is not
+	 *         reachable (yet)
+	 */
+	public int getDepth(String state) {
+		Integer depth = depths.get(state);
+		if (depth == null) {
+			return 0;
+		}
+		return depth;
+	}
+
+	/**
+	 * @return the number of states with a known depth
+	 */
+	public int size() {
+		return depths.size();
+	}
+
+	/**
+	 * Store a new depth for a state if it is shorter than the known depth.
+	 * 
+	 * @param state
+	 *            the name of the state
+	 * @param depth
+	 *            the new depth
+	 * @return true if the depth of the state is changed
+	 */
+	private boolean relax(String state, int depth) {
+		Integer known = depths.get(state);
+		if (known == null || depth < known) {
+			depths.put(state, depth);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Propagate the (improved) depth of a state breadth first to all the states behind it.
+	 * 
+	 * @param start
+	 *            the state which depth has improved
+	 */
+	private void repair(String start) {
+		LinkedList<String> queue = new LinkedList<String>();
+		queue.add(start);
+		while (!queue.isEmpty()) {
+			String state = queue.removeFirst();
+			List<String> targets = outgoing.get(state);
+			if (targets == null) {
+				continue;
+			}
+			int next = depths.get(state) + 1;
+			for (String target : targets) {
+				if (relax(target, next)) {
+					queue.add(target);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateVertix;
+import com.javamex.classmexer.MemoryUtil;
+import com.javamex.classmexer.MemoryUtil.VisibilityFilter;
+
+/**
+ * Measures the memory usage by walking the complete state flow graph on every call. This is the
+ * most accurate but also the slowest way, the cost grows with the size of the graph.
+ * 
+ * @version $Id$
+ */
+public class ExactMemoryMeter implements MemoryMeter {
+
+	private static final Logger LOGGER = Logger.getLogger(ExactMemoryMeter.class);
+
+	@Override
+	public long measure(StateFlowGraph sfg, StateVertix currentState, int currentStates) {
+		try {
+			return MemoryUtil.deepMemoryUsageOf(sfg, VisibilityFilter.ALL);
+		} catch (IllegalStateException e) {
+			LOGGER.warn("MemoryUtil (ClassMexer) is not added to cmd line,"
+			        + " add it by adding -javaagent:lib/classmexer-0.03.jar");
+			return 0;
+		}
+	}
+
+	@Override
+	public void stop() {
+		// Nothing to release
+	}
+}
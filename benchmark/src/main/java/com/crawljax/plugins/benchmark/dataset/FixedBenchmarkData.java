@@ -29,8 +29,6 @@ public class FixedBenchmarkData {
 	private final int numberOfThreads;
 	private final int numberOfProcessors;
 
-	private static FixedBenchmarkData instance = null;
-
 	/**
 	 * @param waitTimeAfterEvent
 	 *            the time in ms to wait after an event has fired
@@ -87,23 +85,19 @@ public class FixedBenchmarkData {
 	}
 
 	/**
-	 * Static function to build the fixed data from the CrawlSession.
+	 * Static function to build the fixed data from the CrawlSession. Every call builds a new
+	 * object, the BenchmarkStorage of a run keeps the one it uses.
 	 * 
 	 * @param session
 	 *            the session variable to build the data from.
 	 * @return the new FixedBenchmarkData.
 	 */
 	public static FixedBenchmarkData buildFixedBenchmarkDataFromSession(CrawlSession session) {
-		if (instance != null) {
-			return instance;
-		}
 		CrawljaxConfigurationReader reader = session.getCrawljaxConfiguration();
 		CrawlSpecificationReader crawlSpecReader = reader.getCrawlSpecificationReader();
 		ThreadConfigurationReader threadReader = reader.getThreadConfigurationReader();
-		instance =
-		        new FixedBenchmarkData(crawlSpecReader.getWaitAfterEvent(), crawlSpecReader
-		                .getWaitAfterReloadUrl(), threadReader.getNumberBrowsers(), threadReader
-		                .getNumberThreads());
-		return instance;
+		return new FixedBenchmarkData(crawlSpecReader.getWaitAfterEvent(), crawlSpecReader
+		        .getWaitAfterReloadUrl(), threadReader.getNumberBrowsers(), threadReader
+		        .getNumberThreads());
 	}
 }
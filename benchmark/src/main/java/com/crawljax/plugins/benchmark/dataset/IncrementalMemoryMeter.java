@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateVertix;
+import com.javamex.classmexer.MemoryUtil;
+import com.javamex.classmexer.MemoryUtil.VisibilityFilter;
+
+/**
+ * Estimates the memory usage of the state flow graph by only measuring the states and edges which
+ * were not seen before and adding them to a running total. The overhead of the graph structure
+ * itself is not included, so the values are lower than the values of the exact meter but grow in
+ * the same way.
+ * 
+ * @version $Id$
+ */
+public class IncrementalMemoryMeter implements MemoryMeter {
+
+	private static final Logger LOGGER = Logger.getLogger(IncrementalMemoryMeter.class);
+
+	private final Set<String> measuredStates = new HashSet<String>();
+	private final Set<Long> measuredEdges = new HashSet<Long>();
+
+	private long total = 0;
+	private boolean available = true;
+
+	@Override
+	public synchronized long measure(StateFlowGraph sfg, StateVertix currentState,
+	        int currentStates) {
+		if (!available || currentState == null) {
+			return total;
+		}
+		try {
+			if (measuredStates.add(currentState.getName())) {
+				total += MemoryUtil.deepMemoryUsageOf(currentState, VisibilityFilter.ALL);
+			}
+			Set<Eventable> incoming = sfg.getIncomingClickable(currentState);
+			if (incoming != null) {
+				for (Eventable eventable : incoming) {
+					if (measuredEdges.add(eventable.getId())) {
+						total += sizeOf(eventable);
+					}
+				}
+			}
+		} catch (IllegalStateException e) {
+			LOGGER.warn("MemoryUtil (ClassMexer) is not added to cmd line,"
+			        + " add it by adding -javaagent:lib/classmexer-0.03.jar");
+			available = false;
+		}
+		return total;
+	}
+
+	/**
+	 * Size of an edge without the states it connects, these are measured on their own.
+	 * 
+	 * @param eventable
+	 *            the edge to measure
+	 * @return the size of the eventable in bytes
+	 */
+	private long sizeOf(Eventable eventable) {
+		List<Object> parts = new ArrayList<Object>();
+		if (eventable.getIdentification() != null) {
+			parts.add(eventable.getIdentification());
+		}
+		if (eventable.getElement() != null) {
+			parts.add(eventable.getElement());
+		}
+		return MemoryUtil.memoryUsageOf(eventable)
+		        + MemoryUtil.deepMemoryUsageOfAll(parts, VisibilityFilter.ALL);
+	}
+
+	@Override
+	public void stop() {
+		// Nothing to release
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A mergeable histogram with logarithmic buckets (HDR style) used to estimate quantiles. Every
+ * power of two is split in SUB_BUCKETS linear buckets, so a value is known with a relative error
+ * of less than 1 / SUB_BUCKETS. Only the buckets in use are stored, so the size depends on the
+ * spread of the values and never on the number of values added.
+ * 
+ * @version $Id$
+ */
+public class LogHistogram {
+
+	private static final int SUB_BITS = 7;
+
+	/**
+	 * The number of linear buckets per power of two.
+	 */
+	public static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/**
+	 * The number of buckets needed for all the positive long values.
+	 */
+	public static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private static final int INITIAL_SIZE = 8;
+
+	/* Sorted bucket indexes in use and their counts */
+	private int[] indexes = new int[INITIAL_SIZE];
+	private long[] counts = new long[INITIAL_SIZE];
+	private int used = 0;
+	private long total = 0;
+
+	/**
+	 * Return the bucket of a positive value, values below SUB_BUCKETS get their own bucket.
+	 * 
+	 * @param value
+	 *            the value, must be 0 or larger
+	 * @return the bucket index
+	 */
+	public static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BITS;
+		int sub = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+		return ((shift + 1) << SUB_BITS) | sub;
+	}
+
+	/**
+	 * Return the value in the middle of a bucket.
+	 * 
+	 * @param bucket
+	 *            the bucket index
+	 * @return the middle value of all the values in the bucket
+	 */
+	public static long valueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket >>> SUB_BITS) - 1;
+		long sub = bucket & (SUB_BUCKETS - 1);
+		long lowest = (SUB_BUCKETS | sub) << shift;
+		return lowest + ((1L << shift) >>> 1);
+	}
+
+	/**
+	 * Signed bucket index, negative values are mirrored so the order of the indexes is the order
+	 * of the values.
+	 */
+	private static int signedBucketOf(long value) {
+		if (value >= 0) {
+			return bucketOf(value);
+		}
+		return -bucketOf(value == Long.MIN_VALUE ? Long.MAX_VALUE : -value) - 1;
+	}
+
+	private static long signedValueOf(int index) {
+		if (index >= 0) {
+			return valueOf(index);
+		}
+		return -valueOf(-(index + 1));
+	}
+
+	/**
+	 * Add a value to the histogram.
+	 * 
+	 * @param value
+	 *            the value to add
+	 */
+	public void add(long value) {
+		add(signedBucketOf(value), 1);
+	}
+
+	private void add(int index, long count) {
+		int position = Arrays.binarySearch(indexes, 0, used, index);
+		if (position < 0) {
+			position = -(position + 1);
+			if (used == indexes.length) {
+				indexes = Arrays.copyOf(indexes, used * 2);
+				counts = Arrays.copyOf(counts, used * 2);
+			}
+			System.arraycopy(indexes, position, indexes, position + 1, used - position);
+			System.arraycopy(counts, position, counts, position + 1, used - position);
+			indexes[position] = index;
+			counts[position] = 0;
+			used++;
+		}
+		counts[position] += count;
+		total += count;
+	}
+
+	/**
+	 * Add all the values of another histogram to this histogram.
+	 * 
+	 * @param other
+	 *            the histogram to merge
+	 */
+	public void merge(LogHistogram other) {
+		for (int i = 0; i < other.used; i++) {
+			add(other.indexes[i], other.counts[i]);
+		}
+	}
+
+	/**
+	 * Estimate a quantile.
+	 * 
+	 * @param quantile
+	 *            the quantile between 0 and 1, for example 0.95
+	 * @return the estimated value or 0 if the histogram is empty
+	 */
+	public long getQuantile(double quantile) {
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < used; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return signedValueOf(indexes[i]);
+			}
+		}
+		return signedValueOf(indexes[used - 1]);
+	}
+
+	/**
+	 * @return the number of values added
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Write the histogram.
+	 * 
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             when writing fails
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(used);
+		for (int i = 0; i < used; i++) {
+			out.writeInt(indexes[i]);
+			out.writeLong(counts[i]);
+		}
+	}
+
+	/**
+	 * Read the values of a written histogram and add them to this histogram.
+	 * 
+	 * @param in
+	 *            the input to read from
+	 * @throws IOException
+	 *             when reading fails
+	 */
+	public void read(DataInput in) throws IOException {
+		int buckets = in.readInt();
+		for (int i = 0; i < buckets; i++) {
+			int index = in.readInt();
+			add(index, in.readLong());
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateVertix;
+
+/**
+ * A MemoryMeter returns the (estimated) memory usage of the state flow graph for every visited
+ * state. It is called by the consumer thread of the BenchmarkStorage while the crawler threads
+ * keep changing the graph. Implementations differ in how much work is done per visit.
+ * 
+ * @see com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration.MemoryMode
+ * @version $Id$
+ */
+public interface MemoryMeter {
+
+	/**
+	 * Return the memory usage of the state flow graph in bytes.
+	 * 
+	 * @param sfg
+	 *            the state flow graph holding the flow of states as known now
+	 * @param currentState
+	 *            the current state or null when the crawling has finished
+	 * @param currentStates
+	 *            the number of states in the state flow graph
+	 * @return the (estimated) memory usage in bytes
+	 */
+	long measure(StateFlowGraph sfg, StateVertix currentState, int currentStates);
+
+	/**
+	 * Stop measuring and release all the resources (threads) held by this meter.
+	 */
+	void stop();
+}
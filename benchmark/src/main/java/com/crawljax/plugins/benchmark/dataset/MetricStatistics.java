@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Streaming statistics of one metric over several runs. The mean and variance are kept with
+ * Welford's algorithm (no truncation, no list of values) and the quantiles are estimated with a
+ * LogHistogram. Two statistics can be merged.
+ * 
+ * @version $Id$
+ */
+public class MetricStatistics {
+
+	/**
+	 * Two-sided 95% critical values of the Student t distribution for 1 to 30 degrees of freedom.
+	 */
+	private static final double[] T_95 =
+	        { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228, 2.201, 2.179,
+	                2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069,
+	                2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+
+	/**
+	 * Critical value of the normal distribution used above 30 degrees of freedom.
+	 */
+	private static final double Z_95 = 1.960;
+
+	private long count = 0;
+	private double mean = 0;
+	private double m2 = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+	private final LogHistogram histogram = new LogHistogram();
+
+	/**
+	 * Add a value.
+	 * 
+	 * @param value
+	 *            the value to add
+	 */
+	public void add(long value) {
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		histogram.add(value);
+	}
+
+	/**
+	 * Merge the values of other statistics into these statistics.
+	 * 
+	 * @param other
+	 *            the statistics to merge
+	 */
+	public void merge(MetricStatistics other) {
+		if (other.count == 0) {
+			return;
+		}
+		long newCount = count + other.count;
+		double delta = other.mean - mean;
+		m2 += other.m2 + delta * delta * count * other.count / newCount;
+		mean += delta * other.count / newCount;
+		count = newCount;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		histogram.merge(other.histogram);
+	}
+
+	/**
+	 * @return the number of values added
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the mean
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * @return the sample variance, 0 for less than two values
+	 */
+	public double getVariance() {
+		if (count < 2) {
+			return 0;
+		}
+		return m2 / (count - 1);
+	}
+
+	/**
+	 * @return the sample standard deviation
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Return the half width of the 95% confidence interval of the mean.
+	 * 
+	 * @return the mean plus or minus this value is the confidence interval
+	 */
+	public double getConfidenceInterval95() {
+		if (count < 2) {
+			return 0;
+		}
+		long degrees = count - 1;
+		double critical = degrees <= T_95.length ? T_95[(int) degrees - 1] : Z_95;
+		return critical * getStandardDeviation() / Math.sqrt(count);
+	}
+
+	/**
+	 * Estimate a quantile.
+	 * 
+	 * @param quantile
+	 *            the quantile between 0 and 1
+	 * @return the estimated value
+	 */
+	public long getQuantile(double quantile) {
+		return histogram.getQuantile(quantile);
+	}
+
+	/**
+	 * @return the smallest value, 0 if empty
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return the largest value, 0 if empty
+	 */
+	public long getMax() {
+		return count == 0 ? 0 : max;
+	}
+
+	/**
+	 * Write the statistics.
+	 * 
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             when writing fails
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(count);
+		out.writeDouble(mean);
+		out.writeDouble(m2);
+		out.writeLong(min);
+		out.writeLong(max);
+		histogram.write(out);
+	}
+
+	/**
+	 * Read written statistics and merge them into these statistics.
+	 * 
+	 * @param in
+	 *            the input to read from
+	 * @throws IOException
+	 *             when reading fails
+	 */
+	public void read(DataInput in) throws IOException {
+		MetricStatistics other = new MetricStatistics();
+		other.count = in.readLong();
+		other.mean = in.readDouble();
+		other.m2 = in.readDouble();
+		other.min = in.readLong();
+		other.max = in.readLong();
+		other.histogram.read(in);
+		merge(other);
+	}
+}
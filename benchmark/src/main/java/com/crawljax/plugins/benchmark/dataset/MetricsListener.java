@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+/**
+ * Receives the metrics snapshots published by the BenchmarkStorage. The snapshots are published
+ * on the storage consumer thread, so an implementation must return quickly and must not call back
+ * into the storage.
+ * 
+ * @version $Id$
+ */
+public interface MetricsListener {
+
+	/**
+	 * Called when a new snapshot is published.
+	 * 
+	 * @param snapshot
+	 *            the new snapshot
+	 */
+	void snapshotPublished(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+/**
+ * An immutable view of the benchmark at one moment: the cumulative total and the rates over a
+ * rolling window. Snapshots are built by the BenchmarkStorage consumer thread, so reading one
+ * never waits for the crawl or for the storage.
+ * 
+ * @version $Id$
+ */
+public class MetricsSnapshot {
+
+	private static final double MS_PER_SECOND = 1000.0;
+	private static final double NS_PER_MS = 1000000.0;
+
+	private final long time;
+	private final BenchmarkRecord total;
+	private final long windowMillis;
+	private final double visitsPerSecond;
+	private final double statesPerSecond;
+	private final double edgesPerSecond;
+	private final double allocatedBytesPerSecond;
+	private final double cpuUtilisation;
+
+	/**
+	 * Build a snapshot from the newest and the oldest sample of the window.
+	 * 
+	 * @param time
+	 *            the time in ms the snapshot is taken
+	 * @param total
+	 *            the cumulative record, must not be changed afterwards
+	 * @param oldest
+	 *            the oldest cumulative record in the window
+	 * @param oldestTime
+	 *            the time in ms of the oldest record
+	 */
+	MetricsSnapshot(long time, BenchmarkRecord total, BenchmarkRecord oldest, long oldestTime) {
+		this.time = time;
+		this.total = total;
+		this.windowMillis = Math.max(0, time - oldestTime);
+		if (windowMillis == 0) {
+			visitsPerSecond = 0;
+			statesPerSecond = 0;
+			edgesPerSecond = 0;
+			allocatedBytesPerSecond = 0;
+			cpuUtilisation = 0;
+		} else {
+			double seconds = windowMillis / MS_PER_SECOND;
+			visitsPerSecond = (total.getCountNr() - oldest.getCountNr()) / seconds;
+			statesPerSecond = (total.getStates() - oldest.getStates()) / seconds;
+			edgesPerSecond = (total.getEdges() - oldest.getEdges()) / seconds;
+			allocatedBytesPerSecond =
+			        (total.getAllocatedBytes() - oldest.getAllocatedBytes()) / seconds;
+			cpuUtilisation =
+			        (total.getCpuTime() - oldest.getCpuTime()) / NS_PER_MS / windowMillis;
+		}
+	}
+
+	/**
+	 * @return the time in ms this snapshot was taken
+	 */
+	public final long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the cumulative record, do not change it
+	 */
+	public final BenchmarkRecord getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return the length in ms of the window the rates are calculated over
+	 */
+	public final long getWindowMillis() {
+		return windowMillis;
+	}
+
+	/**
+	 * @return the number of visited states per second in the window
+	 */
+	public final double getVisitsPerSecond() {
+		return visitsPerSecond;
+	}
+
+	/**
+	 * @return the number of new states per second in the window
+	 */
+	public final double getStatesPerSecond() {
+		return statesPerSecond;
+	}
+
+	/**
+	 * @return the number of new edges per second in the window
+	 */
+	public final double getEdgesPerSecond() {
+		return edgesPerSecond;
+	}
+
+	/**
+	 * @return the number of bytes allocated by the crawler threads per second in the window
+	 */
+	public final double getAllocatedBytesPerSecond() {
+		return allocatedBytesPerSecond;
+	}
+
+	/**
+	 * @return the cpu time of the crawler threads divided by the wall time of the window, 1.0 is
+	 *         one fully used processor
+	 */
+	public final double getCpuUtilisation() {
+		return cpuUtilisation;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+/**
+ * The cumulative records of the last published snapshots, used to calculate the rates over a
+ * rolling window. Only one sample per published snapshot is kept, so the size is bounded by the
+ * window length divided by the publish interval. Not thread safe, only used by the consumer.
+ * 
+ * @version $Id$
+ */
+class MetricsWindow {
+
+	private final long windowMillis;
+	private final long[] times;
+	private final BenchmarkRecord[] samples;
+	private int first = 0;
+	private int size = 0;
+
+	/**
+	 * Create a new window.
+	 * 
+	 * @param windowMillis
+	 *            the length of the window in ms
+	 * @param intervalMillis
+	 *            the minimal time in ms between two samples
+	 */
+	MetricsWindow(long windowMillis, long intervalMillis) {
+		this.windowMillis = windowMillis;
+		int capacity = (int) Math.min(Integer.MAX_VALUE / 2, windowMillis
+		        / Math.max(1, intervalMillis)) + 2;
+		times = new long[capacity];
+		samples = new BenchmarkRecord[capacity];
+	}
+
+	/**
+	 * Add a sample and build a snapshot from it and the oldest sample in the window.
+	 * 
+	 * @param time
+	 *            the time in ms of the sample
+	 * @param total
+	 *            the cumulative record, must not be changed afterwards
+	 * @return the new snapshot
+	 */
+	MetricsSnapshot add(long time, BenchmarkRecord total) {
+		while (size > 1 && (time - times[first] > windowMillis || size == times.length)) {
+			samples[first] = null;
+			first = (first + 1) % times.length;
+			size--;
+		}
+		int last = (first + size) % times.length;
+		times[last] = time;
+		samples[last] = total;
+		size++;
+		return new MetricsSnapshot(time, total, samples[first], times[first]);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.io.PrintStream;
+
+/**
+ * The durations of the phases of the crawl, every phase has its own ConcurrentLogHistogram so the
+ * crawler threads can record without locking.
+ * 
+ * @version $Id$
+ */
+public class PhaseProfile {
+
+	/**
+	 * The phases of the crawl, named after the plugin point at which a phase ends.
+	 */
+	public enum Phase {
+		CANDIDATE_EXTRACTION("Backtracking and extracting the candidate elements"), NEW_STATE(
+		        "Firing an event leading to a new state"), REVISIT_STATE(
+		        "Firing an event leading to a known state"), EVENT_FAILED(
+		        "Firing an event which failed");
+
+		private final String label;
+
+		/**
+		 * Create a new Phase.
+		 * 
+		 * @param label
+		 *            the description of the phase
+		 */
+		private Phase(String label) {
+			this.label = label;
+		}
+
+		/**
+		 * Retrieve the description of this phase.
+		 * 
+		 * @return the description
+		 */
+		public final String getLabel() {
+			return this.label;
+		}
+	}
+
+	private final ConcurrentLogHistogram[] histograms =
+	        new ConcurrentLogHistogram[Phase.values().length];
+
+	/**
+	 * Create a new empty profile.
+	 */
+	public PhaseProfile() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new ConcurrentLogHistogram();
+		}
+	}
+
+	/**
+	 * Record the duration of a phase.
+	 * 
+	 * @param phase
+	 *            the phase which ended
+	 * @param nanos
+	 *            the duration in nanoseconds
+	 */
+	public void record(Phase phase, long nanos) {
+		histograms[phase.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Return the durations of a phase.
+	 * 
+	 * @param phase
+	 *            the phase
+	 * @return the histogram of the durations in nanoseconds
+	 */
+	public ConcurrentLogHistogram getHistogram(Phase phase) {
+		return histograms[phase.ordinal()];
+	}
+
+	/**
+	 * Write one line per phase with the count, total, mean, p50, p90, p99 and max duration in
+	 * nanoseconds separated by tabs.
+	 * 
+	 * @param output
+	 *            the stream to write to
+	 */
+	public void save(PrintStream output) {
+		output.println("#phase\tcount\ttotal(ns)\tmean(ns)\tp50(ns)\tp90(ns)\tp99(ns)\tmax(ns)");
+		for (Phase phase : Phase.values()) {
+			ConcurrentLogHistogram h = histograms[phase.ordinal()];
+			output.println(phase.name() + "\t" + h.getCount() + "\t"
+			        + h.getSum() + "\t" + (long) h.getMean() + "\t"
+			        + h.getQuantile(0.5) + "\t" + h.getQuantile(0.9) + "\t" + h.getQuantile(0.99)
+			        + "\t" + h.getMax());
+		}
+	}
+}
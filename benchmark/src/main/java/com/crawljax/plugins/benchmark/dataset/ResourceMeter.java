@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Accounts the CPU time and the allocated bytes of the crawler threads and the garbage collections
+ * of the process. Every capture returns the CPU time and allocations the capturing thread used
+ * since its previous capture, the caller adds them up; the meter keeps no totals, so the crawler
+ * threads capture without sharing a lock. A thread is accounted from its call to startThread,
+ * which the crawler threads make when they load the url, the GC count and time are counted from
+ * the call to start.
+ * <p>
+ * The allocated bytes are read from the com.sun.management extension of the ThreadMXBean, which
+ * is looked up by reflection. On a JVM without the extension they are reported as 0.
+ * </p>
+ * 
+ * @version $Id$
+ */
+public class ResourceMeter {
+
+	private static final Logger LOGGER = Logger.getLogger(ResourceMeter.class);
+
+	private static final String EXTENDED_THREAD_BEAN = "com.sun.management.ThreadMXBean";
+
+	private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	private final List<GarbageCollectorMXBean> gcBeans =
+	        ManagementFactory.getGarbageCollectorMXBeans();
+
+	private final boolean cpuTimeSupported;
+
+	/**
+	 * getThreadAllocatedBytes(long) of the extended ThreadMXBean, null when not supported.
+	 */
+	private final Method threadAllocatedBytes;
+
+	private volatile long gcCountStart;
+	private volatile long gcTimeStart;
+
+	/**
+	 * The cpu time and the allocated bytes of the current thread at its previous capture.
+	 */
+	private final ThreadLocal<long[]> lastSeen = new ThreadLocal<long[]>();
+
+	/**
+	 * Create a new meter, the GC count and time start at 0.
+	 */
+	public ResourceMeter() {
+		cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported();
+		if (cpuTimeSupported && !threadBean.isThreadCpuTimeEnabled()) {
+			threadBean.setThreadCpuTimeEnabled(true);
+		}
+		threadAllocatedBytes = findThreadAllocatedBytes();
+		if (!cpuTimeSupported || threadAllocatedBytes == null) {
+			LOGGER.warn("Thread cpu time or allocated bytes not supported by this JVM, "
+			        + "reporting 0");
+		}
+		start();
+	}
+
+	private Method findThreadAllocatedBytes() {
+		try {
+			Class<?> extended = Class.forName(EXTENDED_THREAD_BEAN);
+			if (!extended.isInstance(threadBean)) {
+				return null;
+			}
+			Method supported = extended.getMethod("isThreadAllocatedMemorySupported");
+			if (!((Boolean) supported.invoke(threadBean))) {
+				return null;
+			}
+			Method enabled = extended.getMethod("isThreadAllocatedMemoryEnabled");
+			if (!((Boolean) enabled.invoke(threadBean))) {
+				extended.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(
+				        threadBean, true);
+			}
+			return extended.getMethod("getThreadAllocatedBytes", long.class);
+		} catch (ClassNotFoundException e) {
+			return null;
+		} catch (Exception e) {
+			LOGGER.debug("Could not use the allocated bytes of " + EXTENDED_THREAD_BEAN, e);
+			return null;
+		} catch (LinkageError e) {
+			LOGGER.debug("Could not use the allocated bytes of " + EXTENDED_THREAD_BEAN, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Start counting the garbage collections from now. Called when the crawling starts.
+	 */
+	public void start() {
+		gcCountStart = gcCount();
+		gcTimeStart = gcTime();
+	}
+
+	/**
+	 * Account the current thread from now. A thread that was started already keeps its baseline,
+	 * so the usage between its last capture and this call is still added by the next capture.
+	 */
+	public void startThread() {
+		if (lastSeen.get() == null) {
+			lastSeen.set(new long[] { currentThreadCpuTime(), currentThreadAllocatedBytes() });
+		}
+	}
+
+	/**
+	 * Capture the usage of the current thread since its previous capture. A thread that was not
+	 * started is accounted from this capture.
+	 * 
+	 * @return the usage of the current thread since its previous capture and the GC totals
+	 */
+	public Usage capture() {
+		long cpu = currentThreadCpuTime();
+		long allocated = currentThreadAllocatedBytes();
+		long[] last = lastSeen.get();
+		long cpuUsed = 0;
+		long allocatedUsed = 0;
+		if (last == null) {
+			lastSeen.set(new long[] { cpu, allocated });
+		} else {
+			cpuUsed = cpu - last[0];
+			allocatedUsed = allocated - last[1];
+			last[0] = cpu;
+			last[1] = allocated;
+		}
+		return new Usage(cpuUsed, allocatedUsed, gcCount() - gcCountStart, gcTime()
+		        - gcTimeStart);
+	}
+
+	private long currentThreadCpuTime() {
+		if (!cpuTimeSupported) {
+			return 0;
+		}
+		return Math.max(0, threadBean.getCurrentThreadCpuTime());
+	}
+
+	private long currentThreadAllocatedBytes() {
+		if (threadAllocatedBytes == null) {
+			return 0;
+		}
+		try {
+			return Math.max(0, (Long) threadAllocatedBytes.invoke(threadBean, Thread
+			        .currentThread().getId()));
+		} catch (Exception e) {
+			LOGGER.debug("Could not read the allocated bytes of the current thread", e);
+			return 0;
+		}
+	}
+
+	private long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : gcBeans) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private long gcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gc : gcBeans) {
+			time += Math.max(0, gc.getCollectionTime());
+		}
+		return time;
+	}
+
+	/**
+	 * The resources used by a crawler thread between two captures and the garbage collections up
+	 * to the last one.
+	 */
+	public static class Usage {
+
+		private final long cpuTime;
+		private final long allocatedBytes;
+		private final long gcCount;
+		private final long gcTime;
+
+		/**
+		 * @param cpuTime
+		 *            the cpu time in ns used since the previous capture
+		 * @param allocatedBytes
+		 *            the number of bytes allocated since the previous capture
+		 * @param gcCount
+		 *            the number of garbage collections
+		 * @param gcTime
+		 *            the time in ms spent in garbage collection
+		 */
+		public Usage(long cpuTime, long allocatedBytes, long gcCount, long gcTime) {
+			this.cpuTime = cpuTime;
+			this.allocatedBytes = allocatedBytes;
+			this.gcCount = gcCount;
+			this.gcTime = gcTime;
+		}
+
+		/**
+		 * @return the cpu time in ns used by the thread since its previous capture
+		 */
+		public final long getCpuTime() {
+			return cpuTime;
+		}
+
+		/**
+		 * @return the number of bytes allocated by the thread since its previous capture
+		 */
+		public final long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * @return the number of garbage collections since the start of the meter
+		 */
+		public final long getGcCount() {
+			return gcCount;
+		}
+
+		/**
+		 * @return the time in ms spent in garbage collection since the start of the meter
+		 */
+		public final long getGcTime() {
+			return gcTime;
+		}
+	}
+}
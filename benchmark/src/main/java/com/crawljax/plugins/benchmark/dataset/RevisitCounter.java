@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+/**
+ * Counts how many times a state or edge identifier has been seen again. The identifiers are kept
+ * in an open addressing table with linear probing and the counts in a parallel int array, so no
+ * Integer is boxed per update. The sum of all the counts is kept as running total. Names are kept
+ * in a String table, numeric ids such as edge ids in a separate long table so no String has to be
+ * built for them; a name and an id never count as the same identifier.
+ * 
+ * @version $Id$
+ */
+public class RevisitCounter {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private String[] keys;
+	private int[] counts;
+	private int keyCount = 0;
+
+	private long[] idKeys;
+	private boolean[] idUsed;
+	private int[] idCounts;
+	private int idCount = 0;
+
+	private int total = 0;
+
+	/**
+	 * Create a new empty counter.
+	 */
+	public RevisitCounter() {
+		keys = new String[INITIAL_CAPACITY];
+		counts = new int[INITIAL_CAPACITY];
+		idKeys = new long[INITIAL_CAPACITY];
+		idUsed = new boolean[INITIAL_CAPACITY];
+		idCounts = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Update the count for a given state or edge identifier. The first time an identifier is seen
+	 * its count is initialised with 0, every next time the count is increased.
+	 * 
+	 * @param key
+	 *            the state or edge identifier
+	 * @return the number of times the identifier has been seen duplicated
+	 */
+	public int increment(String key) {
+		int slot = slotOf(keys, key);
+		if (keys[slot] == null) {
+			keys[slot] = key;
+			counts[slot] = 0;
+			keyCount++;
+			if (keyCount * 2 > keys.length) {
+				grow();
+			}
+			return 0;
+		}
+		counts[slot]++;
+		total++;
+		return counts[slot];
+	}
+
+	/**
+	 * Return the count for a given identifier.
+	 * 
+	 * @param key
+	 *            the state or edge identifier
+	 * @return the number of times the identifier has been seen duplicated, 0 if never seen
+	 */
+	public int get(String key) {
+		int slot = slotOf(keys, key);
+		if (keys[slot] == null) {
+			return 0;
+		}
+		return counts[slot];
+	}
+
+	/**
+	 * Update the count for a given numeric identifier, like {@link #increment(String)}.
+	 * 
+	 * @param id
+	 *            the edge or state id
+	 * @return the number of times the id has been seen duplicated
+	 */
+	public int increment(long id) {
+		int slot = slotOf(idKeys, idUsed, id);
+		if (!idUsed[slot]) {
+			idKeys[slot] = id;
+			idUsed[slot] = true;
+			idCounts[slot] = 0;
+			idCount++;
+			if (idCount * 2 > idKeys.length) {
+				growIds();
+			}
+			return 0;
+		}
+		idCounts[slot]++;
+		total++;
+		return idCounts[slot];
+	}
+
+	/**
+	 * Return the count for a given numeric identifier.
+	 * 
+	 * @param id
+	 *            the edge or state id
+	 * @return the number of times the id has been seen duplicated, 0 if never seen
+	 */
+	public int get(long id) {
+		int slot = slotOf(idKeys, idUsed, id);
+		if (!idUsed[slot]) {
+			return 0;
+		}
+		return idCounts[slot];
+	}
+
+	/**
+	 * @return the sum of all the counts
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return the number of different identifiers seen
+	 */
+	public int size() {
+		return keyCount + idCount;
+	}
+
+	/**
+	 * Find the slot holding the key or the empty slot where it must be stored.
+	 * 
+	 * @param table
+	 *            the table to search, its length is a power of two
+	 * @param key
+	 *            the key to find
+	 * @return the slot index
+	 */
+	private static int slotOf(String[] table, String key) {
+		int mask = table.length - 1;
+		int h = key.hashCode();
+		int slot = (h ^ (h >>> 16)) & mask;
+		while (table[slot] != null && !table[slot].equals(key)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Find the slot holding the id or the empty slot where it must be stored.
+	 * 
+	 * @param table
+	 *            the ids, its length is a power of two
+	 * @param used
+	 *            which slots of the table hold an id
+	 * @param id
+	 *            the id to find
+	 * @return the slot index
+	 */
+	private static int slotOf(long[] table, boolean[] used, long id) {
+		int mask = table.length - 1;
+		int h = (int) (id ^ (id >>> 32));
+		int slot = (h ^ (h >>> 16)) & mask;
+		while (used[slot] && table[slot] != id) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Double the size of the table and rehash all the keys.
+	 */
+	private void grow() {
+		String[] oldKeys = keys;
+		int[] oldCounts = counts;
+		keys = new String[oldKeys.length * 2];
+		counts = new int[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int slot = slotOf(keys, oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	/**
+	 * Double the size of the id table and rehash all the ids.
+	 */
+	private void growIds() {
+		long[] oldKeys = idKeys;
+		boolean[] oldUsed = idUsed;
+		int[] oldCounts = idCounts;
+		idKeys = new long[oldKeys.length * 2];
+		idUsed = new boolean[oldKeys.length * 2];
+		idCounts = new int[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int slot = slotOf(idKeys, idUsed, oldKeys[i]);
+				idKeys[slot] = oldKeys[i];
+				idUsed[slot] = true;
+				idCounts[slot] = oldCounts[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
+
+/**
+ * Aggregates the cumulative records of several runs. For every countNr and every PlotType the
+ * values of all the runs are kept as MetricStatistics, the totals of the runs are kept separately.
+ * The memory used depends on the number of countNrs and the spread of the values, not on the
+ * number of runs.
+ * <p>
+ * The saved statistics name the metric of every value, so a file written before metrics were
+ * added or removed can still be loaded. A metric that is no longer known is skipped with a
+ * warning, a metric that is missing from the file starts without values.
+ * </p>
+ * 
+ * @version $Id$
+ */
+public class RunAggregator {
+
+	private static final Logger LOGGER = Logger.getLogger(RunAggregator.class);
+
+	private static final int MAGIC = 0x434a4253;
+	private static final int VERSION = 2;
+
+	/**
+	 * Version 1 had no metric names, its metrics are the first PlotTypes in declaration order.
+	 */
+	private static final int VERSION_WITHOUT_NAMES = 1;
+
+	private final Map<Integer, MetricStatistics[]> statistics =
+	        new TreeMap<Integer, MetricStatistics[]>();
+
+	private final MetricStatistics[] totals = newStatistics();
+
+	private static MetricStatistics[] newStatistics() {
+		MetricStatistics[] result = new MetricStatistics[PlotType.values().length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new MetricStatistics();
+		}
+		return result;
+	}
+
+	private static void addRecord(MetricStatistics[] target, BenchmarkRecord record) {
+		for (PlotType type : PlotType.values()) {
+			target[type.ordinal()].add(record.getValueForPlotType(type));
+		}
+	}
+
+	/**
+	 * Add the cumulative record of one visit in one run.
+	 * 
+	 * @param sumRecord
+	 *            the cumulative record
+	 */
+	public void add(BenchmarkRecord sumRecord) {
+		MetricStatistics[] target = statistics.get(sumRecord.getCountNr());
+		if (target == null) {
+			target = newStatistics();
+			statistics.put(sumRecord.getCountNr(), target);
+		}
+		addRecord(target, sumRecord);
+	}
+
+	/**
+	 * Add the total of one finished run.
+	 * 
+	 * @param total
+	 *            the total record of the run
+	 */
+	public void addTotal(BenchmarkRecord total) {
+		addRecord(totals, total);
+	}
+
+	/**
+	 * @return the number of runs of which the total is added
+	 */
+	public long getRuns() {
+		return totals[0].getCount();
+	}
+
+	/**
+	 * Return the statistics of a metric over all the runs at a given countNr.
+	 * 
+	 * @param countNr
+	 *            the countNr
+	 * @param type
+	 *            the metric
+	 * @return the statistics or null if no run reached the countNr
+	 */
+	public MetricStatistics getStatistics(int countNr, PlotType type) {
+		MetricStatistics[] target = statistics.get(countNr);
+		if (target == null) {
+			return null;
+		}
+		return target[type.ordinal()];
+	}
+
+	/**
+	 * Return the statistics of a metric over the totals of all the runs.
+	 * 
+	 * @param type
+	 *            the metric
+	 * @return the statistics
+	 */
+	public MetricStatistics getTotalStatistics(PlotType type) {
+		return totals[type.ordinal()];
+	}
+
+	/**
+	 * Write a summary of the totals, one line per metric with the mean, standard deviation, 95%
+	 * confidence interval, p50, p95, p99, minimum and maximum separated by tabs.
+	 * 
+	 * @param output
+	 *            the stream to write to
+	 */
+	public void writeSummary(PrintStream output) {
+		output.println("#metric\truns\tmean\tstddev\tci95low\tci95high\tp50\tp95\tp99\tmin\tmax");
+		for (PlotType type : PlotType.values()) {
+			MetricStatistics s = totals[type.ordinal()];
+			double ci = s.getConfidenceInterval95();
+			output.println(type.name() + "\t" + s.getCount() + "\t" + s.getMean() + "\t"
+			        + s.getStandardDeviation() + "\t" + (s.getMean() - ci) + "\t"
+			        + (s.getMean() + ci) + "\t" + s.getQuantile(0.5) + "\t" + s.getQuantile(0.95)
+			        + "\t" + s.getQuantile(0.99) + "\t" + s.getMin() + "\t" + s.getMax());
+		}
+	}
+
+	/**
+	 * Save the aggregated statistics.
+	 * 
+	 * @param file
+	 *            the file to write to, overwritten when it exists
+	 * @throws IOException
+	 *             when writing fails
+	 */
+	public void save(File file) throws IOException {
+		File parentDir = file.getAbsoluteFile().getParentFile();
+		if (parentDir != null && !parentDir.exists()) {
+			parentDir.mkdirs();
+		}
+		DataOutputStream out =
+		        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(PlotType.values().length);
+			for (PlotType type : PlotType.values()) {
+				out.writeUTF(type.name());
+			}
+			writeStatistics(out, totals);
+			out.writeInt(statistics.size());
+			for (Entry<Integer, MetricStatistics[]> entry : statistics.entrySet()) {
+				out.writeInt(entry.getKey());
+				writeStatistics(out, entry.getValue());
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Load saved statistics and merge them into this aggregator.
+	 * 
+	 * @param file
+	 *            the file to read
+	 * @throws IOException
+	 *             when reading fails or the file is not a statistics file of a known version
+	 */
+	public void load(File file) throws IOException {
+		DataInputStream in =
+		        new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a benchmark statistics file: " + file);
+			}
+			int version = in.readInt();
+			if (version != VERSION && version != VERSION_WITHOUT_NAMES) {
+				throw new IOException("Unknown benchmark statistics version " + version + ": "
+				        + file);
+			}
+			PlotType[] types = readTypes(in, version, file);
+			readStatistics(in, types, totals);
+			int countNrs = in.readInt();
+			for (int i = 0; i < countNrs; i++) {
+				int countNr = in.readInt();
+				MetricStatistics[] target = statistics.get(countNr);
+				if (target == null) {
+					target = newStatistics();
+					statistics.put(countNr, target);
+				}
+				readStatistics(in, types, target);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Read the metrics of a saved file in the order their values are saved.
+	 * 
+	 * @return the metric of every saved value, null for a metric that is no longer known
+	 */
+	private static PlotType[] readTypes(DataInputStream in, int version, File file)
+	        throws IOException {
+		int count = in.readInt();
+		PlotType[] known = PlotType.values();
+		PlotType[] types = new PlotType[count];
+		if (version == VERSION_WITHOUT_NAMES) {
+			if (count > known.length) {
+				throw new IOException("Benchmark statistics with " + count
+				        + " metrics of version " + version + ": " + file);
+			}
+			System.arraycopy(known, 0, types, 0, count);
+		} else {
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				try {
+					types[i] = PlotType.valueOf(name);
+				} catch (IllegalArgumentException e) {
+					LOGGER.warn("Skipping the unknown metric " + name + " in " + file);
+				}
+			}
+		}
+		if (count < known.length) {
+			LOGGER.warn(file + " has " + count + " of the " + known.length
+			        + " metrics, the missing metrics start without values");
+		}
+		return types;
+	}
+
+	private static void writeStatistics(DataOutputStream out, MetricStatistics[] source)
+	        throws IOException {
+		for (MetricStatistics s : source) {
+			s.write(out);
+		}
+	}
+
+	private static void readStatistics(DataInputStream in, PlotType[] types,
+	        MetricStatistics[] target) throws IOException {
+		for (PlotType type : types) {
+			if (type == null) {
+				// Read the values of an unknown metric to skip them
+				new MetricStatistics().read(in);
+			} else {
+				target[type.ordinal()].read(in);
+			}
+		}
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateVertix;
+import com.javamex.classmexer.MemoryUtil;
+import com.javamex.classmexer.MemoryUtil.VisibilityFilter;
+
+/**
+ * Measures the memory usage of the state flow graph on a background thread. A sample is taken
+ * every sampleStates visited states or every sampleInterval ms, whichever comes first. The values
+ * in between two samples are estimated by extrapolating the memory per state of the last two
+ * samples.
+ * 
+ * @version $Id$
+ */
+public class SampledMemoryMeter implements MemoryMeter, Runnable {
+
+	private static final Logger LOGGER = Logger.getLogger(SampledMemoryMeter.class);
+
+	private final int sampleStates;
+	private final long sampleInterval;
+
+	/**
+	 * Guards the samples and the pending visits, also used to wake up the sampler thread.
+	 */
+	private final Object sampleLock = new Object();
+
+	private int pendingVisits = 0;
+	private int samples = 0;
+	private int previousSampleStates = 0;
+	private long previousSampleMemory = 0;
+	private int lastSampleStates = 0;
+	private long lastSampleMemory = 0;
+
+	private volatile StateFlowGraph graph;
+	private volatile boolean running = true;
+	private final Thread sampler;
+
+	/**
+	 * Create and start a new sampling meter.
+	 * 
+	 * @param sampleStates
+	 *            the number of visited states after which a new sample is taken
+	 * @param sampleInterval
+	 *            the maximum time in ms between two samples
+	 */
+	public SampledMemoryMeter(int sampleStates, long sampleInterval) {
+		this.sampleStates = Math.max(1, sampleStates);
+		this.sampleInterval = Math.max(1, sampleInterval);
+		sampler = new Thread(this, "BenchmarkMemorySampler");
+		sampler.setDaemon(true);
+		sampler.start();
+	}
+
+	@Override
+	public long measure(StateFlowGraph sfg, StateVertix currentState, int currentStates) {
+		graph = sfg;
+		boolean first;
+		synchronized (sampleLock) {
+			first = samples == 0;
+			pendingVisits++;
+			if (pendingVisits >= sampleStates) {
+				sampleLock.notifyAll();
+			}
+		}
+		if (first) {
+			// No estimate possible yet, the graph is still small so measure it here
+			sample();
+		}
+		return estimate(currentStates);
+	}
+
+	/**
+	 * Estimate the memory usage for the given number of states using the last two samples.
+	 * 
+	 * @param currentStates
+	 *            the number of states to estimate the memory usage for
+	 * @return the estimated memory usage in bytes
+	 */
+	private long estimate(int currentStates) {
+		synchronized (sampleLock) {
+			if (samples < 2 || lastSampleStates <= previousSampleStates) {
+				return lastSampleMemory;
+			}
+			long perState =
+			        (lastSampleMemory - previousSampleMemory)
+			                / (lastSampleStates - previousSampleStates);
+			return lastSampleMemory + perState * (currentStates - lastSampleStates);
+		}
+	}
+
+	/**
+	 * Walk the last known state flow graph and store the result as newest sample.
+	 */
+	private void sample() {
+		StateFlowGraph sfg = graph;
+		if (sfg == null) {
+			return;
+		}
+		int states = sfg.getAllStates().size();
+		long memory;
+		try {
+			memory = MemoryUtil.deepMemoryUsageOf(sfg, VisibilityFilter.ALL);
+		} catch (IllegalStateException e) {
+			LOGGER.warn("MemoryUtil (ClassMexer) is not added to cmd line,"
+			        + " add it by adding -javaagent:lib/classmexer-0.03.jar");
+			running = false;
+			return;
+		} catch (RuntimeException e) {
+			// The graph is changed by the crawler while walking it, try again next sample
+			LOGGER.debug("Memory sample failed", e);
+			return;
+		}
+		synchronized (sampleLock) {
+			if (samples > 0 && states == lastSampleStates) {
+				// Same number of states; only refresh the value
+				lastSampleMemory = memory;
+				return;
+			}
+			previousSampleStates = lastSampleStates;
+			previousSampleMemory = lastSampleMemory;
+			lastSampleStates = states;
+			lastSampleMemory = memory;
+			samples++;
+		}
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			synchronized (sampleLock) {
+				if (pendingVisits < sampleStates) {
+					try {
+						sampleLock.wait(sampleInterval);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+				pendingVisits = 0;
+			}
+			if (running) {
+				sample();
+			}
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		sampler.interrupt();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free ring buffer for many producers and a single consumer. Every slot carries a
+ * sequence number which tells the producers and the consumer if the slot is free or filled, so a
+ * producer only pays for one compare-and-set on the tail.
+ * 
+ * @param <T>
+ *            the type of elements held in this buffer
+ * @version $Id$
+ */
+public class VisitRingBuffer<T> {
+
+	private final int mask;
+	private final AtomicReferenceArray<T> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong(0);
+
+	/**
+	 * Only written by the consumer.
+	 */
+	private volatile long head = 0;
+
+	/**
+	 * Create a new ring buffer.
+	 * 
+	 * @param minimalCapacity
+	 *            the minimal number of elements the buffer must hold, rounded up to a power of two
+	 */
+	public VisitRingBuffer(int minimalCapacity) {
+		int capacity = 1;
+		while (capacity < minimalCapacity) {
+			capacity <<= 1;
+		}
+		mask = capacity - 1;
+		slots = new AtomicReferenceArray<T>(capacity);
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Try to add an element to the buffer.
+	 * 
+	 * @param element
+	 *            the element to add
+	 * @return false if the buffer is full
+	 */
+	public boolean offer(T element) {
+		while (true) {
+			long position = tail.get();
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.set(index, element);
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+			} else if (difference < 0) {
+				return false;
+			}
+			// Another producer took this position, retry with the new tail
+		}
+	}
+
+	/**
+	 * Add an element to the buffer, yielding while the buffer is full.
+	 * 
+	 * @param element
+	 *            the element to add
+	 */
+	public void put(T element) {
+		while (!offer(element)) {
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Take the oldest element from the buffer. Must only be called by the single consumer.
+	 * 
+	 * @return the oldest element or null if the buffer is empty
+	 */
+	public T poll() {
+		long position = head;
+		int index = (int) (position & mask);
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+		T element = slots.get(index);
+		slots.set(index, null);
+		sequences.lazySet(index, position + mask + 1);
+		head = position + 1;
+		return element;
+	}
+
+	/**
+	 * @return the total number of elements ever added to this buffer
+	 */
+	public long getPublished() {
+		return tail.get();
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import java.lang.management.ManagementFactory;
+
+import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateVertix;
+
+/**
+ * A visited state as captured on the crawler thread. Only the cheap values are read from the
+ * state flow graph here: the numbers of states and edges, the incoming edges of the current state
+ * that no visit handed on before, and the ids of the edges coming from the state the same thread
+ * visited before. The consumer of the BenchmarkStorage calculates the depth, the revisits and the
+ * memory usage from these and builds the records.
+ * 
+ * @version $Id$
+ */
+public class VisitSnapshot {
+
+	private final long time;
+	private final double load;
+	private final int edges;
+	private final int states;
+	private final long cpuTime;
+	private final long allocatedBytes;
+	private final long gcCount;
+	private final long gcTime;
+	private final StateFlowGraph graph;
+	private final StateVertix currentState;
+	private final String indexName;
+	private final String[] edgeSources;
+	private final String[] edgeTargets;
+	private final long[] revisitedEdges;
+	private final FixedBenchmarkData data;
+
+	/**
+	 * Capture a new snapshot, the current time, load, resource usage and the numbers of states and
+	 * edges are read here.
+	 * 
+	 * @param sfg
+	 *            the state flow graph holding the flow of states as known now
+	 * @param currentState
+	 *            the current state
+	 * @param indexName
+	 *            the name of the index state or null when the depth is not known
+	 * @param data
+	 *            the fixed data of this crawl
+	 * @param resources
+	 *            the meter accounting the resources used by the crawler threads
+	 * @param edgeSources
+	 *            the source names of the new edges coming in to the current state
+	 * @param edgeTargets
+	 *            the target names of the new edges, in the order of edgeSources
+	 * @param revisitedEdges
+	 *            the ids of the edges from the previous state of this thread to the current state
+	 */
+	public VisitSnapshot(StateFlowGraph sfg, StateVertix currentState, String indexName,
+	        FixedBenchmarkData data, ResourceMeter resources, String[] edgeSources,
+	        String[] edgeTargets, long[] revisitedEdges) {
+		this.time = System.currentTimeMillis();
+		this.load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+		ResourceMeter.Usage usage = resources.capture();
+		this.cpuTime = usage.getCpuTime();
+		this.allocatedBytes = usage.getAllocatedBytes();
+		this.gcCount = usage.getGcCount();
+		this.gcTime = usage.getGcTime();
+		this.edges = sfg.getAllEdges().size();
+		this.states = sfg.getAllStates().size();
+		this.graph = sfg;
+		this.currentState = currentState;
+		this.indexName = indexName;
+		this.edgeSources = edgeSources;
+		this.edgeTargets = edgeTargets;
+		this.revisitedEdges = revisitedEdges;
+		this.data = data;
+	}
+
+	/**
+	 * @return the time in ms this snapshot was taken
+	 */
+	public final long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the system load average
+	 */
+	public final double getLoad() {
+		return load;
+	}
+
+	/**
+	 * @return the number of edges
+	 */
+	public final int getEdges() {
+		return edges;
+	}
+
+	/**
+	 * @return the number of states
+	 */
+	public final int getStates() {
+		return states;
+	}
+
+	/**
+	 * @return the cpu time in ns the crawler thread used since its previous visit
+	 */
+	public final long getCpuTime() {
+		return cpuTime;
+	}
+
+	/**
+	 * @return the number of bytes the crawler thread allocated since its previous visit
+	 */
+	public final long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return the number of garbage collections
+	 */
+	public final long getGcCount() {
+		return gcCount;
+	}
+
+	/**
+	 * @return the time in ms spent in garbage collection
+	 */
+	public final long getGcTime() {
+		return gcTime;
+	}
+
+	/**
+	 * @return the state flow graph, only to be read by a MemoryMeter
+	 */
+	public final StateFlowGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return the current state
+	 */
+	public final StateVertix getCurrentState() {
+		return currentState;
+	}
+
+	/**
+	 * @return the name of the index state or null when the depth is not known
+	 */
+	public final String getIndexName() {
+		return indexName;
+	}
+
+	/**
+	 * @return the source names of the new edges coming in to the current state
+	 */
+	public final String[] getEdgeSources() {
+		return edgeSources;
+	}
+
+	/**
+	 * @return the target names of the new edges, in the order of the sources
+	 */
+	public final String[] getEdgeTargets() {
+		return edgeTargets;
+	}
+
+	/**
+	 * @return the ids of the edges from the previous state of the thread to the current state
+	 */
+	public final long[] getRevisitedEdges() {
+		return revisitedEdges;
+	}
+
+	/**
+	 * @return the fixed benchmark data
+	 */
+	public final FixedBenchmarkData getData() {
+		return data;
+	}
+}
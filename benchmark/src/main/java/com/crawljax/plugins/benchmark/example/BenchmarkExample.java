@@ -15,6 +15,7 @@ import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.core.configuration.ThreadConfiguration;
 import com.crawljax.plugins.benchmark.BenchmarkCollectorPlugin;
 import com.crawljax.plugins.benchmark.BenchmarkGUIPlugin;
+import com.crawljax.plugins.benchmark.BenchmarkProfilerPlugin;
 import com.crawljax.plugins.benchmark.configuration.Configuration;
 
 /**
@@ -52,6 +53,7 @@ public final class BenchmarkExample {
 		benchmakrConfig.setUseDataFiles(true);
 		config.addPlugin(new BenchmarkGUIPlugin(benchmakrConfig));
 		config.addPlugin(new BenchmarkCollectorPlugin(benchmakrConfig));
+		config.addPlugin(new BenchmarkProfilerPlugin(benchmakrConfig));
 
 		try {
 			CrawljaxController crawljax = new CrawljaxController(config);
@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.example;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.core.CrawljaxController;
+import com.crawljax.core.configuration.CrawlSpecification;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.core.configuration.ThreadConfiguration;
+import com.crawljax.plugins.benchmark.BenchmarkCollectorPlugin;
+import com.crawljax.plugins.benchmark.configuration.Configuration;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkStorage;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
+import com.crawljax.plugins.benchmark.dataset.MetricStatistics;
+import com.crawljax.plugins.benchmark.dataset.RunAggregator;
+import com.crawljax.plugins.benchmark.fixture.FixtureScenario;
+import com.crawljax.plugins.benchmark.fixture.FixtureSite;
+
+/**
+ * A sweep runner. Every cell of a grid of browsers, threads and wait times is crawled a number of
+ * times, the totals of the runs of a cell are gathered in the run statistics of the cell. After
+ * the sweep one table is written with the throughput in states per second of every cell and the
+ * scaling efficiency per core compared to the cell with the fewest threads of the same wait time.
+ * <p>
+ * Usage: BenchmarkSweep [url or scenario] [grid] [wait times] [runs] [maximum states], for example
+ * <code>BenchmarkSweep SMALL 1x1,2x2,4x4 0,500 3</code> where 2x4 denotes 2 browsers crawled by 4
+ * threads. When a FixtureScenario is given its site is served locally for the sweep, crawled with
+ * the click configuration of the scenario, and the maximum states default to all the states of the
+ * site.
+ * </p>
+ * 
+ * @version $Id$
+ */
+public final class BenchmarkSweep {
+
+	private static final Logger LOGGER = Logger.getLogger(BenchmarkSweep.class.getName());
+
+	private static final String SCENARIO = "SMALL";
+	private static final String GRID = "1x1,2x2,4x4";
+	private static final String WAIT_TIMES = "0,500";
+	private static final int RUNS = 3;
+	private static final int MAXIMUMSTATES = 50;
+	private static final String OUTPUT_FOLDER = "output/benchmark-sweep";
+	private static final String TABLE_FILE = "sweep.table";
+	private static final double MILLIS_PER_SECOND = 1000.0;
+
+	private final String url;
+	private final FixtureScenario scenario;
+	private final FixtureSite site;
+	private final int runs;
+	private final int maximumStates;
+	private final String outputFolder;
+	private final List<Cell> cells = new ArrayList<Cell>();
+
+	/**
+	 * One cell of the grid together with the statistics of its runs.
+	 */
+	public static final class Cell {
+		private final int browsers;
+		private final int threads;
+		private final int waitTime;
+		private RunAggregator statistics;
+
+		/**
+		 * @param browsers
+		 *            the number of browsers
+		 * @param threads
+		 *            the number of crawler threads
+		 * @param waitTime
+		 *            the wait time after an event and after reloading the url in ms
+		 */
+		public Cell(int browsers, int threads, int waitTime) {
+			this.browsers = browsers;
+			this.threads = threads;
+			this.waitTime = waitTime;
+		}
+
+		/**
+		 * @return the identifier of the cell, used as run id and as the name of its output folder
+		 */
+		public String getId() {
+			return "b" + browsers + "-t" + threads + "-w" + waitTime;
+		}
+
+		/**
+		 * @return the number of browsers
+		 */
+		public int getBrowsers() {
+			return browsers;
+		}
+
+		/**
+		 * @return the number of crawler threads
+		 */
+		public int getThreads() {
+			return threads;
+		}
+
+		/**
+		 * @return the wait time in ms
+		 */
+		public int getWaitTime() {
+			return waitTime;
+		}
+
+		/**
+		 * @return the statistics of the runs of this cell or null when the cell did not run yet
+		 */
+		public RunAggregator getStatistics() {
+			return statistics;
+		}
+
+		/**
+		 * The throughput of the cell, the mean number of states divided by the mean runtime.
+		 * 
+		 * @return the throughput in states per second or 0 when there is no runtime
+		 */
+		public double getThroughput() {
+			if (statistics == null || statistics.getRuns() == 0) {
+				return 0;
+			}
+			double runtime = statistics.getTotalStatistics(PlotType.RUNTIME).getMean();
+			if (runtime <= 0) {
+				return 0;
+			}
+			return statistics.getTotalStatistics(PlotType.STATES).getMean()
+			        / (runtime / MILLIS_PER_SECOND);
+		}
+
+		/**
+		 * @return the number of cores this cell can use, a crawler thread drives one browser
+		 */
+		public int getCores() {
+			return Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+		}
+	}
+
+	/**
+	 * @param url
+	 *            the url of the site to crawl
+	 * @param runs
+	 *            the number of runs of every cell
+	 * @param maximumStates
+	 *            the maximum number of states of one run
+	 * @param outputFolder
+	 *            the folder to write the output of the cells and the table to
+	 */
+	public BenchmarkSweep(String url, int runs, int maximumStates, String outputFolder) {
+		this(url, null, null, runs, maximumStates, outputFolder);
+	}
+
+	/**
+	 * @param scenario
+	 *            the fixture scenario to crawl, its click configuration is used
+	 * @param site
+	 *            the started site of the scenario
+	 * @param runs
+	 *            the number of runs of every cell
+	 * @param maximumStates
+	 *            the maximum number of states of one run
+	 * @param outputFolder
+	 *            the folder to write the output of the cells and the table to
+	 */
+	public BenchmarkSweep(FixtureScenario scenario, FixtureSite site, int runs,
+	        int maximumStates, String outputFolder) {
+		this(site.getUrl(), scenario, site, runs, maximumStates, outputFolder);
+	}
+
+	private BenchmarkSweep(String url, FixtureScenario scenario, FixtureSite site, int runs,
+	        int maximumStates, String outputFolder) {
+		this.url = url;
+		this.scenario = scenario;
+		this.site = site;
+		this.runs = runs;
+		this.maximumStates = maximumStates;
+		this.outputFolder = outputFolder;
+	}
+
+	/**
+	 * Add a cell for every combination of a grid entry and a wait time.
+	 * 
+	 * @param grid
+	 *            comma separated browsers x threads entries, for example 1x1,2x4
+	 * @param waitTimes
+	 *            comma separated wait times in ms
+	 */
+	public void addCells(String grid, String waitTimes) {
+		for (String wait : waitTimes.split(",")) {
+			for (String entry : grid.split(",")) {
+				String[] parts = entry.trim().split("x");
+				if (parts.length != 2) {
+					throw new IllegalArgumentException("Grid entry '" + entry
+					        + "' is not of the form browsersxthreads");
+				}
+				cells.add(new Cell(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer
+				        .parseInt(wait.trim())));
+			}
+		}
+	}
+
+	/**
+	 * @return the cells of the sweep
+	 */
+	public List<Cell> getCells() {
+		return cells;
+	}
+
+	/**
+	 * Run all the cells and write the table to the output folder.
+	 * 
+	 * @throws IOException
+	 *             when the table can not be written
+	 */
+	public void run() throws IOException {
+		for (Cell cell : cells) {
+			runCell(cell);
+		}
+		PrintStream table = new PrintStream(new FileOutputStream(new File(outputFolder, TABLE_FILE)));
+		writeTable(table);
+		table.close();
+		writeTable(System.out);
+	}
+
+	/**
+	 * Create the crawl specification of a run of a cell. A fixture scenario brings its own click
+	 * configuration, a url is crawled by clicking the default elements.
+	 */
+	private CrawlSpecification createSpecification(Cell cell) {
+		CrawlSpecification crawler;
+		if (scenario == null) {
+			crawler = new CrawlSpecification(url);
+			crawler.clickDefaultElements();
+		} else {
+			crawler = scenario.createSpecification(site);
+		}
+		crawler.setWaitTimeAfterEvent(cell.getWaitTime());
+		crawler.setWaitTimeAfterReloadUrl(cell.getWaitTime());
+		crawler.setMaximumStates(maximumStates);
+		return crawler;
+	}
+
+	private void runCell(Cell cell) {
+		Configuration benchmarkConfig = new Configuration();
+		benchmarkConfig.setRunId(cell.getId());
+		benchmarkConfig.setOutputFolder(outputFolder + "/" + cell.getId());
+		benchmarkConfig.setUseDataFiles(true);
+		benchmarkConfig.setExportTextFiles(false);
+		new File(benchmarkConfig.getOutputFolder()).mkdirs();
+
+		// Start the statistics of this cell from scratch, the data of an earlier sweep is stale
+		BenchmarkCollectorPlugin collector = new BenchmarkCollectorPlugin(benchmarkConfig);
+		collector.resetStatistics();
+		for (int i = 0; i < runs; i++) {
+			LOGGER.info("Running " + cell.getId() + " " + (i + 1) + "/" + runs);
+			CrawljaxConfiguration config = new CrawljaxConfiguration();
+			config.setCrawlSpecification(createSpecification(cell));
+			config.setThreadConfiguration(new ThreadConfiguration(cell.getBrowsers(), true, cell
+			        .getThreads()));
+			config.setOutputFolder(benchmarkConfig.getOutputFolder());
+			config.addPlugin(collector);
+
+			try {
+				CrawljaxController crawljax = new CrawljaxController(config);
+				crawljax.run();
+			} catch (Exception e) {
+				LOGGER.error("Run " + (i + 1) + " of " + cell.getId() + " failed", e);
+			}
+			// A failed run leaves its storage behind, the statistics are saved when it is destroyed
+			BenchmarkStorage.destroy(benchmarkConfig);
+			collector.removeRunData();
+		}
+
+		RunAggregator statistics = new RunAggregator();
+		try {
+			statistics.load(new File(benchmarkConfig.getStatisticsFile()));
+		} catch (IOException e) {
+			LOGGER.error("Could not load the statistics of " + cell.getId(), e);
+		}
+		cell.statistics = statistics;
+	}
+
+	/**
+	 * Find the cell with the fewest threads, and after that the fewest browsers, of a wait time.
+	 * 
+	 * @param waitTime
+	 *            the wait time
+	 * @return the baseline cell or null when no cell of the wait time has a throughput
+	 */
+	private Cell getBaseline(int waitTime) {
+		Cell baseline = null;
+		for (Cell cell : cells) {
+			if (cell.getWaitTime() != waitTime || cell.getThroughput() <= 0) {
+				continue;
+			}
+			if (baseline == null
+			        || cell.getThreads() < baseline.getThreads()
+			        || (cell.getThreads() == baseline.getThreads() && cell.getBrowsers() < baseline
+			                .getBrowsers())) {
+				baseline = cell;
+			}
+		}
+		return baseline;
+	}
+
+	/**
+	 * Write the table of the sweep, one line per cell separated by tabs. The speedup is the
+	 * throughput relative to the baseline of the same wait time, the efficiency is the speedup
+	 * divided by the number of cores used relative to the baseline.
+	 * 
+	 * @param output
+	 *            the stream to write to
+	 */
+	public void writeTable(PrintStream output) {
+		output.println("#wait\tbrowsers\tthreads\tcores\truns\tstates\truntime(ms)\t"
+		        + "runtime-ci95(ms)\tstates/s\tspeedup\tefficiency/core");
+		for (Cell cell : cells) {
+			RunAggregator statistics = cell.getStatistics();
+			long cellRuns = 0;
+			double states = 0;
+			double runtime = 0;
+			double runtimeCi = 0;
+			if (statistics != null && statistics.getRuns() > 0) {
+				cellRuns = statistics.getRuns();
+				states = statistics.getTotalStatistics(PlotType.STATES).getMean();
+				MetricStatistics runtimeStatistics =
+				        statistics.getTotalStatistics(PlotType.RUNTIME);
+				runtime = runtimeStatistics.getMean();
+				runtimeCi = runtimeStatistics.getConfidenceInterval95();
+			}
+			double throughput = cell.getThroughput();
+			double speedup = 0;
+			double efficiency = 0;
+			Cell baseline = getBaseline(cell.getWaitTime());
+			if (baseline != null && throughput > 0) {
+				speedup = throughput / baseline.getThroughput();
+				efficiency = speedup * baseline.getCores() / cell.getCores();
+			}
+			output.println(String.format("%d\t%d\t%d\t%d\t%d\t%.1f\t%.0f\t%.0f\t%.3f\t%.2f\t%.2f",
+			        cell.getWaitTime(), cell.getBrowsers(), cell.getThreads(), cell.getCores(),
+			        cellRuns, states, runtime, runtimeCi, throughput, speedup, efficiency));
+		}
+		output.flush();
+	}
+
+	/**
+	 * @param args
+	 *            the url or fixture scenario, the grid, the wait times, the number of runs per
+	 *            cell and the maximum number of states, all are optional
+	 */
+	public static void main(String[] args) {
+		String url = SCENARIO;
+		String grid = GRID;
+		String waitTimes = WAIT_TIMES;
+		int runs = RUNS;
+		int maximumStates = MAXIMUMSTATES;
+		if (args.length > 0) {
+			url = args[0];
+		}
+
+		FixtureScenario scenario = null;
+		FixtureSite site = null;
+		if (!url.contains("://")) {
+			scenario = FixtureScenario.valueOf(url);
+			site = scenario.createSite(0);
+			try {
+				site.start();
+			} catch (IOException e) {
+				LOGGER.error("Could not start the fixture site of " + url, e);
+				return;
+			}
+			maximumStates = (int) site.getStateCount();
+		}
+		if (args.length > 1) {
+			grid = args[1];
+		}
+		if (args.length > 2) {
+			waitTimes = args[2];
+		}
+		if (args.length > 3) {
+			runs = Integer.parseInt(args[3]);
+		}
+		if (args.length > 4) {
+			maximumStates = Integer.parseInt(args[4]);
+		}
+
+		BenchmarkSweep sweep;
+		if (scenario == null) {
+			sweep = new BenchmarkSweep(url, runs, maximumStates, OUTPUT_FOLDER);
+		} else {
+			sweep = new BenchmarkSweep(scenario, site, runs, maximumStates, OUTPUT_FOLDER);
+		}
+		sweep.addCells(grid, waitTimes);
+		try {
+			sweep.run();
+		} catch (IOException e) {
+			LOGGER.error("Could not write the table of the sweep", e);
+		} finally {
+			if (site != null) {
+				site.stop();
+			}
+		}
+	}
+}
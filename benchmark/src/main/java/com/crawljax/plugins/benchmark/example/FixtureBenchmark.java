@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.example;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.core.CrawljaxController;
+import com.crawljax.core.configuration.CrawljaxConfiguration;
+import com.crawljax.plugins.benchmark.BenchmarkCollectorPlugin;
+import com.crawljax.plugins.benchmark.BenchmarkProfilerPlugin;
+import com.crawljax.plugins.benchmark.configuration.Configuration;
+import com.crawljax.plugins.benchmark.fixture.FixtureScenario;
+import com.crawljax.plugins.benchmark.fixture.FixtureSite;
+
+/**
+ * Runs the fixture scenarios offline. Every run of a scenario appends its total to the master
+ * file of the scenario, output/benchmark-fixture/SCENARIO.master, with the statistics next to it,
+ * so the numbers can be tracked from commit to commit.
+ * <p>
+ * Usage: FixtureBenchmark [scenarios] [runs], for example
+ * <code>FixtureBenchmark SMALL,DEEP 5</code>. All the scenarios are run once by default.
+ * </p>
+ * 
+ * @version $Id$
+ */
+public final class FixtureBenchmark {
+
+	private static final Logger LOGGER = Logger.getLogger(FixtureBenchmark.class.getName());
+
+	private static final String OUTPUT_FOLDER = "output/benchmark-fixture";
+
+	private FixtureBenchmark() {
+	}
+
+	/**
+	 * Run a scenario a number of times against a freshly started site.
+	 * 
+	 * @param scenario
+	 *            the scenario to run
+	 * @param runs
+	 *            the number of runs
+	 * @param outputFolder
+	 *            the folder holding the master file of the scenario
+	 * @throws IOException
+	 *             when the site can not be started or the master file can not be written
+	 */
+	public static void runScenario(FixtureScenario scenario, int runs, String outputFolder)
+	        throws IOException {
+		FixtureSite site = scenario.createSite(0);
+		site.start();
+		try {
+			Configuration benchmarkConfig = new Configuration();
+			benchmarkConfig.setRunId(scenario.name());
+			benchmarkConfig.setOutputFolder(outputFolder + "/" + scenario.name());
+			benchmarkConfig.setUseDataFiles(true);
+			new File(benchmarkConfig.getOutputFolder()).mkdirs();
+			BenchmarkCollectorPlugin collector = new BenchmarkCollectorPlugin(benchmarkConfig);
+			String master = outputFolder + "/" + scenario.name() + ".master";
+
+			// The statistics cover all the runs of this scenario, the last summary covers them all
+			collector.resetStatistics();
+			for (int i = 0; i < runs; i++) {
+				LOGGER.info("Running " + scenario + " " + (i + 1) + "/" + runs);
+				CrawljaxConfiguration config = new CrawljaxConfiguration();
+				config.setCrawlSpecification(scenario.createSpecification(site));
+				config.setOutputFolder(benchmarkConfig.getOutputFolder());
+				config.addPlugin(collector);
+				config.addPlugin(new BenchmarkProfilerPlugin(benchmarkConfig));
+				try {
+					CrawljaxController crawljax = new CrawljaxController(config);
+					crawljax.run();
+				} catch (Exception e) {
+					LOGGER.error("Run " + (i + 1) + " of " + scenario + " failed", e);
+				}
+				collector.appendToMaster(master);
+			}
+		} finally {
+			site.stop();
+		}
+	}
+
+	/**
+	 * @param args
+	 *            the comma separated scenarios and the number of runs, both are optional
+	 */
+	public static void main(String[] args) {
+		FixtureScenario[] scenarios = FixtureScenario.values();
+		int runs = 1;
+		if (args.length > 0) {
+			String[] names = args[0].split(",");
+			scenarios = new FixtureScenario[names.length];
+			for (int i = 0; i < names.length; i++) {
+				scenarios[i] = FixtureScenario.valueOf(names[i].trim());
+			}
+		}
+		if (args.length > 1) {
+			runs = Integer.parseInt(args[1]);
+		}
+
+		for (FixtureScenario scenario : scenarios) {
+			try {
+				runScenario(scenario, runs, OUTPUT_FOLDER);
+			} catch (IOException e) {
+				LOGGER.error("Could not run " + scenario, e);
+			}
+		}
+	}
+}
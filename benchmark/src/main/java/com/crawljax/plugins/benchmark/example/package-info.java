@@ -8,6 +8,7 @@
  * License along with this program. If not, see <http://www.gnu.org/licenses/>.
  */
 /**
- * Package holding the Example from the website.
+ * Package holding the Example from the website and a sweep runner to compare thread and browser
+ * settings.
  */
 package com.crawljax.plugins.benchmark.example;
\ No newline at end of file
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.fixture;
+
+import com.crawljax.core.configuration.CrawlSpecification;
+
+/**
+ * The benchmark scenarios against the fixture site. Every scenario fixes the shape of the site
+ * and the crawl specification, so the numbers of the BenchmarkCollectorPlugin can be compared
+ * between runs and between commits.
+ * 
+ * @version $Id$
+ */
+public enum FixtureScenario {
+
+	/**
+	 * A small site for a quick check, 40 states.
+	 */
+	SMALL(3, 3, 20, 0),
+
+	/**
+	 * Many links per state, 421 states.
+	 */
+	WIDE(20, 2, 20, 0),
+
+	/**
+	 * Long paths, 511 states.
+	 */
+	DEEP(2, 8, 20, 0),
+
+	/**
+	 * The small site with large DOMs, stresses the DOM comparison and the memory size.
+	 */
+	LARGE_DOM(3, 3, 2000, 0),
+
+	/**
+	 * The small site with a slow server, the crawl is bound by waiting for the responses.
+	 */
+	SLOW(3, 3, 20, 100);
+
+	private static final long SEED = 42;
+
+	private final int fanOut;
+	private final int depth;
+	private final int domSize;
+	private final long latency;
+
+	private FixtureScenario(int fanOut, int depth, int domSize, long latency) {
+		this.fanOut = fanOut;
+		this.depth = depth;
+		this.domSize = domSize;
+		this.latency = latency;
+	}
+
+	/**
+	 * Create the site of this scenario, it is not started yet.
+	 * 
+	 * @param port
+	 *            the local port to listen on, 0 picks a free port
+	 * @return the site
+	 */
+	public FixtureSite createSite(int port) {
+		return new FixtureSite(port, fanOut, depth, domSize, latency, SEED);
+	}
+
+	/**
+	 * Create the crawl specification of this scenario. The site loads the states synchronously
+	 * so there is no need to wait after an event, the crawl stops when all states are found.
+	 * 
+	 * @param site
+	 *            the started site of this scenario
+	 * @return the crawl specification
+	 */
+	public CrawlSpecification createSpecification(FixtureSite site) {
+		CrawlSpecification crawler = new CrawlSpecification(site.getUrl());
+		crawler.setWaitTimeAfterEvent(0);
+		crawler.setWaitTimeAfterReloadUrl(0);
+		crawler.setMaximumStates((int) site.getStateCount());
+		crawler.setDepth(depth + 1);
+		crawler.click("a").withAttribute("href", "#");
+		return crawler;
+	}
+
+	/**
+	 * @return the number of children of every state above the maximum depth
+	 */
+	public int getFanOut() {
+		return fanOut;
+	}
+
+	/**
+	 * @return the depth of the tree
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return the number of filler elements of every state
+	 */
+	public int getDomSize() {
+		return domSize;
+	}
+
+	/**
+	 * @return the artificial latency of every response in ms
+	 */
+	public long getLatency() {
+		return latency;
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.fixture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A generated Ajax application served on a local port. The states form a tree, every state has
+ * fanOut links to its children until the depth is reached and a link back to its parent. A link
+ * loads the state with a synchronous XMLHttpRequest into the content div, so the DOM is complete
+ * when the click returns and the crawl does not depend on the wait times. The filler elements of
+ * a state are generated from the seed and the id of the state, so every request of a state
+ * returns the same DOM.
+ * <p>
+ * The ids of the states are the paths of child indices from the root, the root is "r" and its
+ * second child is "r-1".
+ * </p>
+ * 
+ * @version $Id$
+ */
+public class FixtureSite {
+
+	private static final Logger LOGGER = Logger.getLogger(FixtureSite.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int HTTP_OK = 200;
+	private static final int HTTP_NOT_FOUND = 404;
+
+	private static final String ROOT = "r";
+
+	private static final String[] WORDS =
+	        { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india",
+	                "juliet", "kilo", "lima", "mike", "november", "oscar", "papa" };
+	private static final int WORDS_PER_ITEM = 6;
+
+	private final int port;
+	private final int fanOut;
+	private final int depth;
+	private final int domSize;
+	private final long latency;
+	private final long seed;
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * Create a new site, it is not started yet.
+	 * 
+	 * @param port
+	 *            the local port to listen on, 0 picks a free port when started
+	 * @param fanOut
+	 *            the number of children of every state above the maximum depth
+	 * @param depth
+	 *            the depth of the tree, the root has depth 0
+	 * @param domSize
+	 *            the number of filler elements of every state
+	 * @param latency
+	 *            the artificial latency of every response in ms
+	 * @param seed
+	 *            the seed of the filler text
+	 */
+	public FixtureSite(int port, int fanOut, int depth, int domSize, long latency, long seed) {
+		if (fanOut < 1 || depth < 0 || domSize < 0 || latency < 0) {
+			throw new IllegalArgumentException("Invalid fixture fanOut " + fanOut + ", depth "
+			        + depth + ", domSize " + domSize + " or latency " + latency);
+		}
+		this.port = port;
+		this.fanOut = fanOut;
+		this.depth = depth;
+		this.domSize = domSize;
+		this.latency = latency;
+		this.seed = seed;
+	}
+
+	/**
+	 * Start listening, does nothing when already started.
+	 * 
+	 * @throws IOException
+	 *             when the port can not be bound
+	 */
+	public synchronized void start() throws IOException {
+		if (server != null) {
+			return;
+		}
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				serve(exchange);
+			}
+		});
+		// The browsers of a multi threaded crawl must not wait on each others latency
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+		LOGGER.info("Serving the fixture site with " + getStateCount() + " states on "
+		        + getUrl());
+	}
+
+	/**
+	 * Stop listening, does nothing when not started.
+	 */
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+			executor = null;
+		}
+	}
+
+	/**
+	 * @return the url of the index page of the started site
+	 */
+	public synchronized String getUrl() {
+		if (server == null) {
+			throw new IllegalStateException("The fixture site is not started");
+		}
+		return "http://localhost:" + server.getAddress().getPort() + "/";
+	}
+
+	/**
+	 * @return the number of states of the tree
+	 */
+	public long getStateCount() {
+		long count = 0;
+		long level = 1;
+		for (int i = 0; i <= depth; i++) {
+			count += level;
+			level *= fanOut;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of edges of the tree, a link to a child and the link back to the parent
+	 */
+	public long getEdgeCount() {
+		return 2 * (getStateCount() - 1);
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		try {
+			if (latency > 0) {
+				try {
+					Thread.sleep(latency);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			URI uri = exchange.getRequestURI();
+			String path = uri.getPath();
+			if ("/".equals(path) || "/index.html".equals(path)) {
+				respond(exchange, HTTP_OK, "text/html", renderIndex());
+			} else if ("/state".equals(path)) {
+				String id = getParameter(uri.getRawQuery(), "id");
+				if (id == null || !isValidId(id)) {
+					respond(exchange, HTTP_NOT_FOUND, "text/plain", "No such state\n");
+				} else {
+					respond(exchange, HTTP_OK, "text/html", renderState(id));
+				}
+			} else {
+				respond(exchange, HTTP_NOT_FOUND, "text/plain", "Not found\n");
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static String getParameter(String query, String name) {
+		if (query == null) {
+			return null;
+		}
+		for (String pair : query.split("&")) {
+			int split = pair.indexOf('=');
+			if (split > 0 && pair.substring(0, split).equals(name)) {
+				return pair.substring(split + 1);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param id
+	 *            the id of a state
+	 * @return true if the id denotes a state of the tree
+	 */
+	boolean isValidId(String id) {
+		String[] parts = id.split("-");
+		if (!ROOT.equals(parts[0]) || parts.length - 1 > depth) {
+			return false;
+		}
+		for (int i = 1; i < parts.length; i++) {
+			try {
+				int child = Integer.parseInt(parts[i]);
+				if (child < 0 || child >= fanOut) {
+					return false;
+				}
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String contentType,
+	        String body) throws IOException {
+		byte[] bytes = body.getBytes(UTF8);
+		exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return the index page holding the root state
+	 */
+	String renderIndex() {
+		StringBuilder out = new StringBuilder();
+		out.append("<html><head><title>Crawljax benchmark fixture</title>\n");
+		out.append("<script type=\"text/javascript\">\n");
+		out.append("function load(id) {\n");
+		out.append("  var request = new XMLHttpRequest();\n");
+		out.append("  request.open('GET', '/state?id=' + id, false);\n");
+		out.append("  request.send(null);\n");
+		out.append("  document.getElementById('content').innerHTML = request.responseText;\n");
+		out.append("  return false;\n");
+		out.append("}\n");
+		out.append("</script></head>\n<body>\n<div id=\"content\">");
+		out.append(renderState(ROOT));
+		out.append("</div>\n</body></html>\n");
+		return out.toString();
+	}
+
+	/**
+	 * Render the fragment of a state, it replaces the content div when the state is loaded.
+	 * 
+	 * @param id
+	 *            the id of the state
+	 * @return the html of the state
+	 */
+	String renderState(String id) {
+		int level = id.split("-").length - 1;
+		StringBuilder out = new StringBuilder();
+		out.append("<h1>State ").append(id).append("</h1>\n<ul class=\"nav\">\n");
+		if (level > 0) {
+			String parent = id.substring(0, id.lastIndexOf('-'));
+			link(out, parent, "Up");
+		}
+		if (level < depth) {
+			for (int i = 0; i < fanOut; i++) {
+				link(out, id + "-" + i, "Child " + i);
+			}
+		}
+		out.append("</ul>\n");
+
+		Random random = new Random(seed * 31 + id.hashCode());
+		for (int i = 0; i < domSize; i++) {
+			out.append("<div class=\"item\">");
+			for (int j = 0; j < WORDS_PER_ITEM; j++) {
+				if (j > 0) {
+					out.append(' ');
+				}
+				out.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			out.append("</div>\n");
+		}
+		return out.toString();
+	}
+
+	private static void link(StringBuilder out, String id, String text) {
+		out.append("<li><a href=\"#\" id=\"to-").append(id).append("\" onclick=\"return load('")
+		        .append(id).append("');\">").append(text).append("</a></li>\n");
+	}
+}
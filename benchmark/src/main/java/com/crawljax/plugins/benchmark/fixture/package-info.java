@@ -0,0 +1,17 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * A generated Ajax application served by an embedded http server, used as a stable target for
+ * the benchmarks. The state graph is a tree of a given fan-out and depth, so the numbers of a run
+ * only depend on the scenario and not on a live site.
+ * 
+ * @version $Id$
+ */
+package com.crawljax.plugins.benchmark.fixture;
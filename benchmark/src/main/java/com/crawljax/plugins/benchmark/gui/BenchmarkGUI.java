@@ -10,10 +10,13 @@
 package com.crawljax.plugins.benchmark.gui;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JButton;
@@ -28,8 +31,14 @@ import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 
+import org.apache.log4j.Logger;
+
 import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration;
+import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration.PlotRenderer;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset;
 import com.crawljax.plugins.benchmark.dataset.BenchmarkStorage;
+import com.crawljax.plugins.benchmark.dataset.MetricsListener;
+import com.crawljax.plugins.benchmark.dataset.MetricsSnapshot;
 import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
 import com.panayotis.gnuplot.GNUPlotException;
 
@@ -39,13 +48,15 @@ import com.panayotis.gnuplot.GNUPlotException;
  * @author Stefan Lenselink <S.R.Lenselink@student.tudelft.nl>
  * @version $Id: BenchmarkGUI.java 5953 2009-12-03 14:21:31Z stefan $
  */
-public final class BenchmarkGUI extends JFrame {
+public final class BenchmarkGUI extends JFrame implements MetricsListener {
 
 	/**
 	 * Generated serialVersionUID.
 	 */
 	private static final long serialVersionUID = -2412859185365548449L;
 
+	private static final Logger LOGGER = Logger.getLogger(BenchmarkGUI.class);
+
 	/**
 	 * The instance of the window.
 	 */
@@ -74,6 +85,11 @@ public final class BenchmarkGUI extends JFrame {
 	private final JCheckBox cumulativeCheck;
 	private final AtomicBoolean isUpdating = new AtomicBoolean(false);
 
+	/**
+	 * Redraws the plots on its own thread, at most once per repaint interval.
+	 */
+	private final RepaintScheduler scheduler;
+
 	/**
 	 * Init a new Window (JFrame) which displays all the graphs added to it. Becarefull exit of the
 	 * window ends the crawl-session
@@ -85,6 +101,13 @@ public final class BenchmarkGUI extends JFrame {
 
 		final BenchmarkStorage store = BenchmarkStorage.instance(config);
 
+		scheduler = new RepaintScheduler("BenchmarkGUIRepaint", new Runnable() {
+			@Override
+			public void run() {
+				redrawPlots();
+			}
+		}, config.getRepaintInterval());
+
 		this.getContentPane().setLayout(new BorderLayout());
 
 		/* Graph Panel */
@@ -127,18 +150,27 @@ public final class BenchmarkGUI extends JFrame {
 				public void actionPerformed(ActionEvent e) {
 					PlotType xAxis = (PlotType) xBox.getSelectedItem();
 					PlotType yAxis = (PlotType) yBox.getSelectedItem();
-					// TODO implement the tight settings
-					BenchmarkPlot plot =
-					        new BenchmarkPlot(titleField.getText(), labelField.getText(),
-					                cumulativeCheck.getSelectedObjects() == null ? store
-					                        .getRecords() : store.getSumRecords(), xAxis, yAxis,
-					                config, false, false);
+					BenchmarkDataset data =
+					        cumulativeCheck.getSelectedObjects() == null ? store.getRecords()
+					                : store.getSumRecords();
+					JPanel plot;
+					if (config.getPlotRenderer() == PlotRenderer.JAVA) {
+						plot =
+						        new ChartPlot(titleField.getText(), labelField.getText(), data,
+						                xAxis, yAxis);
+					} else {
+						// TODO implement the tight settings
+						plot =
+						        new BenchmarkPlot(titleField.getText(), labelField.getText(),
+						                data, xAxis, yAxis, config, false, false);
+					}
 
 					// Add the save / delete mouse listener
 					plot.addMouseListener(buildMouseListener());
 
 					graphPanel.add(plot);
 					graphPanel.updateUI(); // make the new graph visible
+					scheduler.requestRepaint();
 				}
 			});
 			buttonPanel.add(b);
@@ -157,6 +189,12 @@ public final class BenchmarkGUI extends JFrame {
 		this.getContentPane().add(shrinkPanel, BorderLayout.SOUTH);
 		this.setSize(BenchmarkGUI.WIDTH, BenchmarkGUI.HEIGHT);
 		this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		this.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				scheduler.stop();
+			}
+		});
 		this.setVisible(true);
 
 	}
@@ -210,6 +248,48 @@ public final class BenchmarkGUI extends JFrame {
 		return popupListener;
 	}
 
+	/**
+	 * Request a redraw of the plots with the records processed until now. {@inheritDoc}
+	 */
+	@Override
+	public void snapshotPublished(MetricsSnapshot snapshot) {
+		scheduler.requestRepaint();
+	}
+
+	/**
+	 * Request a redraw of the plots, returns immediately. Requests are coalesced into at most one
+	 * redraw per repaint interval.
+	 */
+	public void requestRepaint() {
+		scheduler.requestRepaint();
+	}
+
+	/**
+	 * @return the scheduler of the redraws, holding the number of merged and dropped requests
+	 */
+	public RepaintScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Redraw all the plots, called by the scheduler thread. The plots are drawn on this thread,
+	 * gnuplot included, and only their repaint is posted to the event dispatch thread; the
+	 * requests arriving while drawing are merged into the next redraw.
+	 */
+	private void redrawPlots() {
+		for (Component component : graphPanel.getComponents()) {
+			try {
+				if (component instanceof BenchmarkPlot) {
+					((BenchmarkPlot) component).redraw();
+				} else if (component instanceof ChartPlot) {
+					((ChartPlot) component).redraw();
+				}
+			} catch (RuntimeException e) {
+				LOGGER.error("Redraw failed", e);
+			}
+		}
+	}
+
 	@Override
 	public void repaint() {
 		if (!isUpdating.compareAndSet(false, true)) {
@@ -9,9 +9,6 @@
  */
 package com.crawljax.plugins.benchmark.gui;
 
-import java.awt.Graphics;
-import java.util.Hashtable;
-
 import com.crawljax.plugins.benchmark.configuration.BenchmarkConfiguration;
 import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset;
 import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
@@ -22,19 +19,18 @@ import com.panayotis.gnuplot.style.PlotStyle;
 import com.panayotis.gnuplot.style.Smooth;
 import com.panayotis.gnuplot.style.Style;
 import com.panayotis.gnuplot.swing.JPlot;
+import com.panayotis.gnuplot.terminal.GNUPlotTerminal;
 
 /**
  * This class extends the JPlot (from the JavaPlot package) class and rewrites its paint function.
- * Also it initialises all titles and other stuff. Replotting is done by the general Java Swing
- * repaint methods
+ * Also it initialises all titles and other stuff. Replotting is done by redraw, which is called
+ * by the RepaintScheduler of the BenchmarkGUI; paint only shows the last plotted image.
  * 
  * @author Stefan Lenselink <S.R.Lenselink@student.tudelft.nl>
  * @version $Id: BenchmarkPlot.java 5953 2009-12-03 14:21:31Z stefan $
  */
 public class BenchmarkPlot extends JPlot {
 
-	private final Hashtable<Integer, String> plotCache = new Hashtable<Integer, String>();
-
 	/**
 	 * Generated serialVersionUID.
 	 */
@@ -121,21 +117,16 @@ public class BenchmarkPlot extends JPlot {
 			jp.addPlot(dp);
 
 			this.setJavaPlot(jp);
-			this.repaint();
 		}
 	}
 
 	/**
-	 * Do the paint. Calling the super method for all the JavaPlot magik but we first do a set of
-	 * the plot type we want (this will be changed all the time) and doing a plot. The plot will
-	 * only be done when there is atleast two entries otherwise JavaPlot crashes.
-	 * 
-	 * @param g
-	 *            Graphics container to paint on
+	 * Plot the dataset again, this runs gnuplot so it must not be called on the Swing event
+	 * thread. First a set of the plot type we want is done (this will be changed all the time).
+	 * The plot will only be done when there is atleast two entries otherwise JavaPlot crashes.
+	 * Only the repaint showing the new image is posted to the Swing event thread.
 	 */
-	@Override
-	public final void paint(final Graphics g) {
-
+	public final void redraw() {
 		if (this.dataset.size() > 1) {
 			synchronized (this.dataset.getDatasetLock()) {
 
@@ -143,7 +134,28 @@ public class BenchmarkPlot extends JPlot {
 				this.dataset.setCurrentPlot(this);
 
 				this.plot();
-				super.paint(g);
+			}
+			this.repaint();
+		}
+	}
+
+	/**
+	 * Plot the dataset once to another terminal, for example a file. The terminal of the plot is
+	 * swapped under the dataset lock, so a redraw running meanwhile still plots to the image of
+	 * this panel.
+	 * 
+	 * @param terminal
+	 *            the terminal to plot to
+	 */
+	public final void plotTo(GNUPlotTerminal terminal) {
+		synchronized (this.dataset.getDatasetLock()) {
+			GNUPlotTerminal oldTerminal = getJavaPlot().getTerminal();
+			this.dataset.setCurrentPlot(this);
+			getJavaPlot().setTerminal(terminal);
+			try {
+				getJavaPlot().plot();
+			} finally {
+				getJavaPlot().setTerminal(oldTerminal);
 			}
 		}
 	}
@@ -158,14 +170,6 @@ public class BenchmarkPlot extends JPlot {
 		return this.plotTitle;
 	}
 
-	public String getCachedPoint(int point) {
-		return plotCache.get(point);
-	}
-
-	public void storeCachedPoint(int point, String cache) {
-		plotCache.put(point, cache);
-	}
-
 	/**
 	 * @return the xAxis
 	 */
@@ -14,13 +14,14 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
+import java.io.IOException;
 
 import javax.swing.JFileChooser;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
 
 import com.panayotis.gnuplot.terminal.FileTerminal;
-import com.panayotis.gnuplot.terminal.GNUPlotTerminal;
 
 /**
  * This class handles the Actions taken on BenchmarkPlots with the mouse and the resulting popup
@@ -81,8 +82,11 @@ public class BenchmarkPopup extends MouseAdapter implements ActionListener {
 	public final void actionPerformed(final ActionEvent e) {
 		JMenuItem i = (JMenuItem) e.getSource();
 		JPopupMenu jp = (JPopupMenu) i.getParent();
+		if (jp.getInvoker() instanceof ChartPlot) {
+			saveChart((ChartPlot) jp.getInvoker());
+			return;
+		}
 		BenchmarkPlot bp = (BenchmarkPlot) jp.getInvoker();
-		GNUPlotTerminal oldTerminal = bp.getJavaPlot().getTerminal();
 		JFileChooser fc = new JFileChooser();
 		fc.setMultiSelectionEnabled(false);
 		fc.setAcceptAllFileFilterUsed(false);
@@ -145,14 +149,41 @@ public class BenchmarkPopup extends MouseAdapter implements ActionListener {
 				fullPath += "." + ff.getExtension();
 			}
 
-			/* Setup a new terminal and plot */
-			FileTerminal ft = new FileTerminal(ff.getExtension(), fullPath);
-			bp.getJavaPlot().setTerminal(ft);
-			bp.getJavaPlot().plot();
-
-			/* Restore to the old terminal and repaint */
-			bp.getJavaPlot().setTerminal(oldTerminal);
+			/* Plot to a new terminal, the old terminal is restored */
+			bp.plotTo(new FileTerminal(ff.getExtension(), fullPath));
 			bp.repaint();
 		}
 	}
+
+	/**
+	 * Save a plot drawn in-process, only PNG and SVG are supported.
+	 * 
+	 * @param plot
+	 *            the plot to save
+	 */
+	private void saveChart(ChartPlot plot) {
+		JFileChooser fc = new JFileChooser();
+		fc.setMultiSelectionEnabled(false);
+		fc.setAcceptAllFileFilterUsed(false);
+		fc.addChoosableFileFilter(new TerminalFilter("png", "PNG image"));
+		fc.addChoosableFileFilter(new TerminalFilter("svg", "W3C Scalable Vector Graphics"));
+		if (fc.showSaveDialog(plot) == JFileChooser.APPROVE_OPTION) {
+			File f = fc.getSelectedFile();
+			String ext = TerminalFilter.getExtensionOfFile(f);
+			TerminalFilter ff = (TerminalFilter) fc.getFileFilter();
+			if (ext == null || !ext.equals(ff.getExtension())) {
+				f = new File(f.getAbsolutePath() + "." + ff.getExtension());
+			}
+			try {
+				if ("svg".equals(ff.getExtension())) {
+					plot.getRenderer().writeSvg(f, plot.getWidth(), plot.getHeight());
+				} else {
+					plot.getRenderer().writePng(f, plot.getWidth(), plot.getHeight());
+				}
+			} catch (IOException ex) {
+				JOptionPane.showMessageDialog(plot, "Could not save " + f + ":\n"
+				        + ex.getMessage());
+			}
+		}
+	}
 }
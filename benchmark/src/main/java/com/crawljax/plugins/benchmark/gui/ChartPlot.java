@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.gui;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JPanel;
+
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
+
+/**
+ * A plot drawn in-process by a ChartRenderer, the alternative for the gnuplot based BenchmarkPlot.
+ * The image is rendered by redraw, which is called by the RepaintScheduler of the BenchmarkGUI;
+ * paint only shows the last rendered image.
+ * 
+ * @version $Id$
+ */
+public class ChartPlot extends JPanel {
+
+	/**
+	 * Generated serialVersionUID.
+	 */
+	private static final long serialVersionUID = 3170539261784906163L;
+
+	private static final int DEFAULT_WIDTH = 640;
+	private static final int DEFAULT_HEIGHT = 480;
+
+	private final String plotTitle;
+
+	private final transient ChartRenderer renderer;
+
+	private volatile transient BufferedImage image;
+
+	/**
+	 * Init a new Plot Pannel with the given data.
+	 * 
+	 * @param title
+	 *            the title of the Plot
+	 * @param label
+	 *            the label of the line
+	 * @param data
+	 *            the dataset containter
+	 * @param xAxis
+	 *            the column on the x-axis
+	 * @param yAxis
+	 *            the column on the y-axis
+	 */
+	public ChartPlot(String title, String label, BenchmarkDataset data, PlotType xAxis,
+	        PlotType yAxis) {
+		this.plotTitle = title;
+		this.renderer = new ChartRenderer(title, label, data, xAxis, yAxis);
+		this.setPreferredSize(new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT));
+	}
+
+	/**
+	 * Render the chart again at the current size of the panel.
+	 */
+	public final void redraw() {
+		int width = getWidth() > 0 ? getWidth() : DEFAULT_WIDTH;
+		int height = getHeight() > 0 ? getHeight() : DEFAULT_HEIGHT;
+		image = renderer.render(width, height);
+		repaint();
+	}
+
+	/**
+	 * @return the renderer drawing this plot, used to export it
+	 */
+	public final ChartRenderer getRenderer() {
+		return renderer;
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		BufferedImage current = image;
+		if (current != null) {
+			g.drawImage(current, 0, 0, null);
+		}
+	}
+
+	/**
+	 * create a String repsentation of this Plot.
+	 * 
+	 * @return the Title of the plot
+	 */
+	@Override
+	public final String toString() {
+		return this.plotTitle;
+	}
+}
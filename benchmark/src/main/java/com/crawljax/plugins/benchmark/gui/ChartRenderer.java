@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.gui;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import javax.imageio.ImageIO;
+
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset.PlotType;
+
+/**
+ * Draws a line chart of two columns of a BenchmarkDataset without gnuplot. The rows are
+ * downsampled with the LttbDownsampler to about one point per pixel, so the cost of drawing
+ * depends on the width of the chart and not on the number of records. Works headless, the chart
+ * can be written as PNG or SVG.
+ * 
+ * @version $Id$
+ */
+public class ChartRenderer {
+
+	private static final int MARGIN_LEFT = 80;
+	private static final int MARGIN_RIGHT = 40;
+	private static final int MARGIN_TOP = 40;
+	private static final int MARGIN_BOTTOM = 50;
+	private static final int TICKS = 5;
+	private static final int TICK_SIZE = 4;
+	private static final int FONT_SIZE = 12;
+
+	private static final Color LINE_COLOR = new Color(0xcc, 0x22, 0x22);
+	private static final Color GRID_COLOR = new Color(0xdd, 0xdd, 0xdd);
+
+	private final String title;
+	private final String label;
+	private final BenchmarkDataset dataset;
+	private final PlotType xAxis;
+	private final PlotType yAxis;
+
+	/**
+	 * Create a new renderer.
+	 * 
+	 * @param title
+	 *            the title of the chart
+	 * @param label
+	 *            the label of the line
+	 * @param dataset
+	 *            the records to draw
+	 * @param xAxis
+	 *            the column on the x-axis
+	 * @param yAxis
+	 *            the column on the y-axis
+	 */
+	public ChartRenderer(String title, String label, BenchmarkDataset dataset, PlotType xAxis,
+	        PlotType yAxis) {
+		this.title = title;
+		this.label = label;
+		this.dataset = dataset;
+		this.xAxis = xAxis;
+		this.yAxis = yAxis;
+	}
+
+	/**
+	 * The pixel positions of the chart, calculated once for both the image and the SVG output.
+	 */
+	private final class Layout {
+		private final int width;
+		private final int height;
+		private final int left;
+		private final int right;
+		private final int top;
+		private final int bottom;
+		private final long minX;
+		private final long maxX;
+		private final long minY;
+		private final long maxY;
+		private final double[] pointsX;
+		private final double[] pointsY;
+
+		private Layout(int width, int height) {
+			this.width = width;
+			this.height = height;
+			left = MARGIN_LEFT;
+			right = Math.max(left + 1, width - MARGIN_RIGHT);
+			top = MARGIN_TOP;
+			bottom = Math.max(top + 1, height - MARGIN_BOTTOM);
+
+			long[][] series = dataset.getSeries(xAxis, yAxis);
+			long[] x = series[0];
+			long[] y = series[1];
+			int count = x.length;
+			long lowX = count > 0 ? x[0] : 0;
+			long highX = count > 0 ? x[count - 1] : 1;
+			long lowY = 0;
+			long highY = 1;
+			for (int i = 0; i < count; i++) {
+				lowY = Math.min(lowY, y[i]);
+				highY = Math.max(highY, y[i]);
+			}
+			minX = lowX;
+			maxX = highX > lowX ? highX : lowX + 1;
+			minY = lowY;
+			maxY = highY;
+
+			int[] selected = LttbDownsampler.downsample(x, y, count, right - left);
+			pointsX = new double[selected.length];
+			pointsY = new double[selected.length];
+			for (int i = 0; i < selected.length; i++) {
+				pointsX[i] = toPixelX(x[selected[i]]);
+				pointsY[i] = toPixelY(y[selected[i]]);
+			}
+		}
+
+		private double toPixelX(double value) {
+			return left + (value - minX) * (right - left) / (maxX - minX);
+		}
+
+		private double toPixelY(double value) {
+			return bottom - (value - minY) * (bottom - top) / (maxY - minY);
+		}
+
+		private long tickX(int tick) {
+			return minX + (maxX - minX) * tick / TICKS;
+		}
+
+		private long tickY(int tick) {
+			return minY + (maxY - minY) * tick / TICKS;
+		}
+	}
+
+	/**
+	 * Draw the chart on a new image.
+	 * 
+	 * @param width
+	 *            the width in pixels
+	 * @param height
+	 *            the height in pixels
+	 * @return the image holding the chart
+	 */
+	public BufferedImage render(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			render(g, new Layout(width, height));
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	private void render(Graphics2D g, Layout layout) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, layout.width, layout.height);
+		g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, FONT_SIZE));
+		FontMetrics metrics = g.getFontMetrics();
+
+		for (int tick = 0; tick <= TICKS; tick++) {
+			int px = (int) layout.toPixelX(layout.tickX(tick));
+			int py = (int) layout.toPixelY(layout.tickY(tick));
+			g.setColor(GRID_COLOR);
+			g.drawLine(px, layout.top, px, layout.bottom);
+			g.drawLine(layout.left, py, layout.right, py);
+			g.setColor(Color.BLACK);
+			g.drawLine(px, layout.bottom, px, layout.bottom + TICK_SIZE);
+			g.drawLine(layout.left - TICK_SIZE, py, layout.left, py);
+			String xText = String.valueOf(layout.tickX(tick));
+			g.drawString(xText, px - metrics.stringWidth(xText) / 2, layout.bottom + TICK_SIZE
+			        + metrics.getAscent());
+			String yText = String.valueOf(layout.tickY(tick));
+			g.drawString(yText, layout.left - TICK_SIZE * 2 - metrics.stringWidth(yText), py
+			        + metrics.getAscent() / 2);
+		}
+		g.drawRect(layout.left, layout.top, layout.right - layout.left, layout.bottom
+		        - layout.top);
+
+		g.drawString(title, (layout.width - metrics.stringWidth(title)) / 2, layout.top / 2
+		        + metrics.getAscent() / 2);
+		String xLabel = xAxis.getLabel();
+		g.drawString(xLabel, (layout.left + layout.right - metrics.stringWidth(xLabel)) / 2,
+		        layout.height - metrics.getDescent() - TICK_SIZE);
+		Graphics2D rotated = (Graphics2D) g.create();
+		rotated.rotate(-Math.PI / 2);
+		String yLabel = yAxis.getLabel();
+		rotated.drawString(yLabel, -(layout.top + layout.bottom + metrics.stringWidth(yLabel))
+		        / 2, metrics.getAscent());
+		rotated.dispose();
+
+		g.setColor(LINE_COLOR);
+		g.drawString(label, layout.left + TICK_SIZE * 2, layout.top + metrics.getAscent()
+		        + TICK_SIZE);
+		if (layout.pointsX.length > 1) {
+			Path2D.Double path = new Path2D.Double();
+			path.moveTo(layout.pointsX[0], layout.pointsY[0]);
+			for (int i = 1; i < layout.pointsX.length; i++) {
+				path.lineTo(layout.pointsX[i], layout.pointsY[i]);
+			}
+			g.setStroke(new BasicStroke(1.5f));
+			g.draw(path);
+		}
+	}
+
+	/**
+	 * Write the chart as a PNG image.
+	 * 
+	 * @param file
+	 *            the file to write to
+	 * @param width
+	 *            the width in pixels
+	 * @param height
+	 *            the height in pixels
+	 * @throws IOException
+	 *             when the file can not be written
+	 */
+	public void writePng(File file, int width, int height) throws IOException {
+		ImageIO.write(render(width, height), "png", file);
+	}
+
+	/**
+	 * Write the chart as a SVG image.
+	 * 
+	 * @param file
+	 *            the file to write to
+	 * @param width
+	 *            the width in pixels
+	 * @param height
+	 *            the height in pixels
+	 * @throws IOException
+	 *             when the file can not be written
+	 */
+	public void writeSvg(File file, int width, int height) throws IOException {
+		Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writeSvg(out, new Layout(width, height));
+		} finally {
+			out.close();
+		}
+	}
+
+	private void writeSvg(Writer out, Layout layout) throws IOException {
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + layout.width
+		        + "\" height=\"" + layout.height + "\" font-family=\"sans-serif\" font-size=\""
+		        + FONT_SIZE + "\">\n");
+		out.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+		for (int tick = 0; tick <= TICKS; tick++) {
+			int px = (int) layout.toPixelX(layout.tickX(tick));
+			int py = (int) layout.toPixelY(layout.tickY(tick));
+			out.write(line(px, layout.top, px, layout.bottom, "#dddddd"));
+			out.write(line(layout.left, py, layout.right, py, "#dddddd"));
+			out.write(text(px, layout.bottom + TICK_SIZE + FONT_SIZE, "middle", String
+			        .valueOf(layout.tickX(tick)), "black"));
+			out.write(text(layout.left - TICK_SIZE * 2, py + FONT_SIZE / 2, "end", String
+			        .valueOf(layout.tickY(tick)), "black"));
+		}
+		out.write("<rect x=\"" + layout.left + "\" y=\"" + layout.top + "\" width=\""
+		        + (layout.right - layout.left) + "\" height=\"" + (layout.bottom - layout.top)
+		        + "\" fill=\"none\" stroke=\"black\"/>\n");
+		out.write(text(layout.width / 2, layout.top / 2 + FONT_SIZE / 2, "middle", title,
+		        "black"));
+		out.write(text((layout.left + layout.right) / 2, layout.height - TICK_SIZE, "middle",
+		        xAxis.getLabel(), "black"));
+		out.write("<text transform=\"rotate(-90)\" x=\"" + -(layout.top + layout.bottom) / 2
+		        + "\" y=\"" + FONT_SIZE + "\" text-anchor=\"middle\">" + escape(yAxis.getLabel())
+		        + "</text>\n");
+		out.write(text(layout.left + TICK_SIZE * 2, layout.top + FONT_SIZE + TICK_SIZE, "start",
+		        label, "#cc2222"));
+		if (layout.pointsX.length > 1) {
+			StringBuilder points = new StringBuilder();
+			for (int i = 0; i < layout.pointsX.length; i++) {
+				points.append(Math.round(layout.pointsX[i] * 10) / 10.0).append(',').append(
+				        Math.round(layout.pointsY[i] * 10) / 10.0).append(' ');
+			}
+			out.write("<polyline fill=\"none\" stroke=\"#cc2222\" stroke-width=\"1.5\" points=\""
+			        + points.toString().trim() + "\"/>\n");
+		}
+		out.write("</svg>\n");
+	}
+
+	private static String line(int x1, int y1, int x2, int y2, String color) {
+		return "<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2 + "\" y2=\"" + y2
+		        + "\" stroke=\"" + color + "\"/>\n";
+	}
+
+	private static String text(int x, int y, String anchor, String value, String color) {
+		return "<text x=\"" + x + "\" y=\"" + y + "\" text-anchor=\"" + anchor + "\" fill=\""
+		        + color + "\">" + escape(value) + "</text>\n";
+	}
+
+	private static String escape(String value) {
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
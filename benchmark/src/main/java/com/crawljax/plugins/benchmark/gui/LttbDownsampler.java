@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.gui;
+
+/**
+ * Downsamples a series with the largest triangle three buckets algorithm. The first and the last
+ * point are kept, the points in between are divided into buckets and from every bucket the point
+ * forming the largest triangle with the point chosen in the previous bucket and the average of the
+ * next bucket is kept. The shape of the line, including its peaks, is kept with a fixed number of
+ * points.
+ * 
+ * @version $Id$
+ */
+public final class LttbDownsampler {
+
+	private static final int MIN_THRESHOLD = 3;
+
+	private LttbDownsampler() {
+	}
+
+	/**
+	 * Select the points to draw.
+	 * 
+	 * @param x
+	 *            the x values, ascending
+	 * @param y
+	 *            the y values
+	 * @param count
+	 *            the number of points in x and y
+	 * @param threshold
+	 *            the maximal number of points to select, below 3 all the points are selected
+	 * @return the indexes of the selected points, ascending
+	 */
+	public static int[] downsample(long[] x, long[] y, int count, int threshold) {
+		if (threshold >= count || threshold < MIN_THRESHOLD) {
+			int[] all = new int[count];
+			for (int i = 0; i < count; i++) {
+				all[i] = i;
+			}
+			return all;
+		}
+		int[] selected = new int[threshold];
+		double bucketSize = (double) (count - 2) / (threshold - 2);
+		int a = 0;
+		selected[0] = 0;
+		for (int bucket = 0; bucket < threshold - 2; bucket++) {
+			// The average of the next bucket is the third point of the triangle
+			int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+			int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, count);
+			double avgX = 0;
+			double avgY = 0;
+			for (int i = nextStart; i < nextEnd; i++) {
+				avgX += x[i];
+				avgY += y[i];
+			}
+			int nextCount = nextEnd - nextStart;
+			avgX /= nextCount;
+			avgY /= nextCount;
+
+			int start = (int) (bucket * bucketSize) + 1;
+			int end = (int) ((bucket + 1) * bucketSize) + 1;
+			double maxArea = -1;
+			int maxIndex = start;
+			for (int i = start; i < end; i++) {
+				double area =
+				        Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+				if (area > maxArea) {
+					maxArea = area;
+					maxIndex = i;
+				}
+			}
+			selected[bucket + 1] = maxIndex;
+			a = maxIndex;
+		}
+		selected[threshold - 1] = count - 1;
+		return selected;
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.gui;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs a redraw task on its own thread, at most once per interval. Requests arriving while a
+ * redraw is already pending are merged into that redraw, so the caller never waits for a redraw
+ * and the number of redraws stays bounded however often a redraw is requested.
+ * 
+ * @version $Id$
+ */
+public class RepaintScheduler {
+
+	private static final Logger LOGGER = Logger.getLogger(RepaintScheduler.class);
+
+	private final Runnable redraw;
+	private final long interval;
+	private final Thread thread;
+
+	private final Object lock = new Object();
+
+	/* Guarded by lock */
+	private boolean pending = false;
+	private boolean running = true;
+	private long requested = 0;
+	private long merged = 0;
+	private long dropped = 0;
+	private long redraws = 0;
+
+	/**
+	 * Create and start a new scheduler.
+	 * 
+	 * @param name
+	 *            the name of the redraw thread
+	 * @param redraw
+	 *            the task doing the redraw
+	 * @param interval
+	 *            the minimal time in ms between the start of two redraws
+	 */
+	public RepaintScheduler(String name, Runnable redraw, long interval) {
+		this.redraw = redraw;
+		this.interval = interval;
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				schedule();
+			}
+		}, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Request a redraw, returns immediately. The request is merged into a pending redraw if
+	 * there is one, and dropped when the scheduler is stopped.
+	 */
+	public void requestRepaint() {
+		synchronized (lock) {
+			requested++;
+			if (!running) {
+				dropped++;
+			} else if (pending) {
+				merged++;
+			} else {
+				pending = true;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private void schedule() {
+		long lastRedraw = 0;
+		while (true) {
+			synchronized (lock) {
+				while (!pending && running) {
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						running = false;
+					}
+				}
+				if (!running) {
+					return;
+				}
+			}
+			long wait = lastRedraw + interval - System.currentTimeMillis();
+			if (wait > 0) {
+				try {
+					// The requests arriving meanwhile are merged into this redraw
+					Thread.sleep(wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			synchronized (lock) {
+				pending = false;
+				redraws++;
+			}
+			lastRedraw = System.currentTimeMillis();
+			try {
+				redraw.run();
+			} catch (RuntimeException e) {
+				LOGGER.error("Redraw failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Stop the scheduler, a pending redraw is not run anymore.
+	 */
+	public void stop() {
+		synchronized (lock) {
+			running = false;
+			lock.notifyAll();
+		}
+		LOGGER.info("Repaints requested: " + getRequested() + ", redrawn: " + getRedraws()
+		        + ", merged: " + getMerged() + ", dropped: " + getDropped());
+	}
+
+	/**
+	 * @return the number of redraws requested
+	 */
+	public long getRequested() {
+		synchronized (lock) {
+			return requested;
+		}
+	}
+
+	/**
+	 * @return the number of requests merged into an already pending redraw
+	 */
+	public long getMerged() {
+		synchronized (lock) {
+			return merged;
+		}
+	}
+
+	/**
+	 * @return the number of requests dropped because the scheduler was stopped
+	 */
+	public long getDropped() {
+		synchronized (lock) {
+			return dropped;
+		}
+	}
+
+	/**
+	 * @return the number of redraws started
+	 */
+	public long getRedraws() {
+		synchronized (lock) {
+			return redraws;
+		}
+	}
+}
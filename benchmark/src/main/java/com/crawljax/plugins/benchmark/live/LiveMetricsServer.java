@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.live;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.plugins.benchmark.dataset.BenchmarkRecord;
+import com.crawljax.plugins.benchmark.dataset.MetricsListener;
+import com.crawljax.plugins.benchmark.dataset.MetricsSnapshot;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the latest metrics snapshot on a local port. /metrics returns the Prometheus text format
+ * and /metrics.json returns JSON. The response is built from the snapshot only, so a request
+ * never touches the storage or the crawler threads.
+ * 
+ * @version $Id$
+ */
+public class LiveMetricsServer implements MetricsListener {
+
+	private static final Logger LOGGER = Logger.getLogger(LiveMetricsServer.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String PREFIX = "crawljax_benchmark_";
+
+	private static final int HTTP_OK = 200;
+	private static final int HTTP_UNAVAILABLE = 503;
+
+	private static final double NS_PER_SECOND = 1000000000.0;
+
+	private final int port;
+
+	private HttpServer server;
+
+	private volatile MetricsSnapshot snapshot;
+
+	/**
+	 * Create a new server, it is not started yet.
+	 * 
+	 * @param port
+	 *            the local port to listen on
+	 */
+	public LiveMetricsServer(int port) {
+		this.port = port;
+	}
+
+	/**
+	 * Start listening, does nothing when already started.
+	 * 
+	 * @throws IOException
+	 *             when the port can not be bound
+	 */
+	public synchronized void start() throws IOException {
+		if (server != null) {
+			return;
+		}
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		server.createContext("/metrics", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				boolean json = exchange.getRequestURI().getPath().endsWith(".json");
+				MetricsSnapshot current = snapshot;
+				if (current == null) {
+					respond(exchange, HTTP_UNAVAILABLE, "text/plain", "No metrics yet\n");
+				} else if (json) {
+					respond(exchange, HTTP_OK, "application/json", toJson(current));
+				} else {
+					respond(exchange, HTTP_OK, "text/plain; version=0.0.4",
+					        toPrometheus(current));
+				}
+			}
+		});
+		server.start();
+		LOGGER.info("Serving live benchmark metrics on http://localhost:" + port + "/metrics");
+	}
+
+	/**
+	 * Stop listening, does nothing when not started.
+	 */
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+
+	@Override
+	public void snapshotPublished(MetricsSnapshot newSnapshot) {
+		this.snapshot = newSnapshot;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String contentType,
+	        String body) throws IOException {
+		byte[] bytes = body.getBytes(UTF8);
+		exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Format a snapshot in the Prometheus text exposition format.
+	 * 
+	 * @param snapshot
+	 *            the snapshot to format
+	 * @return the formatted metrics
+	 */
+	public static String toPrometheus(MetricsSnapshot snapshot) {
+		BenchmarkRecord total = snapshot.getTotal();
+		StringBuilder out = new StringBuilder();
+		gauge(out, "visits", "Visited states", total.getCountNr());
+		gauge(out, "states", "States in the state flow graph", total.getStates());
+		gauge(out, "edges", "Edges in the state flow graph", total.getEdges());
+		gauge(out, "runtime_seconds", "Time since the start of the crawl",
+		        total.getRuntime() / 1000.0);
+		gauge(out, "memory_bytes", "Memory size of the state flow graph", total
+		        .getMemorySize());
+		gauge(out, "depth", "Depth of the last visited state", total.getDepth());
+		gauge(out, "revisited_states", "Revisited states", total.getRevisitedStates());
+		gauge(out, "revisited_edges", "Revisited edges", total.getRevisitedEdges());
+		gauge(out, "cpu_seconds", "Cpu time of the crawler threads", total.getCpuTime()
+		        / NS_PER_SECOND);
+		gauge(out, "allocated_bytes", "Bytes allocated by the crawler threads", total
+		        .getAllocatedBytes());
+		gauge(out, "gc_collections", "Garbage collections", total.getGcCount());
+		gauge(out, "gc_seconds", "Time spent in garbage collection", total.getGcTime() / 1000.0);
+		gauge(out, "window_seconds", "Length of the rolling window",
+		        snapshot.getWindowMillis() / 1000.0);
+		gauge(out, "window_visits_per_second", "Visited states per second in the window",
+		        snapshot.getVisitsPerSecond());
+		gauge(out, "window_states_per_second", "New states per second in the window", snapshot
+		        .getStatesPerSecond());
+		gauge(out, "window_edges_per_second", "New edges per second in the window", snapshot
+		        .getEdgesPerSecond());
+		gauge(out, "window_allocated_bytes_per_second",
+		        "Bytes allocated per second in the window", snapshot
+		                .getAllocatedBytesPerSecond());
+		gauge(out, "window_cpu_utilisation", "Cpu time per wall time in the window", snapshot
+		        .getCpuUtilisation());
+		return out.toString();
+	}
+
+	private static void gauge(StringBuilder out, String name, String help, double value) {
+		gauge(out, name, help, number(value));
+	}
+
+	private static void gauge(StringBuilder out, String name, String help, long value) {
+		gauge(out, name, help, String.valueOf(value));
+	}
+
+	private static void gauge(StringBuilder out, String name, String help, String value) {
+		out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+		out.append(PREFIX).append(name).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Format a snapshot as a JSON object.
+	 * 
+	 * @param snapshot
+	 *            the snapshot to format
+	 * @return the JSON text
+	 */
+	public static String toJson(MetricsSnapshot snapshot) {
+		BenchmarkRecord total = snapshot.getTotal();
+		StringBuilder out = new StringBuilder();
+		out.append("{\"time\":").append(snapshot.getTime());
+		out.append(",\"total\":{");
+		out.append("\"visits\":").append(total.getCountNr());
+		out.append(",\"states\":").append(total.getStates());
+		out.append(",\"edges\":").append(total.getEdges());
+		out.append(",\"runtime\":").append(total.getRuntime());
+		out.append(",\"memorySize\":").append(total.getMemorySize());
+		out.append(",\"depth\":").append(total.getDepth());
+		out.append(",\"revisitedStates\":").append(total.getRevisitedStates());
+		out.append(",\"revisitedEdges\":").append(total.getRevisitedEdges());
+		out.append(",\"cpuTime\":").append(total.getCpuTime());
+		out.append(",\"allocatedBytes\":").append(total.getAllocatedBytes());
+		out.append(",\"gcCount\":").append(total.getGcCount());
+		out.append(",\"gcTime\":").append(total.getGcTime());
+		out.append("},\"window\":{");
+		out.append("\"millis\":").append(snapshot.getWindowMillis());
+		out.append(",\"visitsPerSecond\":").append(number(snapshot.getVisitsPerSecond()));
+		out.append(",\"statesPerSecond\":").append(number(snapshot.getStatesPerSecond()));
+		out.append(",\"edgesPerSecond\":").append(number(snapshot.getEdgesPerSecond()));
+		out.append(",\"allocatedBytesPerSecond\":").append(
+		        number(snapshot.getAllocatedBytesPerSecond()));
+		out.append(",\"cpuUtilisation\":").append(number(snapshot.getCpuUtilisation()));
+		out.append("}}");
+		return out.toString();
+	}
+
+	private static String number(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return "0";
+		}
+		return String.format(Locale.ENGLISH, "%.6g", value);
+	}
+}
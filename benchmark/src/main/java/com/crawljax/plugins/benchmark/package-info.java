@@ -10,8 +10,11 @@
 /**
  * Plugin to perform a benchmark on Crawljax. Notice: you need to add -javaagent:lib/classmexer.jar
  * to your commandline to get Memory calculation working InCrawlPlugins: The
- * BenchmarkCollectorPlugin only collects the data The BenchmarkGUIPlugin updates the GUI
- * PostCrawlPlugins: The BenchmarkProcessPlugin does the post processing (saving average data)
+ * BenchmarkCollectorPlugin only collects the data The BenchmarkGUIPlugin updates the GUI The
+ * BenchmarkMetricsPlugin serves the live metrics over http The BenchmarkProfilerPlugin records the
+ * durations of the crawl phases PostCrawlPlugins: The BenchmarkProcessPlugin does the post
+ * processing (saving average data) Tools: The compare.BenchmarkComparison compares the output of
+ * builds and fails on a significant slowdown
  * 
  * @version $Id: package-info.java 5979 2009-12-07 10:40:02Z stefan $
  * @author Stefan Lenselink <S.R.Lenselink@student.tudelft.nl>
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.compare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.crawljax.plugins.benchmark.dataset.BenchmarkDataset;
+import com.crawljax.plugins.benchmark.dataset.BenchmarkRecord;
+
+/**
+ * Tests the exit codes of BenchmarkComparison.run on sum records written to text files.
+ *
+ * @version $Id$
+ */
+public class BenchmarkComparisonTest {
+
+	private static final int STATES = 20;
+
+	private File folder;
+
+	private ByteArrayOutputStream output;
+	private ByteArrayOutputStream error;
+
+	/**
+	 * Create an empty folder for the datasets.
+	 */
+	@Before
+	public void createFolder() throws IOException {
+		folder = File.createTempFile("comparison", "");
+		assertTrue(folder.delete());
+		assertTrue(folder.mkdir());
+		output = new ByteArrayOutputStream();
+		error = new ByteArrayOutputStream();
+	}
+
+	/**
+	 * Remove the datasets.
+	 */
+	@After
+	public void deleteFolder() {
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	/**
+	 * Write a dataset of which every visit adds one state, the given runtime and no memory or cpu
+	 * time, like a crawl without the classmexer agent on a JVM without thread cpu time.
+	 */
+	private File write(String name, int firstState, long[] runtimeSteps) throws IOException {
+		BenchmarkDataset dataset = new BenchmarkDataset();
+		long runtime = 0;
+		for (int i = 0; i < runtimeSteps.length; i++) {
+			runtime += runtimeSteps[i];
+			BenchmarkRecord record = new BenchmarkRecord();
+			record.setCountNr(i + 1);
+			record.setStates(firstState + i);
+			record.setRuntime(runtime);
+			dataset.put(record.getCountNr(), record);
+		}
+		File file = new File(folder, name);
+		PrintStream stream = new PrintStream(file);
+		try {
+			dataset.save(stream);
+		} finally {
+			stream.close();
+		}
+		return file;
+	}
+
+	private static long[] steps(long first, long increment) {
+		long[] steps = new long[STATES];
+		for (int i = 0; i < STATES; i++) {
+			steps[i] = first + i * increment;
+		}
+		return steps;
+	}
+
+	private int run(File baseline, File candidate) {
+		return BenchmarkComparison.run(new String[] { baseline.getPath(), candidate.getPath() },
+		        new PrintStream(output), new PrintStream(error));
+	}
+
+	/**
+	 * A dataset compared with itself has no metric to test, every metric is unchanged.
+	 */
+	@Test
+	public void identicalDatasets() throws IOException {
+		File baseline = write("baseline", 1, steps(100, 3));
+		assertEquals(BenchmarkComparison.EXIT_OK, run(baseline, baseline));
+		assertEquals(3, output.toString().split("\tunchanged").length - 1);
+		assertEquals("", error.toString());
+	}
+
+	/**
+	 * Every step 50% slower is a runtime regression, the metrics that are not measured stay
+	 * unchanged.
+	 */
+	@Test
+	public void slowdown() throws IOException {
+		File baseline = write("baseline", 1, steps(100, 3));
+		File candidate = write("candidate", 1, steps(150, 5));
+		assertEquals(BenchmarkComparison.EXIT_REGRESSION, run(baseline, candidate));
+		assertTrue(output.toString().contains("\tREGRESSION"));
+		assertEquals(2, output.toString().split("\tunchanged").length - 1);
+	}
+
+	/**
+	 * A candidate slightly faster and slower in turns is no regression, the unmeasured memory and
+	 * cpu time do not fail the comparison.
+	 */
+	@Test
+	public void unmeasuredMetric() throws IOException {
+		long[] noise = steps(100, 3);
+		for (int i = 0; i < noise.length; i++) {
+			noise[i] += i % 2 == 0 ? 1 : -1;
+		}
+		File baseline = write("baseline", 1, steps(100, 3));
+		File candidate = write("candidate", 1, noise);
+		assertEquals(BenchmarkComparison.EXIT_OK, run(baseline, candidate));
+		assertTrue(output.toString().contains("RUNTIME\t" + STATES + "\t" + STATES + "\t"));
+		assertTrue(output.toString().contains("\tok"));
+		assertEquals(2, output.toString().split("\tunchanged").length - 1);
+	}
+
+	/**
+	 * Datasets without a state count in common can not be compared.
+	 */
+	@Test
+	public void noCommonStates() throws IOException {
+		File baseline = write("baseline", 1, steps(100, 3));
+		File candidate = write("candidate", STATES + 1, steps(100, 3));
+		assertEquals(BenchmarkComparison.EXIT_ERROR, run(baseline, candidate));
+		assertTrue(error.toString().contains("no state count in common"));
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.compare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests SignedRankTest against the one sided 0.05 critical values of the Wilcoxon signed-rank
+ * table: the smaller rank sum T must be at most 10 for 10 pairs and at most 60 for 20 pairs.
+ *
+ * @version $Id$
+ */
+public class SignedRankTestTest {
+
+	private static final double DELTA = 1e-4;
+
+	/**
+	 * Pairs whose differences have the ranks 1 to n, the given ranks negative.
+	 */
+	private static double[][] pairs(int n, int... negativeRanks) {
+		double[] baseline = new double[n];
+		double[] candidate = new double[n];
+		for (int i = 0; i < n; i++) {
+			baseline[i] = 100;
+			candidate[i] = 100 + i + 1;
+		}
+		for (int rank : negativeRanks) {
+			candidate[rank - 1] = 100 - rank;
+		}
+		return new double[][] { baseline, candidate };
+	}
+
+	private static double pValue(double[][] pairs) {
+		return SignedRankTest.greaterPValue(pairs[0], pairs[1]);
+	}
+
+	/**
+	 * The critical value of 10 pairs is significant, one rank more is not.
+	 */
+	@Test
+	public void tenPairs() {
+		double critical = pValue(pairs(10, 1, 2, 3, 4));
+		assertTrue(critical < 0.05);
+		// The exact p-value of T = 10 is 0.042
+		assertEquals(0.042, critical, 0.005);
+		double above = pValue(pairs(10, 1, 2, 3, 5));
+		assertTrue(above > 0.05);
+		// The exact p-value of T = 11 is 0.053
+		assertEquals(0.053, above, 0.005);
+	}
+
+	/**
+	 * The critical value of 20 pairs is significant, one rank more is not.
+	 */
+	@Test
+	public void twentyPairs() {
+		assertTrue(pValue(pairs(20, 1, 2, 3, 4, 5, 6, 7, 8, 9, 15)) < 0.05);
+		assertTrue(pValue(pairs(20, 1, 2, 3, 4, 5, 6, 7, 8, 9, 16)) > 0.05);
+	}
+
+	/**
+	 * Equal pairs are dropped and fewer than the minimal number of differing pairs can not be
+	 * tested.
+	 */
+	@Test
+	public void insufficientData() {
+		double[] baseline = { 1, 2, 3, 4, 5, 6 };
+		double[] candidate = { 2, 3, 4, 5, 5, 6 };
+		assertTrue(Double.isNaN(SignedRankTest.greaterPValue(baseline, candidate)));
+		assertTrue(Double.isNaN(SignedRankTest.greaterPValue(new double[0], new double[0])));
+		assertTrue(pValue(pairs(SignedRankTest.MINIMUM_PAIRS)) < 0.05);
+	}
+
+	/**
+	 * Tied differences share their rank, all ties give no evidence either way.
+	 */
+	@Test
+	public void ties() {
+		double[] baseline = { 0, 0, 0, 0, 0, 0 };
+		double[] candidate = { 1, -1, 1, -1, 1, -1 };
+		double p = SignedRankTest.greaterPValue(baseline, candidate);
+		assertTrue(p > 0.5);
+		assertTrue(p < 1);
+	}
+
+	/**
+	 * Samples of a different length are not paired.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unpaired() {
+		SignedRankTest.greaterPValue(new double[5], new double[6]);
+	}
+
+	/**
+	 * The normal distribution of the approximation.
+	 */
+	@Test
+	public void normalCdf() {
+		assertEquals(0.5, SignedRankTest.normalCdf(0), DELTA);
+		assertEquals(0.975, SignedRankTest.normalCdf(1.959964), DELTA);
+		assertEquals(0.025, SignedRankTest.normalCdf(-1.959964), DELTA);
+		assertEquals(0.8413, SignedRankTest.normalCdf(1), DELTA);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that BenchmarkRecordLog writes every record when it is appended.
+ *
+ * @version $Id$
+ */
+public class BenchmarkRecordLogTest {
+
+	private File file;
+
+	/**
+	 * Reserve a file name for the log.
+	 */
+	@Before
+	public void createFile() throws IOException {
+		file = File.createTempFile("records", ".bin");
+		assertTrue(file.delete());
+	}
+
+	/**
+	 * Remove the log.
+	 */
+	@After
+	public void deleteFile() {
+		file.delete();
+	}
+
+	private static BenchmarkRecord record(int countNr) {
+		BenchmarkRecord record = new BenchmarkRecord();
+		record.setCountNr(countNr);
+		record.setStateId("state" + countNr);
+		record.setStates(countNr);
+		record.setRuntime(countNr * 1000L);
+		record.setCpuTime(countNr * 7L);
+		return record;
+	}
+
+	/**
+	 * A record can be read back as soon as it is appended, before the log is flushed or closed.
+	 */
+	@Test
+	public void appendedRecordIsWritten() throws IOException {
+		BenchmarkRecordLog log = new BenchmarkRecordLog(file);
+		try {
+			log.append(record(1));
+			BenchmarkDataset dataset = new BenchmarkDataset();
+			assertEquals(1, BenchmarkRecordLog.read(file, dataset));
+			log.append(record(2));
+			dataset = new BenchmarkDataset();
+			assertEquals(2, BenchmarkRecordLog.read(file, dataset));
+			BenchmarkRecord read = dataset.get(2);
+			assertEquals("state2", read.getStateId());
+			assertEquals(2000L, read.getRuntime());
+			assertEquals(14L, read.getCpuTime());
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * A log opened again appends after the records written before.
+	 */
+	@Test
+	public void reopenAppends() throws IOException {
+		BenchmarkRecordLog log = new BenchmarkRecordLog(file);
+		log.append(record(1));
+		log.close();
+		log = new BenchmarkRecordLog(file);
+		log.append(record(2));
+		log.close();
+		assertEquals(2, BenchmarkRecordLog.read(file, new BenchmarkDataset()));
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the depths of DepthIndex against a breadth first search on the edges added so far.
+ *
+ * @version $Id$
+ */
+public class DepthIndexTest {
+
+	private static final String INDEX = "index";
+
+	private final DepthIndex index = new DepthIndex();
+	private final List<String[]> edges = new ArrayList<String[]>();
+
+	/**
+	 * The depths of a breadth first search from the index state, 0 for unreachable states.
+	 */
+	private Map<String, Integer> search() {
+		Map<String, Integer> depths = new HashMap<String, Integer>();
+		depths.put(INDEX, 0);
+		LinkedList<String> queue = new LinkedList<String>();
+		queue.add(INDEX);
+		while (!queue.isEmpty()) {
+			String state = queue.removeFirst();
+			for (String[] edge : edges) {
+				if (edge[0].equals(state) && !depths.containsKey(edge[1])) {
+					depths.put(edge[1], depths.get(state) + 1);
+					queue.add(edge[1]);
+				}
+			}
+		}
+		return depths;
+	}
+
+	/**
+	 * Add an edge to the index and check the depth of every state against the search.
+	 */
+	private void add(String source, String target) {
+		edges.add(new String[] { source, target });
+		index.addEdge(source, target);
+		Map<String, Integer> expected = search();
+		for (String[] edge : edges) {
+			for (String state : edge) {
+				Integer depth = expected.get(state);
+				assertEquals(state, depth == null ? 0 : depth.intValue(), index.getDepth(state));
+			}
+		}
+		assertEquals(expected.size(), index.size());
+	}
+
+	/**
+	 * An edge that shortens an existing path repairs the depths behind it.
+	 */
+	@Test
+	public void shorterPath() {
+		index.setIndex(INDEX);
+		add(INDEX, "a");
+		add("a", "b");
+		add("b", "c");
+		add("c", "d");
+		add("d", "e");
+		assertEquals(5, index.getDepth("e"));
+		add(INDEX, "c");
+		assertEquals(1, index.getDepth("c"));
+		assertEquals(3, index.getDepth("e"));
+	}
+
+	/**
+	 * Edges added before their source is reachable get a depth once it is.
+	 */
+	@Test
+	public void unreachableFirst() {
+		index.setIndex(INDEX);
+		add("c", "d");
+		add("b", "c");
+		add("d", "e");
+		assertEquals(0, index.getDepth("e"));
+		add(INDEX, "b");
+		assertEquals(4, index.getDepth("e"));
+	}
+
+	/**
+	 * Cycles and self loops do not change the depths.
+	 */
+	@Test
+	public void cyclesAndSelfLoops() {
+		index.setIndex(INDEX);
+		add(INDEX, INDEX);
+		add(INDEX, "a");
+		add("a", "a");
+		add("a", "b");
+		add("b", INDEX);
+		add("b", "a");
+		add("b", "c");
+		add("c", "b");
+		assertEquals(0, index.getDepth(INDEX));
+		assertEquals(3, index.getDepth("c"));
+	}
+
+	/**
+	 * A state that is not known to the index has depth 0.
+	 */
+	@Test
+	public void unknownState() {
+		assertEquals(0, index.getDepth("unknown"));
+		index.setIndex(INDEX);
+		add(INDEX, "a");
+		assertEquals(0, index.getDepth("unknown"));
+		assertEquals(2, index.size());
+	}
+
+	/**
+	 * Random small graphs, the edges added in random order.
+	 */
+	@Test
+	public void randomGraphs() {
+		Random random = new Random(1);
+		for (int graph = 0; graph < 50; graph++) {
+			DepthIndexTest test = new DepthIndexTest();
+			test.index.setIndex(INDEX);
+			int states = 2 + random.nextInt(10);
+			for (int i = 0; i < states * 2; i++) {
+				test.add(name(random.nextInt(states)), name(random.nextInt(states)));
+			}
+		}
+	}
+
+	private static String name(int state) {
+		return state == 0 ? INDEX : "state" + state;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the bucket bounds and the quantiles of LogHistogram.
+ *
+ * @version $Id$
+ */
+public class LogHistogramTest {
+
+	/**
+	 * The values below SUB_BUCKETS have a bucket of their own.
+	 */
+	@Test
+	public void smallValuesAreExact() {
+		for (int value = 0; value < LogHistogram.SUB_BUCKETS; value++) {
+			assertEquals(value, LogHistogram.bucketOf(value));
+			assertEquals((long) value, LogHistogram.valueOf(value));
+		}
+		assertEquals(LogHistogram.SUB_BUCKETS, LogHistogram.bucketOf(LogHistogram.SUB_BUCKETS));
+	}
+
+	/**
+	 * Every power of two starts a new bucket right after the bucket of the value before it.
+	 */
+	@Test
+	public void powersOfTwoStartABucket() {
+		for (int exponent = 7; exponent < Long.SIZE - 1; exponent++) {
+			long power = 1L << exponent;
+			int bucket = LogHistogram.bucketOf(power);
+			assertEquals(bucket - 1, LogHistogram.bucketOf(power - 1));
+			assertEquals(bucket, LogHistogram.bucketOf(power + (power >>> 8)));
+		}
+		assertTrue(LogHistogram.bucketOf(Long.MAX_VALUE) < LogHistogram.BUCKETS);
+	}
+
+	/**
+	 * The middle value of a bucket is in the bucket and within the relative error of the values
+	 * in it.
+	 */
+	@Test
+	public void middleValueIsInTheBucket() {
+		for (int bucket = LogHistogram.SUB_BUCKETS; bucket <= LogHistogram
+		        .bucketOf(Long.MAX_VALUE); bucket++) {
+			long middle = LogHistogram.valueOf(bucket);
+			assertEquals(bucket, LogHistogram.bucketOf(middle));
+		}
+		long[] values = { 128, 129, 1000, 123456, 987654321, Long.MAX_VALUE / 3 };
+		for (long value : values) {
+			long estimate = LogHistogram.valueOf(LogHistogram.bucketOf(value));
+			assertTrue(Math.abs(estimate - value) <= (double) value / LogHistogram.SUB_BUCKETS);
+		}
+	}
+
+	/**
+	 * The quantiles of negative and positive values are in the order of the values.
+	 */
+	@Test
+	public void quantiles() {
+		LogHistogram histogram = new LogHistogram();
+		assertEquals(0L, histogram.getQuantile(0.5));
+		for (int value = -50; value <= 49; value++) {
+			histogram.add(value);
+		}
+		assertEquals(100L, histogram.getTotal());
+		assertEquals(-50L, histogram.getQuantile(0));
+		assertEquals(-1L, histogram.getQuantile(0.5));
+		assertEquals(44L, histogram.getQuantile(0.95));
+		assertEquals(49L, histogram.getQuantile(1));
+	}
+
+	/**
+	 * A merged histogram has the quantiles of all the values.
+	 */
+	@Test
+	public void merge() {
+		LogHistogram low = new LogHistogram();
+		LogHistogram high = new LogHistogram();
+		for (int value = 1; value <= 100; value++) {
+			if (value % 2 == 0) {
+				low.add(value);
+			} else {
+				high.add(value);
+			}
+		}
+		low.merge(high);
+		assertEquals(100L, low.getTotal());
+		assertEquals(50L, low.getQuantile(0.5));
+		assertEquals(99L, low.getQuantile(0.99));
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the running mean and variance of MetricStatistics against a two pass calculation.
+ *
+ * @version $Id$
+ */
+public class MetricStatisticsTest {
+
+	private static final double DELTA = 1e-6;
+
+	/**
+	 * The mean and the sample variance of the values, calculated in two passes.
+	 */
+	private static double[] twoPass(long[] values) {
+		double sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+		double mean = sum / values.length;
+		double squares = 0;
+		for (long value : values) {
+			squares += (value - mean) * (value - mean);
+		}
+		return new double[] { mean, squares / (values.length - 1) };
+	}
+
+	private static long[] randomValues(int count, long seed) {
+		Random random = new Random(seed);
+		long[] values = new long[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = 1000000 + random.nextInt(5000);
+		}
+		return values;
+	}
+
+	/**
+	 * Adding the values one by one gives the two pass mean and variance.
+	 */
+	@Test
+	public void addMatchesTwoPass() {
+		long[] values = randomValues(1000, 1);
+		MetricStatistics statistics = new MetricStatistics();
+		for (long value : values) {
+			statistics.add(value);
+		}
+		double[] expected = twoPass(values);
+		assertEquals((long) values.length, statistics.getCount());
+		assertEquals(expected[0], statistics.getMean(), DELTA);
+		assertEquals(expected[1], statistics.getVariance(), expected[1] * DELTA);
+	}
+
+	/**
+	 * Merging the statistics of parts of the values gives the two pass result of all the values.
+	 */
+	@Test
+	public void mergeMatchesTwoPass() {
+		long[] values = randomValues(1000, 2);
+		MetricStatistics merged = new MetricStatistics();
+		int[] bounds = { 0, 1, 250, 251, 700, 1000 };
+		for (int part = 0; part + 1 < bounds.length; part++) {
+			MetricStatistics statistics = new MetricStatistics();
+			for (int i = bounds[part]; i < bounds[part + 1]; i++) {
+				statistics.add(values[i]);
+			}
+			merged.merge(statistics);
+		}
+		merged.merge(new MetricStatistics());
+
+		double[] expected = twoPass(values);
+		assertEquals((long) values.length, merged.getCount());
+		assertEquals(expected[0], merged.getMean(), DELTA);
+		assertEquals(expected[1], merged.getVariance(), expected[1] * DELTA);
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (long value : values) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		assertEquals(min, merged.getMin());
+		assertEquals(max, merged.getMax());
+	}
+
+	/**
+	 * Empty statistics and a single value have no variance.
+	 */
+	@Test
+	public void emptyAndSingleValue() {
+		MetricStatistics statistics = new MetricStatistics();
+		assertEquals(0L, statistics.getMin());
+		assertEquals(0L, statistics.getMax());
+		assertEquals(0L, statistics.getQuantile(0.5));
+		statistics.add(42);
+		assertEquals(42, statistics.getMean(), DELTA);
+		assertEquals(0, statistics.getVariance(), DELTA);
+		assertEquals(0, statistics.getConfidenceInterval95(), DELTA);
+	}
+
+	/**
+	 * The statistics read back are the statistics written.
+	 */
+	@Test
+	public void writeAndRead() throws IOException {
+		MetricStatistics statistics = new MetricStatistics();
+		for (long value : randomValues(100, 3)) {
+			statistics.add(value);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		statistics.write(new DataOutputStream(bytes));
+		MetricStatistics read = new MetricStatistics();
+		read.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertEquals(statistics.getCount(), read.getCount());
+		assertEquals(statistics.getMean(), read.getMean(), DELTA);
+		assertEquals(statistics.getVariance(), read.getVariance(), DELTA);
+		assertEquals(statistics.getMin(), read.getMin());
+		assertEquals(statistics.getMax(), read.getMax());
+		assertEquals(statistics.getQuantile(0.95), read.getQuantile(0.95));
+	}
+}
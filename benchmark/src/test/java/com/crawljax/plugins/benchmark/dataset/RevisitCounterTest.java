@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the counts of RevisitCounter, also after its table has grown.
+ *
+ * @version $Id$
+ */
+public class RevisitCounterTest {
+
+	/**
+	 * The first visit counts 0, every revisit one more.
+	 */
+	@Test
+	public void countsRevisits() {
+		RevisitCounter counter = new RevisitCounter();
+		assertEquals(0, counter.get("index"));
+		assertEquals(0, counter.increment("index"));
+		assertEquals(1, counter.increment("index"));
+		assertEquals(2, counter.increment("index"));
+		assertEquals(0, counter.increment("state1"));
+		assertEquals(2, counter.get("index"));
+		assertEquals(0, counter.get("state1"));
+		assertEquals(2, counter.size());
+		assertEquals(2, counter.getTotal());
+	}
+
+	/**
+	 * The counts survive the growing of the table.
+	 */
+	@Test
+	public void grows() {
+		RevisitCounter counter = new RevisitCounter();
+		int keys = 1000;
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < keys; i++) {
+				assertEquals(round, counter.increment("state" + i));
+			}
+		}
+		assertEquals(keys, counter.size());
+		assertEquals(2 * keys, counter.getTotal());
+		for (int i = 0; i < keys; i++) {
+			assertEquals(2, counter.get("state" + i));
+		}
+		assertEquals(0, counter.get("state" + keys));
+	}
+
+	/**
+	 * Ids are counted apart from names and survive the growing of their table, also when they
+	 * differ only in their high bits.
+	 */
+	@Test
+	public void countsIds() {
+		RevisitCounter counter = new RevisitCounter();
+		assertEquals(0, counter.increment("1"));
+		assertEquals(0, counter.increment(1L));
+		assertEquals(1, counter.increment(1L));
+		assertEquals(0, counter.get("1"));
+		int ids = 1000;
+		for (int round = 0; round < 2; round++) {
+			for (long i = 0; i < ids; i++) {
+				assertEquals(round, counter.increment(i << 32));
+			}
+		}
+		assertEquals(1, counter.get(1L));
+		assertEquals(1, counter.get(0L));
+		assertEquals(1, counter.get((long) (ids - 1) << 32));
+		assertEquals(0, counter.get((long) ids << 32));
+		assertEquals(ids + 2, counter.size());
+		assertEquals(ids + 1, counter.getTotal());
+	}
+}
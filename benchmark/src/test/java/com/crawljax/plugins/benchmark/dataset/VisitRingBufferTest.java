@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the capacity, the order and the wraparound of VisitRingBuffer.
+ *
+ * @version $Id$
+ */
+public class VisitRingBufferTest {
+
+	/**
+	 * The capacity is rounded up to a power of two and a full buffer refuses elements.
+	 */
+	@Test
+	public void fullBufferRefuses() {
+		VisitRingBuffer<Integer> buffer = new VisitRingBuffer<Integer>(3);
+		assertNull(buffer.poll());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertEquals(4L, buffer.getPublished());
+		assertEquals(Integer.valueOf(0), buffer.poll());
+		assertTrue(buffer.offer(4));
+		assertFalse(buffer.offer(5));
+	}
+
+	/**
+	 * The elements come out in the order they were added while the positions wrap around the
+	 * slots many times.
+	 */
+	@Test
+	public void wrapsAround() {
+		VisitRingBuffer<Integer> buffer = new VisitRingBuffer<Integer>(4);
+		int next = 0;
+		int expected = 0;
+		for (int round = 0; round < 100; round++) {
+			int added = round % 4 + 1;
+			for (int i = 0; i < added; i++) {
+				assertTrue(buffer.offer(next++));
+			}
+			for (int i = 0; i < added; i++) {
+				assertEquals(Integer.valueOf(expected++), buffer.poll());
+			}
+			assertNull(buffer.poll());
+		}
+		assertEquals((long) next, buffer.getPublished());
+	}
+
+	/**
+	 * Every element put by concurrent producers is taken exactly once by the consumer.
+	 */
+	@Test
+	public void concurrentProducers() throws InterruptedException {
+		final int producers = 4;
+		final int perProducer = 10000;
+		final VisitRingBuffer<Integer> buffer = new VisitRingBuffer<Integer>(16);
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final int first = p * perProducer;
+			threads[p] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < perProducer; i++) {
+						buffer.put(first + i);
+					}
+				}
+			};
+			threads[p].start();
+		}
+		boolean[] seen = new boolean[producers * perProducer];
+		int[] last = new int[producers];
+		for (int p = 0; p < producers; p++) {
+			last[p] = -1;
+		}
+		int taken = 0;
+		while (taken < seen.length) {
+			Integer element = buffer.poll();
+			if (element == null) {
+				Thread.yield();
+				continue;
+			}
+			assertFalse(seen[element]);
+			seen[element] = true;
+			// The elements of one producer keep their order
+			int producer = element / perProducer;
+			assertTrue(element > last[producer]);
+			last[producer] = element;
+			taken++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(buffer.poll());
+		assertEquals((long) seen.length, buffer.getPublished());
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.benchmark.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the points selected by LttbDownsampler.
+ *
+ * @version $Id$
+ */
+public class LttbDownsamplerTest {
+
+	private static long[] series(int count) {
+		long[] values = new long[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = i;
+		}
+		return values;
+	}
+
+	/**
+	 * A series that fits the threshold, or a threshold below 3, keeps all the points.
+	 */
+	@Test
+	public void keepsAllPoints() {
+		long[] x = series(10);
+		assertEquals(10, LttbDownsampler.downsample(x, x, 10, 10).length);
+		assertEquals(10, LttbDownsampler.downsample(x, x, 10, 20).length);
+		int[] all = LttbDownsampler.downsample(x, x, 10, 2);
+		assertEquals(10, all.length);
+		for (int i = 0; i < all.length; i++) {
+			assertEquals(i, all[i]);
+		}
+	}
+
+	/**
+	 * The first and the last point are kept and the selected points are ascending.
+	 */
+	@Test
+	public void selectsThresholdPoints() {
+		int count = 1000;
+		long[] x = series(count);
+		long[] y = new long[count];
+		for (int i = 0; i < count; i++) {
+			y[i] = (i * 7919L) % 101;
+		}
+		int[] selected = LttbDownsampler.downsample(x, y, count, 50);
+		assertEquals(50, selected.length);
+		assertEquals(0, selected[0]);
+		assertEquals(count - 1, selected[selected.length - 1]);
+		for (int i = 1; i < selected.length; i++) {
+			assertTrue(selected[i] > selected[i - 1]);
+		}
+	}
+
+	/**
+	 * A single peak in a flat line is always selected.
+	 */
+	@Test
+	public void keepsPeak() {
+		int count = 500;
+		long[] x = series(count);
+		long[] y = new long[count];
+		y[317] = 1000;
+		int[] selected = LttbDownsampler.downsample(x, y, count, 10);
+		boolean peak = false;
+		for (int index : selected) {
+			peak |= index == 317;
+		}
+		assertTrue(peak);
+	}
+}
@@ -17,13 +17,17 @@ var OFFSET_X = -40;
 var OFFSET_Y = -42;
 
 var IMG_NORMAL = 80;
+// the default thumbnail width of CrawlOverview, full screenshots are scaled down to it
+var IMG_ZOOM_MAX = 400;
 
 function stateZoom(el){
 	var newImg = new Image();
 	newImg.src = el.src;
 	el.parentNode.parentNode.style.zIndex = 100;
-	el.style.width = (newImg.width * .4) + "px";
-	el.style.height = (newImg.height * .4) + "px";
+	// the thumbnails are already scaled down, show them at their own size up to IMG_ZOOM_MAX
+	var scale = newImg.width > IMG_ZOOM_MAX ? IMG_ZOOM_MAX / newImg.width : 1;
+	el.style.width = Math.round(newImg.width * scale) + "px";
+	el.style.height = Math.round(newImg.height * scale) + "px";
 }
 
 
@@ -41,16 +45,83 @@ function loadState(name){
 
 function updateState(newState){
 	document.getElementById("currentState").innerHTML= newState;
-	document.getElementById("link" + selectedState).style.color = "black";
-	document.getElementById("link" + selectedState).style.fontWeight = "normal";
-	document.getElementById("img" + selectedState).style.borderColor = "black";
-
-	document.getElementById("link" + newState).style.color = "red";
-	document.getElementById("link" + newState).style.fontWeight = "bold";
-	document.getElementById("img" + newState).style.borderColor = "red";
+	highlightState(selectedState, "black", "normal");
+	highlightState(newState, "red", "bold");
 	selectedState = newState;
 }
 
+// the states are added while the graph data loads, they may not be there yet
+function highlightState(name, color, weight){
+	var link = document.getElementById("link" + name);
+	if(link == null){
+		return;
+	}
+	link.style.color = color;
+	link.style.fontWeight = weight;
+	document.getElementById("img" + name).style.borderColor = color;
+}
+
+var graphEdges = new Array();
+var nextGraphChunk = null;
+
+// the graph data is split in chunks, every chunk ends with the name of the next one. A chunk of
+// a report that is still being written (or of a crawl that was killed) has no end, the graph is
+// shown with the data loaded so far then.
+function loadGraphData(src){
+	var script = document.createElement('script');
+	script.type = 'text/javascript';
+	script.src = src;
+	nextGraphChunk = null;
+	script.onload = graphChunkLoaded;
+	script.onerror = graphChunkLoaded;
+	document.getElementsByTagName('head')[0].appendChild(script);
+}
+
+function graphChunkLoaded(){
+	if(nextGraphChunk != null){
+		loadGraphData("data/" + nextGraphChunk);
+	}else{
+		highlightState(selectedState, "red", "bold");
+		generateGraph();
+	}
+}
+
+function nextGraphData(next){
+	nextGraphChunk = next;
+}
+
+function addGraphData(record){
+	if(record.from != undefined){
+		graphEdges.push(record);
+	}else{
+		document.getElementById("graphPanel").insertBefore(createStateNode(record),
+				document.getElementById("graph"));
+	}
+}
+
+function createStateNode(state){
+	var node = document.createElement('div');
+	node.id = state.name;
+	var link = document.createElement('a');
+	link.id = "link" + state.name;
+	link.href = "javascript:void(0)";
+	link.title = state.url;
+	link.onclick = function(){ loadState(state.name); };
+	var img = document.createElement('img');
+	img.src = state.thumbnail;
+	img.setAttribute("loading", "lazy");
+	img.id = "img" + state.name;
+	img.style.width = IMG_NORMAL + "px";
+	img.style.height = IMG_NORMAL + "px";
+	img.onmouseover = function(){ stateZoom(this); };
+	img.onmouseout = function(){ stateUnzoom(this); };
+	link.appendChild(img);
+	link.appendChild(document.createElement('br'));
+	link.appendChild(document.createTextNode(state.id));
+	node.appendChild(link);
+	return node;
+}
+
 function zoom(value){
 	currentZoom = currentZoom + value;
 	document.getElementById('zoom').innerHTML = currentZoom + "%";
@@ -0,0 +1,248 @@
+/*
+ * CrawlOverview is a plugin for Crawljax that generates a nice HTML report to visually see the
+ * inferred state graph. Copyright (C) 2010 crawljax.com This program is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version. This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.crawloverview;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Stores the rendered candidate elements of the states of one crawl. The crawler threads add the
+ * elements concurrently, the elements of a state are kept in arrays of their identification
+ * values and coordinates.
+ * <p>
+ * When more than maximumInMemory elements are kept, the elements in memory are appended to a
+ * file per state in the spill folder, reading the elements of a state combines its file and the
+ * elements added since.
+ * </p>
+ *
+ * @version $Id$
+ */
+public class CandidateElementStore {
+
+	private static final Logger LOGGER = Logger.getLogger(CandidateElementStore.class);
+
+	private static final String SPILL_SUFFIX = ".candidates";
+
+	private final ConcurrentHashMap<String, Candidates> states =
+	        new ConcurrentHashMap<String, Candidates>();
+	private final AtomicInteger inMemory = new AtomicInteger();
+	private final int maximumInMemory;
+	private final File spillFolder;
+
+	/**
+	 * @param spillFolder
+	 *            the folder for the elements that do not fit in memory
+	 * @param maximumInMemory
+	 *            the maximum number of elements kept in memory, 0 never spills to disk
+	 */
+	public CandidateElementStore(File spillFolder, int maximumInMemory) {
+		this.spillFolder = spillFolder;
+		this.maximumInMemory = maximumInMemory;
+	}
+
+	/**
+	 * Add an element of a state.
+	 *
+	 * @param state
+	 *            the name of the state
+	 * @param identification
+	 *            the value of the identification of the element
+	 */
+	public void add(String state, String identification, int x, int y, int width, int height) {
+		Candidates candidates = states.get(state);
+		if (candidates == null) {
+			Candidates created = new Candidates(new File(spillFolder, state + SPILL_SUFFIX));
+			candidates = states.putIfAbsent(state, created);
+			if (candidates == null) {
+				candidates = created;
+			}
+		}
+		candidates.add(identification, x, y, width, height);
+		if (maximumInMemory > 0 && inMemory.incrementAndGet() > maximumInMemory) {
+			spill();
+		}
+	}
+
+	/**
+	 * @param state
+	 *            the name of the state
+	 * @return the elements of the state in the order they were added, null when the state has
+	 *         none
+	 */
+	public List<RenderedCandidateElement> get(String state) {
+		Candidates candidates = states.get(state);
+		if (candidates == null) {
+			return null;
+		}
+		try {
+			return candidates.read();
+		} catch (IOException e) {
+			LOGGER.error("Could not read the candidate elements of " + state, e);
+			return candidates.readMemory();
+		}
+	}
+
+	/**
+	 * Remove all elements and their spill files.
+	 */
+	public synchronized void clear() {
+		for (Candidates candidates : states.values()) {
+			candidates.clear();
+		}
+		states.clear();
+		inMemory.set(0);
+	}
+
+	private synchronized void spill() {
+		if (inMemory.get() <= maximumInMemory) {
+			// another thread spilled already
+			return;
+		}
+		if (!spillFolder.exists() && !spillFolder.mkdirs()) {
+			LOGGER.error("Could not create " + spillFolder + ", keeping candidates in memory");
+			return;
+		}
+		int spilled = 0;
+		for (Candidates candidates : states.values()) {
+			try {
+				spilled += candidates.spill();
+			} catch (IOException e) {
+				LOGGER.error("Could not spill the candidate elements to " + spillFolder, e);
+			}
+		}
+		inMemory.addAndGet(-spilled);
+		LOGGER.debug("Spilled " + spilled + " candidate elements to " + spillFolder);
+	}
+
+	/**
+	 * The elements of one state.
+	 */
+	private static class Candidates {
+
+		private static final int INITIAL_CAPACITY = 16;
+		private static final int COORDINATES = 4;
+
+		private final File file;
+
+		private String[] identifications = new String[INITIAL_CAPACITY];
+		private int[] coordinates = new int[INITIAL_CAPACITY * COORDINATES];
+		private int size;
+		private boolean spilled;
+
+		public Candidates(File file) {
+			this.file = file;
+		}
+
+		public synchronized void add(String identification, int x, int y, int width, int height) {
+			if (size == identifications.length) {
+				identifications = Arrays.copyOf(identifications, size * 2);
+				coordinates = Arrays.copyOf(coordinates, size * 2 * COORDINATES);
+			}
+			identifications[size] = identification;
+			int offset = size * COORDINATES;
+			coordinates[offset] = x;
+			coordinates[offset + 1] = y;
+			coordinates[offset + 2] = width;
+			coordinates[offset + 3] = height;
+			size++;
+		}
+
+		public synchronized List<RenderedCandidateElement> read() throws IOException {
+			List<RenderedCandidateElement> elements = new ArrayList<RenderedCandidateElement>();
+			if (spilled) {
+				DataInputStream in =
+				        new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				try {
+					while (in.available() > 0) {
+						elements.add(new RenderedCandidateElement(in.readUTF(), in.readInt(), in
+						        .readInt(), in.readInt(), in.readInt()));
+					}
+				} finally {
+					in.close();
+				}
+			}
+			addMemory(elements);
+			return elements;
+		}
+
+		public synchronized List<RenderedCandidateElement> readMemory() {
+			List<RenderedCandidateElement> elements = new ArrayList<RenderedCandidateElement>();
+			addMemory(elements);
+			return elements;
+		}
+
+		private void addMemory(List<RenderedCandidateElement> elements) {
+			for (int i = 0; i < size; i++) {
+				int offset = i * COORDINATES;
+				elements.add(new RenderedCandidateElement(identifications[i],
+				        coordinates[offset], coordinates[offset + 1], coordinates[offset + 2],
+				        coordinates[offset + 3]));
+			}
+		}
+
+		/**
+		 * Append the elements in memory to the file of the state.
+		 *
+		 * @return the number of elements written
+		 */
+		public synchronized int spill() throws IOException {
+			if (size == 0) {
+				return 0;
+			}
+			DataOutputStream out =
+			        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file,
+			                spilled)));
+			try {
+				for (int i = 0; i < size; i++) {
+					int offset = i * COORDINATES;
+					out.writeUTF(identifications[i]);
+					out.writeInt(coordinates[offset]);
+					out.writeInt(coordinates[offset + 1]);
+					out.writeInt(coordinates[offset + 2]);
+					out.writeInt(coordinates[offset + 3]);
+				}
+			} finally {
+				out.close();
+			}
+			spilled = true;
+			int written = size;
+			identifications = new String[INITIAL_CAPACITY];
+			coordinates = new int[INITIAL_CAPACITY * COORDINATES];
+			size = 0;
+			return written;
+		}
+
+		public synchronized void clear() {
+			if (spilled && !file.delete()) {
+				LOGGER.warn("Could not delete " + file);
+			}
+			identifications = new String[INITIAL_CAPACITY];
+			coordinates = new int[INITIAL_CAPACITY * COORDINATES];
+			size = 0;
+			spilled = false;
+		}
+	}
+
+}
@@ -13,28 +13,51 @@ package com.crawljax.plugins.crawloverview;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.openqa.selenium.OutputType;
 import org.openqa.selenium.RenderedWebElement;
+import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebElement;
 
+import com.crawljax.browser.EmbeddedBrowser;
+import com.crawljax.browser.WebDriverBackedEmbeddedBrowser;
 import com.crawljax.core.CandidateElement;
 import com.crawljax.core.CrawlSession;
-import com.crawljax.core.CrawljaxException;
 import com.crawljax.core.plugin.GeneratesOutput;
 import com.crawljax.core.plugin.OnNewStatePlugin;
+import com.crawljax.core.plugin.OnRevisitStatePlugin;
 import com.crawljax.core.plugin.PostCrawlingPlugin;
 import com.crawljax.core.plugin.PreStateCrawlingPlugin;
 import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Identification;
 import com.crawljax.core.state.StateFlowGraph;
 import com.crawljax.core.state.StateVertix;
 import com.crawljax.util.Helper;
@@ -44,12 +67,20 @@ import com.crawljax.util.Helper;
  * used to inspect what is crawled by Crawljax The report contains screenshots of the visited states
  * and the clicked elements are highlighted. The report also contains the state-flow graph in which
  * the visited states are linked together. WARNING: This plugin is still in alpha development!
+ * <p>
+ * In the incremental mode the report is written while crawling: the page of a state is written
+ * when its candidate elements are known and again when an edge from it is added, the states and
+ * edges are appended to the graph data of the index page. The crawler threads only append to the
+ * graph data and queue the names of the changed pages, a single page writer thread renders them.
+ * The report of a crawl that is stopped can be viewed, at the end of the crawl only the pages
+ * that changed since they were written are written again.
+ * </p>
  * 
  * @author dannyroest@gmail.com (Danny Roest)
  * @version $Id$
  **/
-public class CrawlOverview
-        implements OnNewStatePlugin, PreStateCrawlingPlugin, PostCrawlingPlugin, GeneratesOutput {
+public class CrawlOverview implements OnNewStatePlugin, OnRevisitStatePlugin,
+        PreStateCrawlingPlugin, PostCrawlingPlugin, GeneratesOutput {
 
 	private static final Logger LOGGER = Logger.getLogger(CrawlOverview.class);
 
@@ -58,6 +89,8 @@ public class CrawlOverview
 	private static final String MAIN_OUTPUTFOLDER = "crawloverview/";
 	private static final String SCREENSHOTS_FOLDER = "screenshots/";
 	private static final String STATES_FOLDER = "states/";
+	private static final String DATA_FOLDER = "data/";
+	private static final String CANDIDATES_FOLDER = "candidates/";
 
 	private static final String RESOURCES_FOLDER = "plugins/crawloverview/";
 	private static final String TEMPLATE_STATE = "state.vm";
@@ -71,12 +104,73 @@ public class CrawlOverview
 	private static final String COLOR_A_PREVIOUS_STATE = "#00FFFF";
 	private static final String COLOR_NO_STATE_CHANGE = "orange";
 
-	private static final Map<String, List<RenderedCandidateElement>> stateCandidatesMap =
-	        new HashMap<String, List<RenderedCandidateElement>>();
+	private static final int DEFAULT_SCREENSHOT_QUEUE_SIZE = 16;
+	private static final String DEFAULT_SCREENSHOT_FORMAT = "png";
+	private static final int DEFAULT_THUMBNAIL_WIDTH = 400;
+	private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+	private static final int GRAPH_DATA_CHUNK_SIZE = 5000;
+	private static final int DEFAULT_MAXIMUM_CANDIDATES_IN_MEMORY = 500000;
+	private static final long PAGE_WRITER_TIMEOUT_MINUTES = 10;
 
 	private CrawlSession session;
 
-	private final List<String> visitedStates = new ArrayList<String>();
+	private final Set<String> visitedStates =
+	        Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private int screenshotThreads = Runtime.getRuntime().availableProcessors();
+	private int screenshotQueueSize = DEFAULT_SCREENSHOT_QUEUE_SIZE;
+	private int maximumScreenshotWidth = 0;
+	private String screenshotFormat = DEFAULT_SCREENSHOT_FORMAT;
+	private int thumbnailWidth = DEFAULT_THUMBNAIL_WIDTH;
+	private int reportThreads = Runtime.getRuntime().availableProcessors();
+
+	private ScreenshotWriter screenshotWriter;
+
+	private int maximumCandidatesInMemory = DEFAULT_MAXIMUM_CANDIDATES_IN_MEMORY;
+	private CandidateElementStore candidateStore;
+
+	private boolean batchedGeometry = true;
+	private final ElementGeometryCapture geometryCapture = new ElementGeometryCapture();
+
+	private RuntimeInstance velocity;
+	private Template indexTemplate;
+	private Template stateTemplate;
+
+	private Map<String, Integer> stateNumbers;
+
+	private boolean incremental = false;
+
+	/**
+	 * Guards the graph data of the incremental report and the states and edges added to it.
+	 */
+	private final Object incrementalLock = new Object();
+
+	/**
+	 * The graph data of the incremental report, open while crawling.
+	 */
+	private GraphDataWriter incrementalGraphData;
+	private final Set<String> incrementalStates = new HashSet<String>();
+	private final Set<Eventable> incrementalEdges =
+	        Collections.newSetFromMap(new IdentityHashMap<Eventable, Boolean>());
+
+	/**
+	 * Renders the queued pages of the incremental report, one at a time. Null before the report is
+	 * started and after the page writer is stopped.
+	 */
+	private volatile ExecutorService pageWriter;
+
+	/**
+	 * The outgoing edges of the states of which the page is queued for the page writer, by name.
+	 * The latest snapshot of a state replaces the one queued before.
+	 */
+	private final ConcurrentHashMap<String, QueuedPage> dirtyPages =
+	        new ConcurrentHashMap<String, QueuedPage>();
+
+	/**
+	 * The number of outgoing clickables of every state when its page was written.
+	 */
+	private final Map<String, Integer> incrementalPages =
+	        new ConcurrentHashMap<String, Integer>();
 
 	/**
 	 * Logs all the canidate elements so that the plugin knows which elements were the candidate
@@ -85,8 +179,21 @@ public class CrawlOverview
 	@Override
 	public void preStateCrawling(CrawlSession session, List<CandidateElement> candidateElements) {
 		this.session = session;
-		for (CandidateElement element : candidateElements) {
-			findElementAndAddToMap(session.getCurrentState(), element);
+		StateVertix state = session.getCurrentState();
+		List<CandidateElement> remaining = candidateElements;
+		if (batchedGeometry) {
+			remaining = addElementsBatched(state, candidateElements);
+		}
+		long start = System.nanoTime();
+		for (CandidateElement element : remaining) {
+			findElementAndAddToMap(state, element);
+		}
+		geometryCapture.recordSingle(remaining.size(), System.nanoTime() - start);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(geometryCapture);
+		}
+		if (incremental) {
+			writeStateIncrementally(session.getCurrentState());
 		}
 	}
 
@@ -96,7 +203,21 @@ public class CrawlOverview
 	@Override
 	public void onNewState(CrawlSession session) {
 		this.session = session;
-		saveScreenshot(session.getCurrentState());
+		saveScreenshot(session.getBrowser(), session.getCurrentState());
+		if (incremental) {
+			addStateIncrementally(session.getCurrentState());
+		}
+	}
+
+	/**
+	 * Adds the edge to a state that was already found to the incremental report.
+	 */
+	@Override
+	public void onRevisitState(CrawlSession session, StateVertix currentState) {
+		this.session = session;
+		if (incremental) {
+			addEdgesIncrementally(currentState);
+		}
 	}
 
 	/**
@@ -105,101 +226,482 @@ public class CrawlOverview
 	@Override
 	public void postCrawling(CrawlSession session) {
 		this.session = session;
+		// The report links the screenshots, so they must be written first
+		shutdownScreenshotWriter();
+		if (incremental) {
+			finishIncrementalReport();
+		} else {
+			try {
+				Helper.directoryCheck(getOutputFolder() + MAIN_OUTPUTFOLDER + STATES_FOLDER);
+			} catch (IOException e) {
+				LOGGER.error(e.getMessage(), e);
+			}
+			generateOverviewReport();
+		}
+		clearCandidateStore();
+		LOGGER.debug(geometryCapture);
+		visitedStates.clear();
+		stateNumbers = null;
+	}
+
+	/**
+	 * Capture the screenshot of a state that is new for this plugin and hand it to the writers.
+	 * When the browser can not capture the screenshot in memory it writes the screenshot itself,
+	 * the writers process the written file then.
+	 */
+	private void saveScreenshot(EmbeddedBrowser browser, StateVertix currentState) {
+		if (!visitedStates.add(currentState.getName())) {
+			return;
+		}
+		ScreenshotWriter writer = getScreenshotWriter();
 		try {
-			Helper.directoryCheck(getOutputFolder() + MAIN_OUTPUTFOLDER + STATES_FOLDER);
-		} catch (IOException e) {
-			LOGGER.error(e.getMessage(), e);
+			byte[] png = captureScreenshot(browser);
+			if (png != null) {
+				writer.write(currentState.getName(), png);
+			} else {
+				browser.saveScreenShot(new File(getScreenShotFileName(currentState)));
+				writer.written(currentState.getName());
+			}
+		} catch (Exception e) {
+			LOGGER.warn("Screenshots are not supported for " + browser);
 		}
-		generateOverviewReport();
 	}
 
-	private void saveScreenshot(StateVertix currentState) {
-		if (!visitedStates.contains(currentState.getName())) {
-			String fileName = getScreenShotFileName(currentState);
+	/**
+	 * @return the PNG screenshot of the browser or null if it can not be captured in memory
+	 */
+	private byte[] captureScreenshot(EmbeddedBrowser browser) {
+		if (browser instanceof WebDriverBackedEmbeddedBrowser) {
+			Object driver = ((WebDriverBackedEmbeddedBrowser) browser).getBrowser();
+			if (driver instanceof TakesScreenshot) {
+				return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the writers of this crawl, the first call creates them and the screenshots folder.
+	 */
+	private synchronized ScreenshotWriter getScreenshotWriter() {
+		if (screenshotWriter == null || screenshotWriter.isShutdown()) {
+			String folder = getOutputFolder() + MAIN_OUTPUTFOLDER + SCREENSHOTS_FOLDER;
 			try {
-				Helper.directoryCheck(getOutputFolder() + MAIN_OUTPUTFOLDER + SCREENSHOTS_FOLDER);
-				Helper.checkFolderForFile(fileName);
+				Helper.directoryCheck(folder);
 			} catch (IOException e) {
 				LOGGER.error(e.getMessage(), e);
 			}
+			screenshotWriter =
+			        new ScreenshotWriter(new File(folder), screenshotThreads,
+			                screenshotQueueSize, maximumScreenshotWidth, screenshotFormat,
+			                thumbnailWidth);
+		}
+		return screenshotWriter;
+	}
 
-			try {
-				session.getBrowser().saveScreenShot(new File(fileName));
-			} catch (Exception e) {
-				LOGGER.warn("Screenshots are not supported for " + session.getBrowser());
-			}
+	/**
+	 * Wait for the pending screenshots and stop the writers, the writer is kept to look up the
+	 * images of the states.
+	 */
+	private synchronized void shutdownScreenshotWriter() {
+		if (screenshotWriter != null) {
+			screenshotWriter.shutdown();
+			LOGGER.info(screenshotWriter.getDuplicates()
+			        + " screenshots were the same as an earlier screenshot");
+		}
+	}
+
+	/**
+	 * @return the file name of the full image of a state in the screenshots folder
+	 */
+	private synchronized String getScreenshot(StateVertix state) {
+		if (screenshotWriter == null) {
+			return state.getName() + ".png";
+		}
+		return screenshotWriter.getScreenshot(state.getName());
+	}
 
-			visitedStates.add(currentState.getName());
+	/**
+	 * @return the file name of the thumbnail of a state in the screenshots folder
+	 */
+	private synchronized String getThumbnail(StateVertix state) {
+		if (screenshotWriter == null) {
+			return state.getName() + ".png";
 		}
+		return screenshotWriter.getThumbnail(state.getName());
 	}
 
 	private void generateOverviewReport() {
 		StateFlowGraph sfg = session.getStateFlowGraph();
 		try {
+			compileTemplates();
 			createNeededJavaScriptFiles();
+			writeGraphData(sfg);
 			writeIndexFile();
 		} catch (IOException e) {
 			LOGGER.error(e.getMessage(), e);
 		} catch (Exception e) {
 			LOGGER.error(e.getMessage(), e);
 		}
+		if (stateTemplate == null) {
+			return;
+		}
 
-		for (StateVertix state : sfg.getAllStates()) {
-			List<RenderedCandidateElement> rendered = stateCandidatesMap.get(state.getName());
+		stateNumbers = getStateNumbers(sfg);
+		writeStateFiles(sfg);
+		File indexFile = new File(getIndexFileName());
+		LOGGER.info("Overview report generated: " + indexFile.getAbsolutePath());
+	}
+
+	/**
+	 * The first call writes the parts of the incremental report that do not depend on the graph,
+	 * the report can be viewed from then on. Only called with the incrementalLock held.
+	 */
+	private void startIncrementalReport() throws Exception {
+		if (incrementalGraphData != null) {
+			return;
+		}
+		compileTemplates();
+		createNeededJavaScriptFiles();
+		Helper.directoryCheck(getOutputFolder() + MAIN_OUTPUTFOLDER + STATES_FOLDER);
+		incrementalGraphData = openGraphData();
+		writeIndexFile();
+		pageWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "CrawlOverviewPageWriter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private void writeStateIncrementally(StateVertix state) {
+		synchronized (incrementalLock) {
+			try {
+				startIncrementalReport();
+			} catch (Exception e) {
+				LOGGER.error(e.getMessage(), e);
+				return;
+			}
+		}
+		queueStatePage(state);
+	}
+
+	private void addStateIncrementally(StateVertix state) {
+		List<StateVertix> changed;
+		synchronized (incrementalLock) {
+			try {
+				startIncrementalReport();
+				if (incrementalStates.add(state.getName())) {
+					writeState(incrementalGraphData, state);
+				}
+				changed = addIncomingEdges(state);
+				incrementalGraphData.flush();
+			} catch (Exception e) {
+				LOGGER.error(e.getMessage(), e);
+				return;
+			}
+		}
+		queueStatePages(changed);
+	}
+
+	private void addEdgesIncrementally(StateVertix state) {
+		List<StateVertix> changed;
+		synchronized (incrementalLock) {
+			try {
+				startIncrementalReport();
+				changed = addIncomingEdges(state);
+				incrementalGraphData.flush();
+			} catch (Exception e) {
+				LOGGER.error(e.getMessage(), e);
+				return;
+			}
+		}
+		queueStatePages(changed);
+	}
+
+	/**
+	 * Append the edges to a state that are not in the graph data yet. Only called with the
+	 * incrementalLock held.
+	 * 
+	 * @return the states the new edges come from of which the page was written, their pages must
+	 *         be written again as they link to the state now
+	 */
+	private List<StateVertix> addIncomingEdges(StateVertix state) throws Exception {
+		List<StateVertix> changed = new ArrayList<StateVertix>();
+		for (Eventable eventable : session.getStateFlowGraph().getIncomingClickable(state)) {
+			if (incrementalEdges.add(eventable)) {
+				StateVertix source = eventable.getSourceStateVertix();
+				incrementalGraphData.writeEdge(source.getName(), state.getName());
+				if (incrementalPages.containsKey(source.getName())) {
+					changed.add(source);
+				}
+			}
+		}
+		return changed;
+	}
+
+	private void queueStatePages(List<StateVertix> states) {
+		for (StateVertix state : states) {
+			queueStatePage(state);
+		}
+	}
+
+	/**
+	 * Queue the page of a state for the page writer. The outgoing edges of the state are read
+	 * here, on the crawler thread, and the page writer renders the page from them. A page that is
+	 * queued already is written once, with the edges of the latest call. A page queued after the
+	 * page writer is stopped is left to the end of the crawl, which writes the pages that changed.
+	 */
+	private void queueStatePage(StateVertix state) {
+		final String name = state.getName();
+		ExecutorService writer = pageWriter;
+		if (writer == null) {
+			return;
+		}
+		QueuedPage page =
+		        new QueuedPage(state, getOutgoingEdges(session.getStateFlowGraph(), state));
+		if (dirtyPages.put(name, page) != null) {
+			return;
+		}
+		try {
+			writer.submit(new Runnable() {
+				@Override
+				public void run() {
+					QueuedPage dirty = dirtyPages.remove(name);
+					try {
+						writeStatePage(dirty.state, dirty.edges);
+					} catch (Exception e) {
+						LOGGER.error(e.getMessage(), e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			dirtyPages.remove(name);
+		}
+	}
+
+	/**
+	 * Write the page of a state and remember the number of its outgoing edges the page was
+	 * rendered with, an edge added since makes the page count as changed at the end of the crawl.
+	 */
+	private void writeStatePage(StateVertix state, OutgoingEdges edges) throws Exception {
+		writeHtmlForState(state, getCandidateStore().get(state.getName()), edges);
+		incrementalPages.put(state.getName(), edges.getCount());
+	}
+
+	/**
+	 * Wait until the page writer wrote the queued pages.
+	 */
+	private void stopPageWriter() {
+		if (pageWriter == null) {
+			return;
+		}
+		pageWriter.shutdown();
+		try {
+			if (!pageWriter.awaitTermination(PAGE_WRITER_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+				LOGGER.error("Not all the queued state pages were written");
+			}
+		} catch (InterruptedException e) {
+			LOGGER.error(e.getMessage(), e);
+			Thread.currentThread().interrupt();
+		}
+		pageWriter = null;
+		dirtyPages.clear();
+	}
+
+	/**
+	 * Append the states and edges that were not added while crawling and write the pages of the
+	 * states that changed since their page was written.
+	 */
+	private void finishIncrementalReport() {
+		StateFlowGraph sfg = session.getStateFlowGraph();
+		int pages = 0;
+		synchronized (incrementalLock) {
 			try {
-				writeHtmlForState(state, rendered);
+				startIncrementalReport();
+				stopPageWriter();
+				stateNumbers = getStateNumbers(sfg);
+				for (StateVertix state : sfg.getAllStates()) {
+					if (incrementalStates.add(state.getName())) {
+						writeState(incrementalGraphData, state);
+					}
+				}
+				for (Eventable eventable : sfg.getAllEdges()) {
+					if (incrementalEdges.add(eventable)) {
+						writeEdge(incrementalGraphData, eventable);
+					}
+				}
+				for (StateVertix state : sfg.getAllStates()) {
+					Integer written = incrementalPages.get(state.getName());
+					OutgoingEdges edges = getOutgoingEdges(sfg, state);
+					if (written == null || written != edges.getCount()) {
+						writeStatePage(state, edges);
+						pages++;
+					}
+				}
 			} catch (Exception e) {
 				LOGGER.error(e.getMessage(), e);
+			} finally {
+				closeIncrementalGraphData();
 			}
 		}
+		LOGGER.info(pages + " state pages were written at the end of the crawl");
 		File indexFile = new File(getIndexFileName());
 		LOGGER.info("Overview report generated: " + indexFile.getAbsolutePath());
 	}
 
-	private Eventable getEventableByCandidateElementInState(StateVertix state,
-	        RenderedCandidateElement element) {
-		StateFlowGraph sfg = session.getStateFlowGraph();
-		for (Eventable eventable : sfg.getOutgoingClickables(state)) {
+	private void closeIncrementalGraphData() {
+		if (incrementalGraphData == null) {
+			return;
+		}
+		try {
+			incrementalGraphData.close();
+		} catch (IOException e) {
+			LOGGER.error(e.getMessage(), e);
+		}
+		incrementalGraphData = null;
+		incrementalStates.clear();
+		incrementalEdges.clear();
+		incrementalPages.clear();
+	}
+
+	/**
+	 * Render the pages of the states, the pages are independent so they are rendered in parallel
+	 * with the compiled state template. The crawling has finished, so the graph no longer changes
+	 * while the pool reads it.
+	 */
+	private void writeStateFiles(final StateFlowGraph sfg) {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, reportThreads));
+		List<Future<Void>> pages = new ArrayList<Future<Void>>();
+		for (final StateVertix state : sfg.getAllStates()) {
+			pages.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					// Read the candidates on the pool, a spilled state reads its file
+					writeHtmlForState(state, getCandidateStore().get(state.getName()),
+					        getOutgoingEdges(sfg, state));
+					return null;
+				}
+			}));
+		}
+		executor.shutdown();
+		for (Future<Void> page : pages) {
+			try {
+				page.get();
+			} catch (InterruptedException e) {
+				LOGGER.error(e.getMessage(), e);
+				Thread.currentThread().interrupt();
+				executor.shutdownNow();
+				return;
+			} catch (ExecutionException e) {
+				LOGGER.error(e.getCause().getMessage(), e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Parse the templates once, the compiled templates are shared by all the pages of the report.
+	 */
+	private void compileTemplates() throws Exception {
+		if (velocity != null) {
+			return;
+		}
+		RuntimeInstance runtime = new RuntimeInstance();
+		/* disable logging */
+		runtime.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM_CLASS,
+		        "org.apache.velocity.runtime.log.NullLogChute");
+		runtime.init();
+		indexTemplate = compileTemplate(runtime, TEMPLATE_INDEX);
+		stateTemplate = compileTemplate(runtime, TEMPLATE_STATE);
+		velocity = runtime;
+	}
+
+	private Template compileTemplate(RuntimeInstance runtime, String name) throws Exception {
+		String source = Helper.getTemplateAsString(RESOURCES_FOLDER + name);
+		Template template = new Template();
+		template.setRuntimeServices(runtime);
+		template.setName(name);
+		template.setData(runtime.parse(new StringReader(source), name));
+		template.initDocument();
+		return template;
+	}
+
+	private void merge(Template template, VelocityContext context, String fileName)
+	        throws Exception {
+		Writer writer = new BufferedWriter(new FileWriter(new File(fileName)), WRITER_BUFFER_SIZE);
+		try {
+			template.merge(context, writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Index the target states of the outgoing clickables of a state by the identification value of
+	 * the clicked element, when several clickables have the same identification the first one is
+	 * used.
+	 */
+	private OutgoingEdges getOutgoingEdges(StateFlowGraph sfg, StateVertix state) {
+		Map<String, String> targets = new HashMap<String, String>();
+		Set<Eventable> outgoing = sfg.getOutgoingClickables(state);
+		for (Eventable eventable : outgoing) {
 			// TODO Check if element.getIdentification().getValue() is correct replacement for
 			// element.getXpath()
-			if (eventable.getIdentification().getValue().equals(
-			        element.getIdentification().getValue())) {
-				return eventable;
+			String identification = eventable.getIdentification().getValue();
+			if (!targets.containsKey(identification)) {
+				targets.put(identification, sfg.getTargetState(eventable).getName());
 			}
 		}
-		return null;
+		return new OutgoingEdges(targets, outgoing.size());
+	}
+
+	private Map<String, Integer> getStateNumbers(StateFlowGraph sfg) {
+		Map<String, Integer> numbers = new HashMap<String, Integer>();
+		for (StateVertix state : sfg.getAllStates()) {
+			numbers.put(state.getName(), getStateNumber(state));
+		}
+		return numbers;
 	}
 
 	private int getStateNumber(StateVertix state) {
-		if (state.getName().equals("index")) {
+		return getStateNumber(state.getName());
+	}
+
+	private int getStateNumber(String name) {
+		if (stateNumbers != null) {
+			Integer number = stateNumbers.get(name);
+			if (number != null) {
+				return number;
+			}
+		}
+		if (name.equals("index")) {
 			return 0;
 		}
-		return Integer.parseInt(state.getName().replace("state", ""));
+		return Integer.parseInt(name.replace("state", ""));
 	}
 
-	private List<Map<String, String>> getElements(StateFlowGraph sfg, StateVertix state,
+	private List<Map<String, String>> getElements(StateVertix state, OutgoingEdges edges,
 	        List<RenderedCandidateElement> rendered) {
 		List<Map<String, String>> elements = new ArrayList<Map<String, String>>();
 
 		if (rendered != null) {
+			int stateNumber = getStateNumber(state);
 			for (RenderedCandidateElement element : rendered) {
-				Eventable eventable = getEventableByCandidateElementInState(state, element);
-				StateVertix toState = null;
+				String toState = edges.getTarget(element.getIdentification());
 				Map<String, String> elementMap = new HashMap<String, String>();
-				if (eventable != null) {
-					toState = sfg.getTargetState(eventable);
-				}
-				elementMap.put("left", "" + (element.getLocation().x - 1));
-				elementMap.put("top", "" + (element.getLocation().y + 20 - 1));
-				elementMap.put("width", "" + (element.getSize().width + 2));
-				elementMap.put("height", "" + (element.getSize().height + 2));
+				elementMap.put("left", "" + (element.getX() - 1));
+				elementMap.put("top", "" + (element.getY() + 20 - 1));
+				elementMap.put("width", "" + (element.getWidth() + 2));
+				elementMap.put("height", "" + (element.getHeight() + 2));
 				if (toState != null) {
-					elementMap.put("targetname", toState.getName());
+					elementMap.put("targetname", toState);
 				} else {
 					elementMap.put("targetname", "");
 				}
 				if (toState != null) {
-					if (getStateNumber(toState) < getStateNumber(state)) {
+					if (getStateNumber(toState) < stateNumber) {
 						// state already found
 						elementMap.put("color", COLOR_A_PREVIOUS_STATE);
 					} else {
@@ -221,28 +723,38 @@ public class CrawlOverview
 		return elements;
 	}
 
-	private List<Map<String, String>> getEventables(StateFlowGraph sfg) throws CrawljaxException {
-		List<Map<String, String>> eventables = new ArrayList<Map<String, String>>();
-		for (Eventable eventable : sfg.getAllEdges()) {
-			Map<String, String> eventableMap = new HashMap<String, String>();
-			eventableMap.put("from", eventable.getSourceStateVertix().getName());
-			eventableMap.put("to", eventable.getTargetStateVertix().getName());
-			eventables.add(eventableMap);
+	/**
+	 * Stream the states and the edges of the graph into the data chunks the index page loads.
+	 */
+	private void writeGraphData(StateFlowGraph sfg) throws Exception {
+		GraphDataWriter writer = openGraphData();
+		try {
+			for (StateVertix state : sfg.getAllStates()) {
+				writeState(writer, state);
+			}
+			for (Eventable eventable : sfg.getAllEdges()) {
+				writeEdge(writer, eventable);
+			}
+		} finally {
+			int chunks = writer.close();
+			LOGGER.debug("Graph data written in " + chunks + " chunks");
 		}
-		return eventables;
 	}
 
-	private List<Map<String, String>> getStates(StateFlowGraph sfg) {
-		List<Map<String, String>> states = new ArrayList<Map<String, String>>();
-		for (StateVertix stateVertix : sfg.getAllStates()) {
-			Map<String, String> stateVertixMap = new HashMap<String, String>();
-			stateVertixMap.put("name", stateVertix.getName());
-			stateVertixMap.put("url", stateVertix.getUrl());
-			stateVertixMap.put("id", stateVertix.getName().replace("state", "S"));
-			stateVertixMap.put("screenshot", SCREENSHOTS_FOLDER + stateVertix.getName() + ".png");
-			states.add(stateVertixMap);
-		}
-		return states;
+	private GraphDataWriter openGraphData() throws IOException {
+		String folder = getOutputFolder() + MAIN_OUTPUTFOLDER + DATA_FOLDER;
+		Helper.directoryCheck(folder);
+		return new GraphDataWriter(new File(folder), GRAPH_DATA_CHUNK_SIZE);
+	}
+
+	private void writeState(GraphDataWriter writer, StateVertix state) throws IOException {
+		writer.writeState(state.getName(), state.getUrl(), state.getName().replace("state", "S"),
+		        SCREENSHOTS_FOLDER + getThumbnail(state));
+	}
+
+	private void writeEdge(GraphDataWriter writer, Eventable eventable) throws Exception {
+		writer.writeEdge(eventable.getSourceStateVertix().getName(), eventable
+		        .getTargetStateVertix().getName());
 	}
 
 	private void createNeededJavaScriptFiles() throws IOException {
@@ -260,51 +772,65 @@ public class CrawlOverview
 	private void writeIndexFile() throws Exception {
 		String fileName = getIndexFileName();
 		Helper.checkFolderForFile(fileName);
-		StateFlowGraph sfg = session.getStateFlowGraph();
-		String template = Helper.getTemplateAsString(RESOURCES_FOLDER + TEMPLATE_INDEX);
 		VelocityContext context = new VelocityContext();
 		context.put("headerheight", HEADER_SIZE);
 
-		context.put("eventables", getEventables(sfg));
-		context.put("states", getStates(sfg));
+		context.put("graphdata", DATA_FOLDER + GraphDataWriter.getFirstChunk());
 		context.put("colorNewState", COLOR_NEW_STATE);
 		context.put("colorPrevState", COLOR_A_PREVIOUS_STATE);
 		context.put("colorNoStateChange", COLOR_NO_STATE_CHANGE);
 
-		// writing
-		File fileHTML = new File(fileName);
-		FileWriter writer = new FileWriter(fileHTML);
-		VelocityEngine ve = new VelocityEngine();
-		/* disable logging */
-		ve.setProperty(VelocityEngine.RUNTIME_LOG_LOGSYSTEM_CLASS,
-		        "org.apache.velocity.runtime.log.NullLogChute");
-		ve.evaluate(context, writer, "index", template);
-		writer.flush();
-		writer.close();
+		merge(indexTemplate, context, fileName);
 	}
 
-	private void writeHtmlForState(StateVertix state, List<RenderedCandidateElement> rendered)
-	        throws Exception {
+	private void writeHtmlForState(StateVertix state, List<RenderedCandidateElement> rendered,
+	        OutgoingEdges edges) throws Exception {
 		String fileName = getStateFileName(state);
 		Helper.checkFolderForFile(fileName);
-		StateFlowGraph sfg = session.getStateFlowGraph();
-
-		String template = Helper.getTemplateAsString(RESOURCES_FOLDER + TEMPLATE_STATE);
 		VelocityContext context = new VelocityContext();
 		context.put("name", state.getName());
-		context.put("screenshot", "../" + SCREENSHOTS_FOLDER + state.getName() + ".png");
-		context.put("elements", getElements(sfg, state, rendered));
+		context.put("screenshot", "../" + SCREENSHOTS_FOLDER + getScreenshot(state));
+		context.put("elements", getElements(state, edges, rendered));
 
-		// writing
-		File fileHTML = new File(fileName);
-		FileWriter writer = new FileWriter(fileHTML);
-		VelocityEngine ve = new VelocityEngine();
-		/* disable logging */
-		ve.setProperty(VelocityEngine.RUNTIME_LOG_LOGSYSTEM_CLASS,
-		        "org.apache.velocity.runtime.log.NullLogChute");
-		ve.evaluate(context, writer, state.getName(), template);
-		writer.flush();
-		writer.close();
+		merge(stateTemplate, context, fileName);
+	}
+
+	/**
+	 * Capture the location and size of the candidate elements identified by an XPath with one
+	 * script call.
+	 * 
+	 * @return the candidate elements that still have to be located one by one
+	 */
+	private List<CandidateElement> addElementsBatched(StateVertix state,
+	        List<CandidateElement> candidateElements) {
+		List<CandidateElement> batched = new ArrayList<CandidateElement>();
+		List<String> xpaths = new ArrayList<String>();
+		List<CandidateElement> remaining = new ArrayList<CandidateElement>();
+		for (CandidateElement element : candidateElements) {
+			if (element.getIdentification().getHow() == Identification.How.xpath) {
+				batched.add(element);
+				xpaths.add(element.getIdentification().getValue());
+			} else {
+				remaining.add(element);
+			}
+		}
+		if (batched.isEmpty()) {
+			return remaining;
+		}
+		int[][] geometry = geometryCapture.capture(session.getBrowser(), xpaths);
+		if (geometry == null) {
+			return candidateElements;
+		}
+		for (int i = 0; i < geometry.length; i++) {
+			int[] box = geometry[i];
+			if (box == null) {
+				remaining.add(batched.get(i));
+			} else {
+				getCandidateStore().add(state.getName(), xpaths.get(i), box[0], box[1], box[2],
+				        box[3]);
+			}
+		}
+		return remaining;
 	}
 
 	private void findElementAndAddToMap(StateVertix state, CandidateElement element) {
@@ -320,18 +846,34 @@ public class CrawlOverview
 			LOGGER.info("Could not locate " + element.getElement().toString());
 			return;
 		}
-		// put in map
-		if (!stateCandidatesMap.containsKey(state.getName())) {
-			stateCandidatesMap.put(state.getName(), new ArrayList<RenderedCandidateElement>());
-		}
 		Point location = ((RenderedWebElement) webElement).getLocation();
 		Dimension size = ((RenderedWebElement) webElement).getSize();
-		RenderedCandidateElement renderedCandidateElement =
 		// TODO Check if element.getIdentification().getValue() is correct replacement for
-		        // element.getXpath()
-		        new RenderedCandidateElement(element.getElement(), element.getIdentification()
-		                .getValue(), location, size);
-		stateCandidatesMap.get(state.getName()).add(renderedCandidateElement);
+		// element.getXpath()
+		getCandidateStore().add(state.getName(), element.getIdentification().getValue(),
+		        location.x, location.y, size.width, size.height);
+	}
+
+	/**
+	 * Return the candidate elements of this crawl, the first call creates the store.
+	 */
+	private synchronized CandidateElementStore getCandidateStore() {
+		if (candidateStore == null) {
+			candidateStore =
+			        new CandidateElementStore(new File(getOutputFolder() + MAIN_OUTPUTFOLDER
+			                + CANDIDATES_FOLDER), maximumCandidatesInMemory);
+		}
+		return candidateStore;
+	}
+
+	/**
+	 * Forget the candidate elements once the report is written, so a next crawl starts empty.
+	 */
+	private synchronized void clearCandidateStore() {
+		if (candidateStore != null) {
+			candidateStore.clear();
+			candidateStore = null;
+		}
 	}
 
 	private String getScreenShotFileName(StateVertix state) {
@@ -357,4 +899,99 @@ public class CrawlOverview
 		this.outputFolder = outputfolder;
 	}
 
+	/**
+	 * @param screenshotThreads
+	 *            the number of threads encoding and writing the screenshots, the number of cores
+	 *            by default
+	 */
+	public void setScreenshotThreads(int screenshotThreads) {
+		this.screenshotThreads = screenshotThreads;
+	}
+
+	/**
+	 * @param screenshotQueueSize
+	 *            the maximum number of captured screenshots waiting to be written, a crawler
+	 *            thread waits when there are more, 16 by default
+	 */
+	public void setScreenshotQueueSize(int screenshotQueueSize) {
+		this.screenshotQueueSize = screenshotQueueSize;
+	}
+
+	/**
+	 * @param maximumScreenshotWidth
+	 *            wider screenshots are downscaled to this width, 0 (the default) keeps the
+	 *            captured size. The highlighted elements on the state pages are positioned for
+	 *            the captured size.
+	 */
+	public void setMaximumScreenshotWidth(int maximumScreenshotWidth) {
+		this.maximumScreenshotWidth = maximumScreenshotWidth;
+	}
+
+	/**
+	 * @param screenshotFormat
+	 *            the format of the full screenshots: png (the default), jpg or webp when an ImageIO
+	 *            plugin for webp is installed
+	 */
+	public void setScreenshotFormat(String screenshotFormat) {
+		this.screenshotFormat = screenshotFormat;
+	}
+
+	/**
+	 * @param thumbnailWidth
+	 *            the width of the thumbnails shown on the index page, 400 by default, 0 shows the
+	 *            full screenshots; the index page zooms a state to at most 400 pixels wide
+	 */
+	public void setThumbnailWidth(int thumbnailWidth) {
+		this.thumbnailWidth = thumbnailWidth;
+	}
+
+	/**
+	 * @param reportThreads
+	 *            the number of threads rendering the pages of the states, the number of cores by
+	 *            default
+	 */
+	public void setReportThreads(int reportThreads) {
+		this.reportThreads = reportThreads;
+	}
+
+	/**
+	 * @param maximumCandidatesInMemory
+	 *            the maximum number of candidate elements kept in memory, more are written to
+	 *            disk until the report is generated, 500000 by default and 0 keeps all in memory
+	 */
+	public void setMaximumCandidatesInMemory(int maximumCandidatesInMemory) {
+		this.maximumCandidatesInMemory = maximumCandidatesInMemory;
+	}
+
+	/**
+	 * @param batchedGeometry
+	 *            capture the location and size of the candidate elements with one script call per
+	 *            state instead of one WebDriver call per element and property, true by default
+	 */
+	public void setBatchedGeometry(boolean batchedGeometry) {
+		this.batchedGeometry = batchedGeometry;
+	}
+
+	/**
+	 * @param incremental
+	 *            write the report while crawling instead of after the crawl, false by default
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * A page queued for the page writer: the state and its outgoing edges when it was queued.
+	 */
+	private static final class QueuedPage {
+
+		private final StateVertix state;
+		private final OutgoingEdges edges;
+
+		private QueuedPage(StateVertix state, OutgoingEdges edges) {
+			this.state = state;
+			this.edges = edges;
+		}
+	}
+
 }
@@ -0,0 +1,204 @@
+/*
+ * CrawlOverview is a plugin for Crawljax that generates a nice HTML report to visually see the
+ * inferred state graph. Copyright (C) 2010 crawljax.com This program is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version. This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.crawloverview;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.crawljax.browser.EmbeddedBrowser;
+
+/**
+ * Captures the location and size of a list of elements with a single script call, instead of
+ * locating every element and asking for its location and size through WebDriver.
+ * <p>
+ * The counters compare the batched capture with the elements that were located one by one, to
+ * estimate the time the batches saved.
+ * </p>
+ *
+ * @version $Id$
+ */
+public class ElementGeometryCapture {
+
+	private static final Logger LOGGER = Logger.getLogger(ElementGeometryCapture.class);
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private static final String SCRIPT_START = "if (!document.evaluate) { return null; }\n"
+	        + "var xpaths = [";
+	private static final String SCRIPT_END = "];\n"
+	        + "var boxes = [];\n"
+	        + "for (var i = 0; i < xpaths.length; i++) {\n"
+	        + "  var box = '';\n"
+	        + "  try {\n"
+	        + "    var node = document.evaluate(xpaths[i], document, null,\n"
+	        + "        XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;\n"
+	        + "    if (node != null && node.getBoundingClientRect) {\n"
+	        + "      var r = node.getBoundingClientRect();\n"
+	        + "      box = Math.round(r.left + window.pageXOffset) + ','\n"
+	        + "          + Math.round(r.top + window.pageYOffset) + ','\n"
+	        + "          + Math.round(r.width) + ',' + Math.round(r.height);\n"
+	        + "    }\n"
+	        + "  } catch (e) {}\n"
+	        + "  boxes.push(box);\n"
+	        + "}\n"
+	        + "return boxes.join(';');";
+
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong failedBatches = new AtomicLong();
+	private final AtomicLong batchedElements = new AtomicLong();
+	private final AtomicLong batchedNanos = new AtomicLong();
+	private final AtomicLong singleElements = new AtomicLong();
+	private final AtomicLong singleNanos = new AtomicLong();
+
+	/**
+	 * Capture the location and size of the elements.
+	 *
+	 * @param browser
+	 *            the browser showing the elements
+	 * @param xpaths
+	 *            the XPath expressions of the elements
+	 * @return the x, y, width and height of every element, or null for an element that was not
+	 *         found. Null when the browser could not run the script.
+	 */
+	public int[][] capture(EmbeddedBrowser browser, List<String> xpaths) {
+		long start = System.nanoTime();
+		Object result;
+		try {
+			result = browser.executeJavaScript(getScript(xpaths));
+		} catch (Exception e) {
+			LOGGER.debug("Could not capture the candidate elements in one script call", e);
+			failedBatches.incrementAndGet();
+			return null;
+		}
+		int[][] geometry = parse(result, xpaths.size());
+		if (geometry == null) {
+			failedBatches.incrementAndGet();
+			return null;
+		}
+		int found = 0;
+		for (int[] box : geometry) {
+			if (box != null) {
+				found++;
+			}
+		}
+		batches.incrementAndGet();
+		batchedElements.addAndGet(found);
+		batchedNanos.addAndGet(System.nanoTime() - start);
+		return geometry;
+	}
+
+	/**
+	 * Count elements that were located one by one.
+	 *
+	 * @param elements
+	 *            the number of elements
+	 * @param nanos
+	 *            the time it took to locate them and get their location and size
+	 */
+	public void recordSingle(int elements, long nanos) {
+		if (elements > 0) {
+			singleElements.addAndGet(elements);
+			singleNanos.addAndGet(nanos);
+		}
+	}
+
+	/**
+	 * @return the estimated time the batches saved compared to locating the same elements one by
+	 *         one, -1 when no element was located one by one yet to compare with
+	 */
+	public long getEstimatedSavingMillis() {
+		long single = singleElements.get();
+		if (single == 0) {
+			return -1;
+		}
+		double nanosPerElement = (double) singleNanos.get() / single;
+		return (long) (batchedElements.get() * nanosPerElement - batchedNanos.get())
+		        / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder counters = new StringBuilder();
+		counters.append(batchedElements.get()).append(" candidate elements captured in ")
+		        .append(batches.get()).append(" script calls (")
+		        .append(batchedNanos.get() / NANOS_PER_MILLI).append(" ms, ")
+		        .append(failedBatches.get()).append(" failed), ").append(singleElements.get())
+		        .append(" located one by one (").append(singleNanos.get() / NANOS_PER_MILLI)
+		        .append(" ms)");
+		long saved = getEstimatedSavingMillis();
+		if (saved >= 0) {
+			counters.append(", an estimated ").append(saved).append(" ms saved");
+		}
+		return counters.toString();
+	}
+
+	private static String getScript(List<String> xpaths) {
+		StringBuilder script = new StringBuilder(SCRIPT_START);
+		for (int i = 0; i < xpaths.size(); i++) {
+			if (i > 0) {
+				script.append(',');
+			}
+			appendString(script, xpaths.get(i));
+		}
+		return script.append(SCRIPT_END).toString();
+	}
+
+	private static void appendString(StringBuilder script, String value) {
+		script.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				script.append('\\').append(c);
+			} else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+				script.append(String.format("\\u%04x", (int) c));
+			} else {
+				script.append(c);
+			}
+		}
+		script.append('"');
+	}
+
+	/**
+	 * Parse the boxes returned by the script, "x,y,width,height" separated by ";" with an empty
+	 * box for an element that was not found.
+	 */
+	private static int[][] parse(Object result, int size) {
+		if (!(result instanceof String)) {
+			return null;
+		}
+		String[] boxes = ((String) result).split(";", -1);
+		if (boxes.length != size) {
+			return null;
+		}
+		int[][] geometry = new int[size][];
+		try {
+			for (int i = 0; i < size; i++) {
+				if (boxes[i].length() == 0) {
+					continue;
+				}
+				String[] values = boxes[i].split(",");
+				if (values.length != 4) {
+					return null;
+				}
+				geometry[i] =
+				        new int[] { Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+				                Integer.parseInt(values[2]), Integer.parseInt(values[3]) };
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		return geometry;
+	}
+
+}
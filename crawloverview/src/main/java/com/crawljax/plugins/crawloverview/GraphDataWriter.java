@@ -0,0 +1,196 @@
+/*
+ * CrawlOverview is a plugin for Crawljax that generates a nice HTML report to visually see the
+ * inferred state graph. Copyright (C) 2010 crawljax.com This program is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version. This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.crawloverview;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Streams the states and edges of the state-flow graph into chunks for the index page. Every
+ * record is written as soon as it is added, so the memory used does not depend on the size of the
+ * graph.
+ * <p>
+ * A chunk has one line per record, a JSON object passed to addGraphData of graph.js, and ends
+ * with a call to nextGraphData with the file name of the next chunk or null for the last one. The
+ * index page loads the chunks one after the other with script elements, which also works for a
+ * report opened from the file system where XMLHttpRequest is not allowed. As every line is a
+ * complete statement, a chunk that was flushed but never closed (a crawl that was killed) can
+ * still be loaded, the index page stops at its end.
+ * </p>
+ *
+ * @version $Id$
+ */
+public class GraphDataWriter {
+
+	private static final String CHUNK_PREFIX = "graph-";
+	private static final String CHUNK_SUFFIX = ".js";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final File folder;
+	private final int chunkSize;
+
+	private Writer writer;
+	private int chunks;
+	private int records;
+
+	/**
+	 * @param folder
+	 *            the folder to write the chunks to, it must exist
+	 * @param chunkSize
+	 *            the number of states and edges in a chunk
+	 */
+	public GraphDataWriter(File folder, int chunkSize) {
+		this.folder = folder;
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	/**
+	 * @return the file name of the first chunk, relative to the folder
+	 */
+	public static String getFirstChunk() {
+		return getChunk(0);
+	}
+
+	private static String getChunk(int chunk) {
+		return CHUNK_PREFIX + chunk + CHUNK_SUFFIX;
+	}
+
+	/**
+	 * Add a state, the states must be added before the edges that refer to them.
+	 */
+	public void writeState(String name, String url, String id, String thumbnail)
+	        throws IOException {
+		Writer out = nextRecord();
+		out.write("{\"name\":");
+		writeString(out, name);
+		out.write(",\"url\":");
+		writeString(out, url);
+		out.write(",\"id\":");
+		writeString(out, id);
+		out.write(",\"thumbnail\":");
+		writeString(out, thumbnail);
+		out.write("});\n");
+	}
+
+	/**
+	 * Add an edge between two states.
+	 */
+	public void writeEdge(String from, String to) throws IOException {
+		Writer out = nextRecord();
+		out.write("{\"from\":");
+		writeString(out, from);
+		out.write(",\"to\":");
+		writeString(out, to);
+		out.write("});\n");
+	}
+
+	/**
+	 * Write the records added so far to disk, so the index page shows them.
+	 */
+	public void flush() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Close the last chunk. An empty graph still gets one (empty) chunk so the index page can
+	 * always load the first chunk.
+	 *
+	 * @return the number of chunks written
+	 */
+	public int close() throws IOException {
+		if (writer == null) {
+			openChunk();
+		}
+		closeChunk(null);
+		return chunks;
+	}
+
+	private Writer nextRecord() throws IOException {
+		if (writer == null) {
+			openChunk();
+		} else if (records == chunkSize) {
+			closeChunk(getChunk(chunks));
+			openChunk();
+		}
+		records++;
+		writer.write("addGraphData(");
+		return writer;
+	}
+
+	private void openChunk() throws IOException {
+		writer =
+		        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(folder,
+		                getChunk(chunks))), "UTF-8"), BUFFER_SIZE);
+		chunks++;
+		records = 0;
+	}
+
+	private void closeChunk(String next) throws IOException {
+		try {
+			writer.write("nextGraphData(");
+			if (next == null) {
+				writer.write("null");
+			} else {
+				writeString(writer, next);
+			}
+			writer.write(");\n");
+		} finally {
+			writer.close();
+			writer = null;
+		}
+	}
+
+	/**
+	 * Write a JSON string, the line separators are escaped too as they end a JavaScript string.
+	 */
+	private static void writeString(Writer out, String value) throws IOException {
+		if (value == null) {
+			out.write("null");
+			return;
+		}
+		out.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					out.write("\\\"");
+					break;
+				case '\\':
+					out.write("\\\\");
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				default:
+					if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+						out.write(String.format("\\u%04x", (int) c));
+					} else {
+						out.write(c);
+					}
+			}
+		}
+		out.write('"');
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+	CrawlOverview is a plugin for Crawljax that generates a nice HTML
+	report to visually see the inferred state graph.
+    Copyright (C) 2010  crawljax.com
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+package com.crawljax.plugins.crawloverview;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outgoing edges of a state as read from the state flow graph on the crawler thread: the name
+ * of the target state by the identification value of the clicked element and the number of
+ * edges. The page of the state is rendered from it, so the page writer never reads the graph the
+ * crawler threads keep changing.
+ * 
+ * @version $Id$
+ */
+public class OutgoingEdges {
+
+	private final Map<String, String> targets;
+	private final int count;
+
+	/**
+	 * @param targets
+	 *            the name of the target state by identification value, not changed afterwards
+	 * @param count
+	 *            the number of outgoing edges
+	 */
+	protected OutgoingEdges(Map<String, String> targets, int count) {
+		this.targets = Collections.unmodifiableMap(targets);
+		this.count = count;
+	}
+
+	/**
+	 * @param identification
+	 *            the identification value of a candidate element
+	 * @return the name of the state clicking the element leads to, null if none
+	 */
+	protected String getTarget(String identification) {
+		return targets.get(identification);
+	}
+
+	/**
+	 * @return the number of outgoing edges
+	 */
+	protected int getCount() {
+		return count;
+	}
+}
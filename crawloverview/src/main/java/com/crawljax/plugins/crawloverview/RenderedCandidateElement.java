@@ -19,36 +19,61 @@
 */
 package com.crawljax.plugins.crawloverview;
 
-import java.awt.Dimension;
-import java.awt.Point;
+/**
+ * A candidate element of a state with the position and size it was rendered at. Only the
+ * identification value and the coordinates are kept, not the DOM element.
+ * 
+ * @version $Id$
+ */
+public class RenderedCandidateElement {
 
-import org.w3c.dom.Element;
+	private final String identification;
+	private final int x;
+	private final int y;
+	private final int width;
+	private final int height;
 
-import com.crawljax.core.CandidateElement;
+	protected RenderedCandidateElement(String identification, int x, int y, int width,
+	        int height) {
+		this.identification = identification;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+	}
 
-public class RenderedCandidateElement extends CandidateElement {
+	/**
+	 * @return the value of the identification of the element
+	 */
+	protected String getIdentification() {
+		return identification;
+	}
 
-	private final Point location;
-	private final Dimension size;
+	/**
+	 * @return the x coordinate of the location
+	 */
+	protected int getX() {
+		return x;
+	}
 
-	protected RenderedCandidateElement(Element element, String xpath, Point location,
-	        Dimension size) {
-		super(element, xpath);
-		this.location = location;
-		this.size = size;
+	/**
+	 * @return the y coordinate of the location
+	 */
+	protected int getY() {
+		return y;
 	}
 
 	/**
-	 * @return the location
+	 * @return the width
 	 */
-	protected Point getLocation() {
-		return location;
+	protected int getWidth() {
+		return width;
 	}
 
 	/**
-	 * @return the size
+	 * @return the height
 	 */
-	protected Dimension getSize() {
-		return size;
+	protected int getHeight() {
+		return height;
 	}
 }
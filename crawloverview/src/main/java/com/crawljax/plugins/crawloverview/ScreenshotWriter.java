@@ -0,0 +1,411 @@
+/*
+ * CrawlOverview is a plugin for Crawljax that generates a nice HTML report to visually see the
+ * inferred state graph. Copyright (C) 2010 crawljax.com This program is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version. This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.crawloverview;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Writes the screenshots of the CrawlOverview on a pool of writer threads. The crawler thread only
+ * captures and hashes the screenshot, downscaling, encoding and the disk writes are done by the
+ * pool. At most queueSize screenshots are pending, a crawler thread that captures more waits
+ * until a writer is done so the captured images can not use up the memory.
+ * <p>
+ * Screenshots with the same content are stored once, the later states refer to the image of the
+ * first state. The image of a state is known as soon as its screenshot is submitted. Next to the
+ * full image a small thumbnail is written for the index page. The full image is written as PNG,
+ * JPEG or, when an ImageIO plugin for it is installed, WebP.
+ * </p>
+ * 
+ * @version $Id$
+ */
+public class ScreenshotWriter {
+
+	private static final Logger LOGGER = Logger.getLogger(ScreenshotWriter.class);
+
+	private static final long SHUTDOWN_TIMEOUT_MINUTES = 10;
+
+	private static final String PNG = "png";
+	private static final String JPEG = "jpg";
+	private static final String THUMBNAIL_SUFFIX = "_thumb";
+
+	private static final float IMAGE_QUALITY = 0.85f;
+	private static final float THUMBNAIL_QUALITY = 0.7f;
+
+	private final File folder;
+	private final ExecutorService pool;
+	private final Semaphore pending;
+	private final int maximumWidth;
+	private final int thumbnailWidth;
+	private final String format;
+	private final String thumbnailFormat;
+
+	/**
+	 * The image (the name of the first state with the same content) of every state.
+	 */
+	private final ConcurrentHashMap<String, String> images =
+	        new ConcurrentHashMap<String, String>();
+
+	/**
+	 * The first state of every content hash.
+	 */
+	private final ConcurrentHashMap<String, String> hashes =
+	        new ConcurrentHashMap<String, String>();
+
+	private final AtomicInteger duplicates = new AtomicInteger();
+
+	/**
+	 * Create a new writer pool.
+	 * 
+	 * @param folder
+	 *            the screenshots folder
+	 * @param threads
+	 *            the number of writer threads
+	 * @param queueSize
+	 *            the maximum number of screenshots waiting to be written
+	 * @param maximumWidth
+	 *            wider screenshots are downscaled to this width, 0 keeps the captured size
+	 * @param format
+	 *            the format of the full images: png, jpg or webp
+	 * @param thumbnailWidth
+	 *            the width of the thumbnails, 0 writes no thumbnails
+	 */
+	public ScreenshotWriter(File folder, int threads, int queueSize, int maximumWidth,
+	        String format, int thumbnailWidth) {
+		this.folder = folder;
+		this.pending = new Semaphore(queueSize);
+		this.maximumWidth = maximumWidth;
+		this.thumbnailWidth = thumbnailWidth;
+		this.format = supportedFormat(format);
+		this.thumbnailFormat = PNG.equals(this.format) ? JPEG : this.format;
+		this.pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ScreenshotWriter-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private static String supportedFormat(String format) {
+		String lower = format.toLowerCase();
+		if ("jpeg".equals(lower)) {
+			lower = JPEG;
+		}
+		if (PNG.equals(lower) || JPEG.equals(lower)) {
+			return lower;
+		}
+		if (ImageIO.getImageWritersByFormatName(lower).hasNext()) {
+			return lower;
+		}
+		LOGGER.warn("No ImageIO writer for " + format + " screenshots, writing JPEG instead");
+		return JPEG;
+	}
+
+	/**
+	 * Write a screenshot captured in memory, waits while the queue is full.
+	 * 
+	 * @param state
+	 *            the name of the state
+	 * @param png
+	 *            the captured PNG image
+	 */
+	public void write(String state, byte[] png) {
+		submit(state, png, false);
+	}
+
+	/**
+	 * Process a PNG screenshot the browser already wrote to state.png in the screenshots folder,
+	 * waits while the queue is full.
+	 * 
+	 * @param state
+	 *            the name of the state
+	 */
+	public void written(String state) {
+		byte[] png;
+		try {
+			png = read(new File(folder, state + "." + PNG));
+		} catch (IOException e) {
+			LOGGER.error("Could not process the screenshot of " + state, e);
+			return;
+		}
+		submit(state, png, true);
+	}
+
+	/**
+	 * Look up the image of the state by the hash of its content, so the image of a state is known
+	 * as soon as it is submitted. Only a screenshot that was not seen before is handed to the
+	 * pool.
+	 */
+	private void submit(final String state, final byte[] png, final boolean written) {
+		String first = hashes.putIfAbsent(hash(png), state);
+		if (first != null) {
+			// Same content as an earlier state, refer to its image
+			images.put(state, first);
+			duplicates.incrementAndGet();
+			if (written) {
+				new File(folder, state + "." + PNG).delete();
+			}
+			return;
+		}
+		images.put(state, state);
+		submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					process(state, png, written);
+				} catch (IOException e) {
+					LOGGER.error("Could not write the screenshot of " + state, e);
+				}
+			}
+		});
+	}
+
+	private void submit(final Runnable task) {
+		try {
+			pending.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.warn("Interrupted while waiting for a screenshot writer, writing it directly");
+			task.run();
+			return;
+		}
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} finally {
+					pending.release();
+				}
+			}
+		});
+	}
+
+	private void process(String state, byte[] png, boolean written) throws IOException {
+		File original = new File(folder, state + "." + PNG);
+		BufferedImage image = null;
+		if (PNG.equals(format) && maximumWidth <= 0) {
+			if (!written) {
+				write(png, original);
+			}
+		} else {
+			image = decode(png);
+			BufferedImage full = image;
+			if (maximumWidth > 0 && image.getWidth() > maximumWidth) {
+				full = scale(image, maximumWidth);
+			}
+			encode(full, format, IMAGE_QUALITY, new File(folder, state + "." + format));
+			if (written && !PNG.equals(format)) {
+				original.delete();
+			}
+		}
+
+		if (thumbnailWidth > 0) {
+			if (image == null) {
+				image = decode(png);
+			}
+			BufferedImage thumbnail = image;
+			if (image.getWidth() > thumbnailWidth) {
+				thumbnail = scale(image, thumbnailWidth);
+			}
+			encode(thumbnail, thumbnailFormat, THUMBNAIL_QUALITY, new File(folder, state
+			        + THUMBNAIL_SUFFIX + "." + thumbnailFormat));
+		}
+	}
+
+	private static String hash(byte[] data) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest) {
+				hex.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not available", e);
+		}
+	}
+
+	private static byte[] read(File file) throws IOException {
+		byte[] data = new byte[(int) file.length()];
+		InputStream in = new FileInputStream(file);
+		try {
+			int offset = 0;
+			while (offset < data.length) {
+				int read = in.read(data, offset, data.length - offset);
+				if (read < 0) {
+					throw new IOException("Unexpected end of " + file);
+				}
+				offset += read;
+			}
+		} finally {
+			in.close();
+		}
+		return data;
+	}
+
+	private static void write(byte[] data, File file) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static BufferedImage decode(byte[] png) throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+		if (image == null) {
+			throw new IOException("The screenshot is not a readable image");
+		}
+		return image;
+	}
+
+	private static BufferedImage scale(BufferedImage image, int width) {
+		int height = Math.max(1, image.getHeight() * width / image.getWidth());
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+		        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+
+	/**
+	 * Encode an image, lossy formats are written with the given quality and without alpha.
+	 */
+	private static void encode(BufferedImage image, String format, float quality, File file)
+	        throws IOException {
+		if (PNG.equals(format)) {
+			ImageIO.write(image, PNG, file);
+			return;
+		}
+		BufferedImage rgb = image;
+		if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+			rgb = new BufferedImage(image.getWidth(), image.getHeight(),
+			        BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = rgb.createGraphics();
+			g.drawImage(image, 0, 0, null);
+			g.dispose();
+		}
+		Iterator<ImageWriter> writers =
+		        ImageIO.getImageWritersByFormatName(JPEG.equals(format) ? "jpeg" : format);
+		ImageWriter writer = writers.next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		if (param.canWriteCompressed()) {
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			if (param.getCompressionType() == null) {
+				param.setCompressionType(param.getCompressionTypes()[0]);
+			}
+			param.setCompressionQuality(quality);
+		}
+		file.delete();
+		ImageOutputStream out = ImageIO.createImageOutputStream(file);
+		try {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(rgb, null, null), param);
+		} finally {
+			writer.dispose();
+			out.close();
+		}
+	}
+
+	/**
+	 * @param state
+	 *            the name of the state
+	 * @return the file name of the full image of the state in the screenshots folder
+	 */
+	public String getScreenshot(String state) {
+		return getImage(state) + "." + format;
+	}
+
+	/**
+	 * @param state
+	 *            the name of the state
+	 * @return the file name of the thumbnail of the state in the screenshots folder, the full
+	 *         image when no thumbnails are written
+	 */
+	public String getThumbnail(String state) {
+		if (thumbnailWidth <= 0) {
+			return getScreenshot(state);
+		}
+		return getImage(state) + THUMBNAIL_SUFFIX + "." + thumbnailFormat;
+	}
+
+	private String getImage(String state) {
+		String image = images.get(state);
+		if (image == null) {
+			return state;
+		}
+		return image;
+	}
+
+	/**
+	 * @return the number of screenshots that were not stored because an earlier state had the
+	 *         same screenshot
+	 */
+	public int getDuplicates() {
+		return duplicates.get();
+	}
+
+	/**
+	 * @return true after {@link #shutdown()}
+	 */
+	public boolean isShutdown() {
+		return pool.isShutdown();
+	}
+
+	/**
+	 * Write the pending screenshots and stop the writer threads.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+		try {
+			if (!pool.awaitTermination(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+				LOGGER.warn("Not all the screenshots are written");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * CrawlOverview is a plugin for Crawljax that generates a nice HTML report to visually see the
+ * inferred state graph. Copyright (C) 2010 crawljax.com This program is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version. This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.crawloverview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that CandidateElementStore reads back the elements it spilled to disk.
+ *
+ * @version $Id$
+ */
+public class CandidateElementStoreTest {
+
+	private File folder;
+
+	/**
+	 * Create an empty spill folder.
+	 */
+	@Before
+	public void createFolder() throws IOException {
+		folder = File.createTempFile("candidates", "");
+		assertTrue(folder.delete());
+	}
+
+	/**
+	 * Remove the spill folder.
+	 */
+	@After
+	public void deleteFolder() {
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	private static void assertElements(List<RenderedCandidateElement> elements, int from, int to) {
+		assertEquals(to - from, elements.size());
+		for (int i = from; i < to; i++) {
+			RenderedCandidateElement element = elements.get(i - from);
+			assertEquals("/HTML[1]/BODY[1]/A[" + i + "]", element.getIdentification());
+			assertEquals(i, element.getX());
+			assertEquals(i * 2, element.getY());
+			assertEquals(i * 3, element.getWidth());
+			assertEquals(i * 4, element.getHeight());
+		}
+	}
+
+	private static void add(CandidateElementStore store, String state, int from, int to) {
+		for (int i = from; i < to; i++) {
+			store.add(state, "/HTML[1]/BODY[1]/A[" + i + "]", i, i * 2, i * 3, i * 4);
+		}
+	}
+
+	/**
+	 * Without a maximum the elements stay in memory.
+	 */
+	@Test
+	public void inMemory() {
+		CandidateElementStore store = new CandidateElementStore(folder, 0);
+		assertNull(store.get("index"));
+		add(store, "index", 0, 100);
+		assertElements(store.get("index"), 0, 100);
+		assertFalse(folder.exists());
+	}
+
+	/**
+	 * The elements of a state combine the spilled elements and the elements added since, in the
+	 * order they were added.
+	 */
+	@Test
+	public void spillAndReadBack() {
+		CandidateElementStore store = new CandidateElementStore(folder, 10);
+		add(store, "index", 0, 8);
+		add(store, "state1", 0, 5);
+		add(store, "index", 8, 25);
+		add(store, "state1", 5, 7);
+
+		assertTrue(new File(folder, "index.candidates").exists());
+		assertTrue(new File(folder, "state1.candidates").exists());
+		assertElements(store.get("index"), 0, 25);
+		assertElements(store.get("state1"), 0, 7);
+		// Reading does not consume the elements
+		assertElements(store.get("index"), 0, 25);
+	}
+
+	/**
+	 * Clearing removes the elements and the spill files.
+	 */
+	@Test
+	public void clear() {
+		CandidateElementStore store = new CandidateElementStore(folder, 4);
+		add(store, "index", 0, 10);
+		assertTrue(new File(folder, "index.candidates").exists());
+		store.clear();
+		assertNull(store.get("index"));
+		assertFalse(new File(folder, "index.candidates").exists());
+		add(store, "index", 0, 3);
+		assertElements(store.get("index"), 0, 3);
+	}
+}
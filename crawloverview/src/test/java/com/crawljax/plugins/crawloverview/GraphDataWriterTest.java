@@ -0,0 +1,131 @@
+/*
+ * CrawlOverview is a plugin for Crawljax that generates a nice HTML report to visually see the
+ * inferred state graph. Copyright (C) 2010 crawljax.com This program is free software: you can
+ * redistribute it and/or modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or (at your option) any later
+ * version. This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR
+ * PURPOSE. See the GNU General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.crawloverview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the chunks and the escaping of GraphDataWriter.
+ *
+ * @version $Id$
+ */
+public class GraphDataWriterTest {
+
+	private File folder;
+
+	/**
+	 * Create an empty folder for the chunks.
+	 */
+	@Before
+	public void createFolder() throws IOException {
+		folder = File.createTempFile("graph", "");
+		assertTrue(folder.delete());
+		assertTrue(folder.mkdir());
+	}
+
+	/**
+	 * Remove the chunks.
+	 */
+	@After
+	public void deleteFolder() {
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	private String read(String chunk) throws IOException {
+		InputStream in = new FileInputStream(new File(folder, chunk));
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				bytes.write(buffer, 0, read);
+			}
+			return bytes.toString("UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * An empty graph still has a first chunk.
+	 */
+	@Test
+	public void emptyGraph() throws IOException {
+		GraphDataWriter writer = new GraphDataWriter(folder, 2);
+		assertEquals(1, writer.close());
+		assertEquals("nextGraphData(null);\n", read(GraphDataWriter.getFirstChunk()));
+	}
+
+	/**
+	 * A new chunk is started after chunkSize records and every chunk names the next one.
+	 */
+	@Test
+	public void chunkRollover() throws IOException {
+		GraphDataWriter writer = new GraphDataWriter(folder, 2);
+		writer.writeState("index", "http://localhost/", "s0", "index_small.jpg");
+		writer.writeState("state1", "http://localhost/#1", "s1", null);
+		writer.writeEdge("index", "state1");
+		assertEquals(2, writer.close());
+
+		assertEquals("graph-0.js", GraphDataWriter.getFirstChunk());
+		assertEquals("addGraphData({\"name\":\"index\",\"url\":\"http://localhost/\",\"id\":\"s0\","
+		        + "\"thumbnail\":\"index_small.jpg\"});\n"
+		        + "addGraphData({\"name\":\"state1\",\"url\":\"http://localhost/#1\",\"id\":\"s1\","
+		        + "\"thumbnail\":null});\n" + "nextGraphData(\"graph-1.js\");\n",
+		        read("graph-0.js"));
+		assertEquals("addGraphData({\"from\":\"index\",\"to\":\"state1\"});\n"
+		        + "nextGraphData(null);\n", read("graph-1.js"));
+		assertFalse(new File(folder, "graph-2.js").exists());
+	}
+
+	/**
+	 * Quotes, backslashes, control characters and the line separators are escaped, other
+	 * characters are written as UTF-8.
+	 */
+	@Test
+	public void escaping() throws IOException {
+		GraphDataWriter writer = new GraphDataWriter(folder, 10);
+		writer.writeEdge("a\"b\\c", "d\ne\rf\tg\u0001h\u2028i\u2029j\u00e9");
+		writer.close();
+		assertEquals("addGraphData({\"from\":\"a\\\"b\\\\c\","
+		        + "\"to\":\"d\\ne\\rf\\tg\\u0001h\\u2028i\\u2029j\u00e9\"});\n"
+		        + "nextGraphData(null);\n", read(GraphDataWriter.getFirstChunk()));
+	}
+
+	/**
+	 * A flushed chunk that was never closed holds the complete records added so far.
+	 */
+	@Test
+	public void flush() throws IOException {
+		GraphDataWriter writer = new GraphDataWriter(folder, 10);
+		writer.writeEdge("index", "state1");
+		writer.flush();
+		assertEquals("addGraphData({\"from\":\"index\",\"to\":\"state1\"});\n",
+		        read(GraphDataWriter.getFirstChunk()));
+		writer.close();
+	}
+}
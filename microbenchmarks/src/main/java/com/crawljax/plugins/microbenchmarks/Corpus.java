@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.microbenchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates the DOMs and the JavaScript the benchmarks run on. The pages look like the pages of
+ * a web application: a header with navigation, a content div with tables, lists and forms and a
+ * footer. Every generated corpus only depends on the size and the seed, so all runs of a
+ * benchmark see the same input.
+ * 
+ * @version $Id$
+ */
+public final class Corpus {
+
+	private static final String[] WORDS =
+	        { "account", "order", "price", "total", "customer", "shipping", "invoice", "status",
+	                "product", "category", "search", "results", "update", "delete", "details",
+	                "overview", "report", "settings", "profile", "message" };
+
+	private static final int BLOCK_KINDS = 4;
+	private static final int ROWS = 5;
+	private static final int COLUMNS = 4;
+	private static final int ITEMS = 6;
+	private static final int WORDS_PER_TEXT = 5;
+	private static final int MUTATION_PERCENTAGE = 5;
+	private static final int PERCENT = 100;
+
+	private Corpus() {
+	}
+
+	/**
+	 * Generate a page.
+	 * 
+	 * @param blocks
+	 *            the number of blocks (tables, lists, forms or paragraphs) in the content div
+	 * @param seed
+	 *            the seed of the page
+	 * @return the html of the page
+	 */
+	public static String page(int blocks, long seed) {
+		return page(blocks, seed, false);
+	}
+
+	/**
+	 * Generate the same page as {@link #page(int, long)} with about 5% of the texts changed, as
+	 * the DOM of the same state in another browser or in a later version of the application.
+	 * 
+	 * @param blocks
+	 *            the number of blocks in the content div
+	 * @param seed
+	 *            the seed of the page
+	 * @return the html of the changed page
+	 */
+	public static String mutatedPage(int blocks, long seed) {
+		return page(blocks, seed, true);
+	}
+
+	private static String page(int blocks, long seed, boolean mutate) {
+		Random random = new Random(seed);
+		// The mutations have their own sequence, so the structure stays the same
+		Random mutations = new Random(seed + 1);
+		StringBuilder out = new StringBuilder();
+		out.append("<html><head><title>").append(text(random, mutations, false)).append(
+		        "</title></head>\n<body class=\"app\">\n");
+		out.append("<div id=\"header\"><ul class=\"nav\">\n");
+		for (int i = 0; i < ITEMS; i++) {
+			out.append("<li><a href=\"#").append(word(random)).append("\" class=\"nav-item\">")
+			        .append(text(random, mutations, mutate)).append("</a></li>\n");
+		}
+		out.append("</ul></div>\n<div id=\"content\">\n");
+		for (int i = 0; i < blocks; i++) {
+			switch (i % BLOCK_KINDS) {
+				case 0:
+					table(out, random, mutations, mutate, i);
+					break;
+				case 1:
+					list(out, random, mutations, mutate, i);
+					break;
+				case 2:
+					form(out, random, mutations, mutate, i);
+					break;
+				default:
+					out.append("<div class=\"block\" id=\"block").append(i).append("\"><p>")
+					        .append(text(random, mutations, mutate)).append(" <b>").append(
+					                text(random, mutations, mutate)).append("</b></p></div>\n");
+					break;
+			}
+		}
+		out.append("</div>\n<div id=\"footer\"><p>").append(text(random, mutations, mutate))
+		        .append("</p></div>\n</body></html>\n");
+		return out.toString();
+	}
+
+	private static void table(StringBuilder out, Random random, Random mutations, boolean mutate,
+	        int id) {
+		out.append("<table class=\"grid\" id=\"block").append(id).append("\">\n<tr>");
+		for (int c = 0; c < COLUMNS; c++) {
+			out.append("<th>").append(word(random)).append("</th>");
+		}
+		out.append("</tr>\n");
+		for (int r = 0; r < ROWS; r++) {
+			out.append("<tr class=\"").append(r % 2 == 0 ? "even" : "odd").append("\">");
+			for (int c = 0; c < COLUMNS; c++) {
+				out.append("<td>").append(text(random, mutations, mutate)).append("</td>");
+			}
+			out.append("</tr>\n");
+		}
+		out.append("</table>\n");
+	}
+
+	private static void list(StringBuilder out, Random random, Random mutations, boolean mutate,
+	        int id) {
+		out.append("<ul class=\"items\" id=\"block").append(id).append("\">\n");
+		for (int i = 0; i < ITEMS; i++) {
+			out.append("<li><span class=\"label\">").append(word(random)).append(
+			        "</span> <a href=\"#item").append(i).append("\">").append(
+			        text(random, mutations, mutate)).append("</a></li>\n");
+		}
+		out.append("</ul>\n");
+	}
+
+	private static void form(StringBuilder out, Random random, Random mutations, boolean mutate,
+	        int id) {
+		out.append("<form action=\"#\" id=\"block").append(id).append("\">\n");
+		for (int i = 0; i < ITEMS / 2; i++) {
+			String name = word(random);
+			out.append("<label for=\"").append(name).append(id).append("\">").append(
+			        text(random, mutations, mutate)).append("</label><input type=\"text\" name=\"")
+			        .append(name).append("\" id=\"").append(name).append(id).append("\"/>\n");
+		}
+		out.append("<input type=\"submit\" value=\"").append(word(random)).append("\"/>\n");
+		out.append("</form>\n");
+	}
+
+	private static String word(Random random) {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+
+	private static String text(Random random, Random mutations, boolean mutate) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < WORDS_PER_TEXT; i++) {
+			if (i > 0) {
+				text.append(' ');
+			}
+			text.append(word(random));
+		}
+		// Always draw, the mutation sequence must not depend on the mutate flag
+		boolean changed = mutations.nextInt(PERCENT) < MUTATION_PERCENTAGE;
+		if (mutate && changed) {
+			text.append(" changed");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Generate a script in the style of the scripts of a web application: functions with loops,
+	 * conditions, object literals and closures.
+	 * 
+	 * @param functions
+	 *            the number of functions
+	 * @param seed
+	 *            the seed of the script
+	 * @return the JavaScript source
+	 */
+	public static String script(int functions, long seed) {
+		Random random = new Random(seed);
+		StringBuilder out = new StringBuilder();
+		out.append("var state = { count: 0, items: [], name: 'app' };\n");
+		for (int i = 0; i < functions; i++) {
+			String name = word(random) + i;
+			out.append("function ").append(name).append("(a, b) {\n");
+			out.append("  var total = 0;\n");
+			out.append("  var label = '").append(word(random)).append("';\n");
+			out.append("  for (var i = 0; i < a; i++) {\n");
+			out.append("    if (i % 2 == 0) {\n");
+			out.append("      total += i * b;\n");
+			out.append("    } else {\n");
+			out.append("      total -= b;\n");
+			out.append("    }\n");
+			out.append("  }\n");
+			out.append("  state.count++;\n");
+			out.append("  state.items.push({ id: ").append(i).append(", label: label });\n");
+			out.append("  var done = function(result) { state.name = label + result; };\n");
+			out.append("  done(total);\n");
+			out.append("  return total > ").append(random.nextInt(PERCENT)).append(";\n");
+			out.append("}\n");
+		}
+		return out.toString();
+	}
+}
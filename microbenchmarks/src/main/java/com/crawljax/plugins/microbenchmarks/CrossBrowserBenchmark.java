@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.microbenchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawljax.plugins.crossbrowser.statecompare.DiffTextNodesList;
+import com.crawljax.plugins.crossbrowser.statecompare.TextNode;
+import com.crawljax.plugins.crossbrowser.statecompare.TextNodeLoader;
+
+/**
+ * Benchmarks the text node comparison of the crossbrowser plugin: stripping a DOM to its text
+ * nodes and diffing the text nodes of two versions of a page.
+ * 
+ * @version $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CrossBrowserBenchmark {
+
+	private static final long SEED = 42;
+
+	@Param( { "10", "100", "1000" })
+	private int blocks;
+
+	private String dom;
+	private List<TextNode> originalNodes;
+	private List<TextNode> currentNodes;
+
+	/**
+	 * Generate the page and the changed page and strip both once for the diff benchmark.
+	 */
+	@Setup
+	public void generate() {
+		dom = Corpus.page(blocks, SEED);
+		originalNodes = TextNodeLoader.stripDom(dom, "");
+		currentNodes = TextNodeLoader.stripDom(Corpus.mutatedPage(blocks, SEED), "");
+	}
+
+	/**
+	 * @return the text nodes of the page
+	 */
+	@Benchmark
+	public List<TextNode> stripDom() {
+		return TextNodeLoader.stripDom(dom, "");
+	}
+
+	/**
+	 * @return the differences between the page and the changed page
+	 */
+	@Benchmark
+	public DiffTextNodesList findDifferences() {
+		return DiffTextNodesList.findDifferences(originalNodes, currentNodes);
+	}
+}
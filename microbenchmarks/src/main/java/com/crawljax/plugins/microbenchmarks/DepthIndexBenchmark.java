@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.microbenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawljax.core.state.Eventable;
+import com.crawljax.core.state.Eventable.EventType;
+import com.crawljax.core.state.Identification;
+import com.crawljax.core.state.Identification.How;
+import com.crawljax.core.state.StateFlowGraph;
+import com.crawljax.core.state.StateVertix;
+import com.crawljax.plugins.benchmark.dataset.DepthIndex;
+
+/**
+ * JMH benchmark comparing the depth calculation with a shortest path search on the state flow
+ * graph (the old approach) with the incremental DepthIndex on synthetic graphs. Every state gets
+ * one edge from a random earlier state and FAN_BACK edges back to random earlier states, so the
+ * graphs look like a crawl with revisits.
+ * 
+ * @version $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DepthIndexBenchmark {
+
+	private static final int FAN_BACK = 2;
+	private static final long SEED = 42;
+
+	@Param( { "1000", "10000", "100000" })
+	private int states;
+
+	private StateFlowGraph sfg;
+	private StateVertix index;
+	private final List<StateVertix> vertices = new ArrayList<StateVertix>();
+	private final List<String[]> edges = new ArrayList<String[]>();
+
+	private DepthIndex depthIndex;
+	private int next = 0;
+
+	/**
+	 * Build the synthetic graph, both as StateFlowGraph and as list of edges.
+	 */
+	@Setup(Level.Trial)
+	public void buildGraph() {
+		Random random = new Random(SEED);
+		index = new StateVertix("index", "<html><body>index</body></html>");
+		sfg = new StateFlowGraph(index);
+		vertices.add(index);
+		for (int i = 1; i < states; i++) {
+			StateVertix state =
+			        new StateVertix("state" + i, "<html><body>state" + i + "</body></html>");
+			sfg.addState(state);
+			vertices.add(state);
+			addEdge(vertices.get(random.nextInt(i)), state, i);
+			for (int j = 0; j < FAN_BACK; j++) {
+				addEdge(state, vertices.get(random.nextInt(i)), i * (FAN_BACK + 1) + j);
+			}
+		}
+		depthIndex = new DepthIndex();
+		depthIndex.setIndex(index.getName());
+		for (String[] edge : edges) {
+			depthIndex.addEdge(edge[0], edge[1]);
+		}
+	}
+
+	private void addEdge(StateVertix source, StateVertix target, int id) {
+		sfg.addEdge(source, target, new Eventable(new Identification(How.xpath, "/HTML/BODY/A["
+		        + id + "]"), EventType.click));
+		edges.add(new String[] { source.getName(), target.getName() });
+	}
+
+	private StateVertix nextState() {
+		next = (next + 1) % states;
+		return vertices.get(next);
+	}
+
+	/**
+	 * The old approach: a shortest path search per visited state.
+	 * 
+	 * @return the depth
+	 */
+	@Benchmark
+	public int shortestPath() {
+		List<Eventable> path = sfg.getShortestPath(index, nextState());
+		if (path == null) {
+			return 0;
+		}
+		return path.size();
+	}
+
+	/**
+	 * The new approach: a lookup in the maintained depth index.
+	 * 
+	 * @return the depth
+	 */
+	@Benchmark
+	public int depthIndexLookup() {
+		return depthIndex.getDepth(nextState().getName());
+	}
+
+	/**
+	 * The cost of keeping the depth index up to date for the whole graph, divide by the number of
+	 * edges to get the cost per visit.
+	 * 
+	 * @return the number of states with a depth
+	 */
+	@Benchmark
+	public int depthIndexBuild() {
+		DepthIndex fresh = new DepthIndex();
+		fresh.setIndex(index.getName());
+		for (String[] edge : edges) {
+			fresh.addEdge(edge[0], edge[1]);
+		}
+		return fresh.size();
+	}
+}
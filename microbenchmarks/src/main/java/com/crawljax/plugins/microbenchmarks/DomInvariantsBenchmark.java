@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.microbenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.xpath.XPathExpressionException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.crawljax.plugins.adi.DomInvariantFinder;
+import com.crawljax.plugins.adi.InvariantElement;
+import com.crawljax.plugins.adi.Report;
+import com.crawljax.util.Helper;
+
+/**
+ * Benchmarks the DOM invariants plugin: checking a tree of invariants against a DOM and building
+ * the detailed XPath expressions of the elements of a DOM.
+ * 
+ * @version $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DomInvariantsBenchmark {
+
+	private static final long SEED = 42;
+
+	@Param( { "10", "100", "1000" })
+	private int blocks;
+
+	private Document dom;
+	private InvariantElement invariants;
+	private final List<Node> elements = new ArrayList<Node>();
+
+	/**
+	 * Parse the page, collect its elements and build an invariant tree that holds on the page.
+	 * 
+	 * @throws Exception
+	 *             when the page can not be parsed
+	 */
+	@Setup
+	public void generate() throws Exception {
+		dom = Helper.getDocument(Corpus.page(blocks, SEED));
+		NodeList all = dom.getElementsByTagName("*");
+		for (int i = 0; i < all.getLength(); i++) {
+			elements.add(all.item(i));
+		}
+
+		invariants = new InvariantElement("//BODY");
+		invariants.addChild(new InvariantElement("//DIV[@id='header']", invariants));
+		InvariantElement content =
+		        invariants.addChild(new InvariantElement("//DIV[@id='content']", invariants));
+		content.addChild(new InvariantElement("//TABLE[@class='grid']", content));
+		content.addChild(new InvariantElement("//UL[@class='items']/LI", content));
+		content.addChild(new InvariantElement("//FORM/INPUT[@type='submit']", content));
+		invariants.addChild(new InvariantElement("//DIV[@id='footer']", invariants));
+	}
+
+	/**
+	 * @return the report of the check
+	 * @throws XPathExpressionException
+	 *             when an invariant is not a valid expression
+	 */
+	@Benchmark
+	public Report check() throws XPathExpressionException {
+		Report report = new Report();
+		report.setControlDom(dom);
+		report.setTestDom(dom);
+		invariants.check(dom, new ArrayList<List<Node>>(), report);
+		return report;
+	}
+
+	/**
+	 * @param blackhole
+	 *            consumes the expressions
+	 */
+	@Benchmark
+	public void getDetailedXPathExpression(Blackhole blackhole) {
+		for (Node element : elements) {
+			blackhole.consume(DomInvariantFinder.getDetailedXPathExpression(element, true, false));
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.microbenchmarks;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawljax.plugins.errorreport.ErrorReport;
+import com.crawljax.plugins.errorreport.Highlight;
+import com.crawljax.plugins.errorreport.ReportError;
+
+/**
+ * Benchmarks ErrorReport.saveDOM, which parses a DOM, marks the highlighted elements, pretty
+ * prints and escapes it and writes it to the states folder of the report. The method is private,
+ * like the tests of the plugins it is called through reflection.
+ * 
+ * @version $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ErrorReportBenchmark {
+
+	private static final long SEED = 42;
+
+	private static final String[] HIGHLIGHTED =
+	        { "//DIV[@id='header']", "//TABLE[@class='grid']", "//FORM", "//DIV[@id='footer']" };
+
+	@Param( { "10", "100", "1000" })
+	private int blocks;
+
+	private String dom;
+	private File folder;
+	private ErrorReport errorReport;
+	private ReportError error;
+	private List<Highlight> highlights;
+	private Method saveDOM;
+
+	/**
+	 * Generate the page and create a report in a temporary folder.
+	 * 
+	 * @throws Exception
+	 *             when the folder can not be created or saveDOM can not be found
+	 */
+	@Setup
+	public void generate() throws Exception {
+		dom = Corpus.page(blocks, SEED);
+
+		folder = File.createTempFile("errorreport", "");
+		folder.delete();
+		folder.mkdirs();
+		errorReport = new ErrorReport("microbenchmark", folder.getAbsolutePath());
+
+		highlights = new ArrayList<Highlight>();
+		for (int i = 0; i < HIGHLIGHTED.length; i++) {
+			Highlight highlight = new Highlight("highlight " + i, HIGHLIGHTED[i]);
+			highlight.setId(String.valueOf(i));
+			highlights.add(highlight);
+		}
+		error = new ReportError("Benchmark", "saveDOM").withHighlights(highlights);
+		error.setId(1);
+
+		saveDOM =
+		        ErrorReport.class.getDeclaredMethod("saveDOM", ReportError.class, String.class,
+		                String.class, List.class);
+		saveDOM.setAccessible(true);
+	}
+
+	/**
+	 * Remove the report folder with the states saveDOM wrote into it.
+	 */
+	@TearDown
+	public void removeReport() {
+		delete(folder);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * @return the result of the call, nothing
+	 * @throws Exception
+	 *             when saveDOM fails
+	 */
+	@Benchmark
+	public Object saveDOM() throws Exception {
+		return saveDOM.invoke(errorReport, error, "current", dom, highlights);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.crawljax.plugins.microbenchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawljax.core.CrawljaxException;
+import com.crawljax.plugins.aji.JSModifyProxyPlugin;
+import com.crawljax.plugins.aji.executiontracer.AstInstrumenter;
+import com.crawljax.plugins.aji.executiontracer.Trace;
+
+/**
+ * Benchmarks the JavaScript invariants plugin: instrumenting a script with
+ * JSModifyProxyPlugin.modifyJS and converting an execution trace with Trace.parse and
+ * Trace.getData. modifyJS is private, like the tests of the plugin it is called through
+ * reflection.
+ * 
+ * @version $Id$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JavascriptInvariantsBenchmark {
+
+	private static final long SEED = 42;
+
+	private static final int VISITS_PER_FUNCTION = 4;
+
+	@Param( { "10", "100", "1000" })
+	private int functions;
+
+	private String script;
+	private JSModifyProxyPlugin plugin;
+	private Method modifyJS;
+
+	private JSONArray rawTrace;
+	private Trace trace;
+
+	/**
+	 * Generate the script and the trace of running it.
+	 * 
+	 * @throws Exception
+	 *             when modifyJS can not be found or the trace is not valid JSON
+	 */
+	@Setup
+	public void generate() throws Exception {
+		script = Corpus.script(functions, SEED);
+		plugin = new JSModifyProxyPlugin(new AstInstrumenter());
+		modifyJS =
+		        JSModifyProxyPlugin.class.getDeclaredMethod("modifyJS", String.class,
+		                String.class);
+		modifyJS.setAccessible(true);
+
+		rawTrace = new JSONArray(trace(functions));
+		trace = Trace.parse(rawTrace);
+	}
+
+	/**
+	 * Build the trace the instrumented script sends back, an enter and an exit record for every
+	 * call.
+	 */
+	private static String trace(int functions) {
+		StringBuilder out = new StringBuilder("[");
+		for (int i = 0; i < functions * VISITS_PER_FUNCTION; i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			int function = i % functions;
+			String point = i % 2 == 0 ? ":::ENTER" : ":::EXIT";
+			out.append("[\"function").append(function).append("\",\"").append(point).append(
+			        "\",[[\"a\",\"number\",").append(i).append("],[\"label\",\"string\",\"label ")
+			        .append(i).append("\"],[\"done\",\"boolean\",").append(i % 3 == 0).append(
+			                "],[\"items\",\"number_array\",[1,2,").append(i).append("]]]]");
+		}
+		return out.append(']').toString();
+	}
+
+	/**
+	 * @return the instrumented script
+	 * @throws Exception
+	 *             when modifyJS fails
+	 */
+	@Benchmark
+	public Object modifyJS() throws Exception {
+		return modifyJS.invoke(plugin, script, "app.js");
+	}
+
+	/**
+	 * @return the parsed trace
+	 * @throws JSONException
+	 *             when the trace is not valid
+	 */
+	@Benchmark
+	public Trace parse() throws JSONException {
+		return Trace.parse(rawTrace);
+	}
+
+	/**
+	 * @return the Daikon data trace records
+	 * @throws CrawljaxException
+	 *             when a type is not supported
+	 * @throws JSONException
+	 *             when the trace is not valid
+	 */
+	@Benchmark
+	public String getData() throws CrawljaxException, JSONException {
+		return trace.getData(rawTrace);
+	}
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2010 crawljax.com. This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version. This program
+ * is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details. You should have received a copy of the GNU General Public
+ * License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * JMH microbenchmarks of the hot paths of the plugins, run against generated DOM and JavaScript
+ * corpora and state flow graphs. Build the module and run <code>java -jar target/benchmarks.jar
+ * -prof gc -rf json -rff results.json</code>, the gc profiler adds the allocation rate next to the
+ * throughput.
+ * <p>
+ * No baseline is committed. To record one, build the whole project with the crawljax 2.0 jar the
+ * plugins depend on, run all the benchmarks with their default iterations on an otherwise idle
+ * machine with the command above and save results.json as baseline.json next to the pom of this
+ * module. Compare the results of a change with a baseline recorded on the same machine and JDK,
+ * and record the baseline again when a change is accepted.
+ * </p>
+ * 
+ * @version $Id$
+ */
+package com.crawljax.plugins.microbenchmarks;